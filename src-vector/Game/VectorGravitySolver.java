@@ -0,0 +1,97 @@
+package Game;
+
+import java.util.Arrays;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorGravitySolver class is DirectGravitySolver with the sum over the bodies done a SIMD
+ * register at a time with the incubating Vector API: every lane handles one body, so a
+ * register of 4 (AVX2) or 8 (AVX-512) doubles takes as many square roots and divisions at once.
+ * The lanes keep partial sums that are only added up at the end, so the field matches the
+ * scalar sum to rounding but not bit for bit.
+ * Black holes are left out by giving them no mass in a copy of the masses made by prepare(),
+ * the skipped body by taking its mass away for the one query, so the loop needs no test on
+ * the index, and bodies on the point itself by a mask on the zero distance. The bodies past
+ * the last full register are summed like DirectGravitySolver does. Taking the mass away
+ * writes to the copy, so like BarnesHutSolver an instance serves one thread at a time.
+ *
+ * This file lives in its own source folder, because it needs the jdk.incubator.vector module
+ * both to compile and to run:
+ *
+ *     javac --add-modules jdk.incubator.vector -cp bin -d bin src-vector/Game/VectorGravitySolver.java
+ *     java --add-modules jdk.incubator.vector -cp bin Game.App --simd
+ *
+ * The game never refers to it directly; VectorGravity loads it when asked to and it can.
+ */
+public class VectorGravitySolver implements GravitySolver {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    // masses as of the last prepare(), black holes at 0
+    private double[] mass = new double[64];
+    private int count = 0;
+
+    @Override
+    public void prepare(BodyStore bodies) {
+        int n = bodies.size();
+        if (n > this.mass.length)
+            this.mass = Arrays.copyOf(this.mass, Math.max(n, this.mass.length * 2));
+        for (int j = 0; j < n; j++)
+            this.mass[j] = bodies.isBlackHole(j) ? 0 : bodies.mass[j];
+        this.count = n;
+    }
+
+    @Override
+    public void field(BodyStore bodies, double x, double y, int skip, double[] out) {
+        if (bodies.size() != this.count)
+            this.prepare(bodies); // a body was added since the last prepare()
+
+        DoubleVector pointX = DoubleVector.broadcast(SPECIES, x);
+        DoubleVector pointY = DoubleVector.broadcast(SPECIES, y);
+        DoubleVector sumX = DoubleVector.zero(SPECIES);
+        DoubleVector sumY = DoubleVector.zero(SPECIES);
+        double tailX = 0;
+        double tailY = 0;
+
+        // the skipped body weighs nothing for this query
+        double skipMass = skip >= 0 ? this.mass[skip] : 0;
+        if (skip >= 0)
+            this.mass[skip] = 0;
+
+        int n = this.count;
+        int j = 0;
+        for (int upper = SPECIES.loopBound(n); j < upper; j += LANES) {
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, bodies.x, j).sub(pointX);
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, bodies.y, j).sub(pointY);
+            DoubleVector distSq = dx.mul(dx).add(dy.mul(dy));
+            VectorMask<Double> overlap = distSq.eq(0); // overlapping bodies? no gravity
+            DoubleVector s = DoubleVector.fromArray(SPECIES, this.mass, j)
+                    .div(distSq.mul(distSq.sqrt()))
+                    .blend(0, overlap);
+            sumX = sumX.add(dx.mul(s));
+            sumY = sumY.add(dy.mul(s));
+        }
+        for (; j < n; j++) {
+            double dx = bodies.x[j] - x;
+            double dy = bodies.y[j] - y;
+            double distSq = dx * dx + dy * dy;
+            if (distSq == 0)
+                continue;
+            double s = this.mass[j] / (distSq * Math.sqrt(distSq));
+            tailX += dx * s;
+            tailY += dy * s;
+        }
+        if (skip >= 0)
+            this.mass[skip] = skipMass;
+        out[0] = sumX.reduceLanes(VectorOperators.ADD) + tailX;
+        out[1] = sumY.reduceLanes(VectorOperators.ADD) + tailY;
+    }
+
+    // Doubles per SIMD register on this machine
+    public int getLanes() {
+        return LANES;
+    }
+}
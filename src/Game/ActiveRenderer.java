@@ -0,0 +1,147 @@
+package Game;
+
+import Game.Constant.GAME_CONSTANT;
+import Game.utils.FpsCounter;
+import java.awt.Canvas;
+import java.awt.Graphics2D;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * ActiveRenderer class draws the game straight onto a Canvas BufferStrategy from its own thread.
+ * The canvas uses page flipping, so every requested frame is drawn and shown exactly once
+ * instead of being merged or dropped by the Swing repaint manager.
+ * The render thread sleeps until the game loop requests a frame, so there is one frame per request.
+ * In continuous mode (uncapped frame rate) it draws frames back to back instead; since frames are
+ * interpolated between ticks, every one of them shows the world at a slightly later time.
+ * The back buffers are VolatileImages that can lose their contents at any time (e.g. a display
+ * mode switch or the screen being locked); lost or restored buffers are redrawn before showing.
+ * The painter only has to draw the frame; clearing the background is done here.
+ */
+@SuppressWarnings("serial")
+public class ActiveRenderer extends Canvas implements Runnable {
+    private static final int BUFFER_COUNT = 2;
+
+    private final Consumer<Graphics2D> painter;
+    private final FpsCounter fpsCounter = new FpsCounter();
+    private final AtomicBoolean framePending = new AtomicBoolean();
+
+    private Thread renderThread;
+    private volatile boolean running;
+    private volatile boolean continuous;
+    private BufferStrategy strategy;
+
+    // number of frames that had to be redrawn because the back buffer was lost
+    private volatile long lostFrameCount;
+
+    /**
+     * Constructor for the ActiveRenderer class.
+     *
+     * @param painter draws one frame into the given graphics context
+     */
+    public ActiveRenderer(Consumer<Graphics2D> painter) {
+        this.painter = painter;
+        this.setIgnoreRepaint(true);
+        this.setBackground(GAME_CONSTANT.SPACE_COLOR);
+    }
+
+    // Starts the render thread
+    public void start() {
+        this.running = true;
+        this.renderThread = new Thread(this, "render");
+        this.renderThread.start();
+    }
+
+    // Stops the render thread after the current frame
+    public void stop() {
+        this.running = false;
+        LockSupport.unpark(this.renderThread);
+    }
+
+    /**
+     * Sets whether frames are drawn back to back instead of only on request.
+     */
+    public void setContinuous(boolean continuous) {
+        this.continuous = continuous;
+        LockSupport.unpark(this.renderThread);
+    }
+
+    /**
+     * Asks the render thread to draw a frame.
+     * Requests made while a frame is still being drawn are merged into the next frame.
+     */
+    public void requestFrame() {
+        this.framePending.set(true);
+        LockSupport.unpark(this.renderThread);
+    }
+
+    @Override
+    public void run() {
+        while (this.running) {
+            // sleep until the game loop asks for a frame
+            if (!this.framePending.getAndSet(false) && !this.continuous) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            if (this.isShowing())
+                this.renderFrame();
+            else if (this.continuous)
+                LockSupport.parkNanos(this, 10_000_000); // hidden, do not spin
+        }
+    }
+
+    /**
+     * Draws one frame into the back buffer and flips it to the screen.
+     * The inner loop redraws when the buffer was restored while drawing, the outer loop
+     * redraws when the contents were lost again before they could be shown.
+     */
+    private void renderFrame() {
+        if (this.strategy == null) {
+            this.createBufferStrategy(BUFFER_COUNT);
+            this.strategy = this.getBufferStrategy();
+        }
+
+        boolean lost = false;
+        boolean restored;
+        boolean contentsLost;
+        do {
+            do {
+                Graphics2D g = (Graphics2D) this.strategy.getDrawGraphics();
+                try {
+                    g.setColor(GAME_CONSTANT.SPACE_COLOR);
+                    g.fillRect(0, 0, this.getWidth(), this.getHeight());
+                    this.painter.accept(g);
+                } finally {
+                    g.dispose();
+                }
+
+                restored = this.strategy.contentsRestored();
+                lost |= restored;
+            } while (restored);
+
+            this.strategy.show();
+
+            contentsLost = this.strategy.contentsLost();
+            lost |= contentsLost;
+        } while (contentsLost);
+
+        if (lost)
+            this.lostFrameCount++;
+
+        // flush the pipeline so frames are not queued up in the window system
+        Toolkit.getDefaultToolkit().sync();
+        this.fpsCounter.frame();
+    }
+
+    public double getFps() {
+        return this.fpsCounter.getFps();
+    }
+
+    public long getLostFrameCount() {
+        return this.lostFrameCount;
+    }
+}
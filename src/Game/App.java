@@ -1,5 +1,7 @@
 package Game;
 import Game.Constant.GAME_CONSTANT;
+import Game.Constant.Integrator;
+import Game.Constant.RenderMode;
 import javax.swing.JFrame;
 //Executing the game
 
@@ -11,10 +13,64 @@ import javax.swing.JFrame;
  * The game runs in a JFrame, which is a standard window in Java Swing.
  * The game is initialized with a fixed size and a non-resizable window.
  * The game can be extended to include more features such as settings, menus, and more complex game mechanics.  
+ * Pass --passive to render through Swing repaint() instead of the active BufferStrategy canvas.
+ * Pass --seed <n> to generate the world from a fixed seed, --record <file> to record the controls
+ * of the session, and --replay <file> to play a recorded session back with the seed and the
+ * simulation settings it was recorded with.
+ * Pass --min-render-scale <s> to limit how far dynamic resolution may lower the world layer
+ * resolution, 1 turns it off.
+ * Pass --fps-cap <n> to change the frame rate cap (0 for uncapped) and --tick-rate <n> to change
+ * the simulation tick rate; frames are interpolated between ticks either way.
+ * Pass --integrator <euler|leapfrog|yoshida4> to pick the orbit integrator and --orbit-timestep <s>
+ * to change the simulated seconds per tick of the orbits. Pass --no-rails to integrate every
+ * planet instead of putting the undisturbed ones on Kepler rails.
+ * Pass --lod-radii <full>,<reduced> to change how many grid cells around the player's solar
+ * system are simulated every tick and at a reduced rate (see GameWorld), and --serial to update
+ * the solar systems one after another on the game thread instead of in parallel.
+ * Pass --simd to sum gravity with the Vector API (see VectorGravity); the game keeps to the
+ * scalar sum if the JVM was not started with --add-modules jdk.incubator.vector.
+ * Pass --gravity-grid <cells> to read the pull of the suns and black holes from a grid of that
+ * many cells per side (see StaticGravityGrid) instead of summing it.
  */
 public class App {
     public static void main(String[] args) throws Exception {
 
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--passive"))
+                GAME_CONSTANT.RENDER_MODE = RenderMode.PASSIVE;
+            else if (arg.equals("--active"))
+                GAME_CONSTANT.RENDER_MODE = RenderMode.ACTIVE;
+            else if (arg.equals("--seed") && i + 1 < args.length)
+                GAME_CONSTANT.WORLD_SEED = Long.parseLong(args[++i]);
+            else if (arg.equals("--record") && i + 1 < args.length)
+                GAME_CONSTANT.RECORD_PATH = args[++i];
+            else if (arg.equals("--replay") && i + 1 < args.length)
+                GAME_CONSTANT.REPLAY_PATH = args[++i];
+            else if (arg.equals("--min-render-scale") && i + 1 < args.length)
+                GAME_CONSTANT.MIN_RENDER_SCALE = Double.parseDouble(args[++i]);
+            else if (arg.equals("--fps-cap") && i + 1 < args.length)
+                GAME_CONSTANT.FPS_CAP = Integer.parseInt(args[++i]);
+            else if (arg.equals("--tick-rate") && i + 1 < args.length)
+                GAME_CONSTANT.FPS_SET = Integer.parseInt(args[++i]);
+            else if (arg.equals("--integrator") && i + 1 < args.length)
+                GAME_CONSTANT.INTEGRATOR = Integrator.valueOf(args[++i].toUpperCase());
+            else if (arg.equals("--orbit-timestep") && i + 1 < args.length)
+                GAME_CONSTANT.ORBIT_TIMESTEP = Double.parseDouble(args[++i]);
+            else if (arg.equals("--no-rails"))
+                GAME_CONSTANT.KEPLER_RAILS = false;
+            else if (arg.equals("--lod-radii") && i + 1 < args.length) {
+                String[] radii = args[++i].split(",");
+                GAME_CONSTANT.LOD_FULL_RADIUS = Integer.parseInt(radii[0]);
+                GAME_CONSTANT.LOD_REDUCED_RADIUS = Integer.parseInt(radii[radii.length - 1]);
+            } else if (arg.equals("--serial"))
+                GAME_CONSTANT.PARALLEL_SYSTEMS = false;
+            else if (arg.equals("--simd"))
+                GAME_CONSTANT.SIMD_GRAVITY = true;
+            else if (arg.equals("--gravity-grid") && i + 1 < args.length)
+                GAME_CONSTANT.STATIC_GRAVITY_GRID = Integer.parseInt(args[++i]);
+        }
+
         JFrame frame = new JFrame("Orbitor");
 
         frame.setSize(GAME_CONSTANT.WINDOW_WIDTH, GAME_CONSTANT.WINDOW_HEIGHT);
@@ -0,0 +1,259 @@
+package Game;
+
+import java.util.Arrays;
+
+/**
+ * BarnesHutSolver class approximates the field with a Barnes-Hut quadtree, O(log n) per
+ * query instead of O(n), which is what lets a system hold thousands of bodies (debris
+ * fields, rogue planets).
+ * prepare() rebuilds the tree from the current positions: every node is a square cell
+ * that knows the total mass and the center of mass of the bodies inside it. A query walks
+ * the tree from the root and treats a whole cell as one point mass at its center of mass
+ * when the cell looks small from the point, i.e. size / distance < theta. The distance is
+ * shortened by how far the center of mass sits off the cell center, so a cell whose mass
+ * is crowded into one corner (a sun with debris around it) is not accepted too early.
+ * A cell that contains the point itself is always opened, so a body never feels its own mass.
+ * Only the planets go into the tree. The few suns and moons outweigh everything around them,
+ * and a cell holding one of them would be a poor single point mass, so they are summed exactly.
+ * theta = 0 opens every cell and gives the direct sum; around 0.5 is the usual trade-off.
+ * The nodes live in flat arrays that are reused from tick to tick, so after the first
+ * ticks neither the build nor the queries allocate.
+ */
+public class BarnesHutSolver implements GravitySolver {
+    // cells are not split below this depth; bodies closer than size / 2^MAX_DEPTH are lumped together
+    private static final int MAX_DEPTH = 40;
+
+    // body field of a node: no body, or several bodies lumped at MAX_DEPTH
+    private static final int EMPTY = -1;
+    private static final int LUMPED = -2;
+
+    private final double theta;
+
+    private int nodeCount = 0;
+
+    // lower left corner and edge length of each cell
+    private double[] cellX = new double[64];
+    private double[] cellY = new double[64];
+    private double[] cellSize = new double[64];
+
+    // total mass and mass weighted position sum, turned into the center of mass after the build
+    private double[] mass = new double[64];
+    private double[] comX = new double[64];
+    private double[] comY = new double[64];
+
+    // squared distance from the center of mass below which the cell has to be opened
+    private double[] openDistSq = new double[64];
+
+    // index of the first of the four children (they are consecutive), or -1 for a leaf
+    private int[] firstChild = new int[64];
+    // for leaves: the body in it, EMPTY or LUMPED
+    private int[] body = new int[64];
+
+    private final int[] stack = new int[3 * MAX_DEPTH + 8];
+
+    /**
+     * Constructor for the BarnesHutSolver class.
+     *
+     * @param theta opening angle; larger is faster and less accurate
+     */
+    public BarnesHutSolver(double theta) {
+        this.theta = theta;
+    }
+
+    public double getTheta() {
+        return this.theta;
+    }
+
+    @Override
+    public void prepare(BodyStore bodies) {
+        int n = bodies.size();
+        this.nodeCount = 0;
+
+        // the root is the bounding square of the planets
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            if (!bodies.isPlanet(i))
+                continue;
+            minX = Math.min(minX, bodies.x[i]);
+            minY = Math.min(minY, bodies.y[i]);
+            maxX = Math.max(maxX, bodies.x[i]);
+            maxY = Math.max(maxY, bodies.y[i]);
+        }
+        if (minX > maxX) {
+            this.newNode(0, 0, 1); // no planets, an empty root
+            return;
+        }
+        // a little margin so the bodies on the far edges fall inside
+        double size = Math.max(maxX - minX, maxY - minY);
+        size = size > 0 ? size * (1 + 1e-9) : 1;
+        this.newNode(minX, minY, size);
+
+        for (int i = 0; i < n; i++) {
+            if (bodies.isPlanet(i))
+                this.insert(bodies, i);
+        }
+
+        // mass weighted sums to centers of mass; a single body keeps its exact position
+        for (int k = 0; k < this.nodeCount; k++) {
+            if (this.body[k] >= 0) {
+                this.comX[k] = bodies.x[this.body[k]];
+                this.comY[k] = bodies.y[this.body[k]];
+            } else if (this.mass[k] > 0) {
+                this.comX[k] /= this.mass[k];
+                this.comY[k] /= this.mass[k];
+            }
+
+            // open while distance < size / theta + offset of the center of mass from the cell center
+            double half = this.cellSize[k] / 2;
+            double offset = Math.hypot(this.comX[k] - this.cellX[k] - half, this.comY[k] - this.cellY[k] - half);
+            double openDist = this.theta > 0 ? this.cellSize[k] / this.theta + offset : Double.POSITIVE_INFINITY;
+            this.openDistSq[k] = openDist * openDist;
+        }
+    }
+
+    // Walks down from the root to the leaf body i belongs in, splitting occupied leaves on the way
+    private void insert(BodyStore bodies, int i) {
+        double x = bodies.x[i];
+        double y = bodies.y[i];
+        double m = bodies.mass[i];
+
+        int node = 0;
+        for (int depth = 0;; depth++) {
+            if (this.firstChild[node] < 0) {
+                if (this.body[node] == EMPTY && this.mass[node] == 0) {
+                    this.body[node] = i;
+                    this.addMass(node, x, y, m);
+                    return;
+                }
+                if (depth >= MAX_DEPTH) {
+                    this.body[node] = LUMPED;
+                    this.addMass(node, x, y, m);
+                    return;
+                }
+                this.split(bodies, node);
+            }
+            this.addMass(node, x, y, m);
+            node = this.childAt(node, x, y);
+        }
+    }
+
+    // Turns an occupied leaf into an inner node and moves its body into the matching child
+    private void split(BodyStore bodies, int node) {
+        double half = this.cellSize[node] / 2;
+        double x0 = this.cellX[node];
+        double y0 = this.cellY[node];
+        int first = this.newNode(x0, y0, half);
+        this.newNode(x0 + half, y0, half);
+        this.newNode(x0, y0 + half, half);
+        this.newNode(x0 + half, y0 + half, half);
+        this.firstChild[node] = first;
+
+        int old = this.body[node];
+        this.body[node] = EMPTY;
+        int child = this.childAt(node, bodies.x[old], bodies.y[old]);
+        this.body[child] = old;
+        this.addMass(child, bodies.x[old], bodies.y[old], bodies.mass[old]);
+    }
+
+    private int childAt(int node, double x, double y) {
+        double half = this.cellSize[node] / 2;
+        int quadrant = (x >= this.cellX[node] + half ? 1 : 0) + (y >= this.cellY[node] + half ? 2 : 0);
+        return this.firstChild[node] + quadrant;
+    }
+
+    private void addMass(int node, double x, double y, double m) {
+        this.mass[node] += m;
+        this.comX[node] += x * m;
+        this.comY[node] += y * m;
+    }
+
+    private int newNode(double x, double y, double size) {
+        if (this.nodeCount == this.cellX.length)
+            this.grow(this.nodeCount * 2);
+
+        int k = this.nodeCount++;
+        this.cellX[k] = x;
+        this.cellY[k] = y;
+        this.cellSize[k] = size;
+        this.mass[k] = 0;
+        this.comX[k] = 0;
+        this.comY[k] = 0;
+        this.firstChild[k] = -1;
+        this.body[k] = EMPTY;
+        return k;
+    }
+
+    private void grow(int capacity) {
+        this.cellX = Arrays.copyOf(this.cellX, capacity);
+        this.cellY = Arrays.copyOf(this.cellY, capacity);
+        this.cellSize = Arrays.copyOf(this.cellSize, capacity);
+        this.mass = Arrays.copyOf(this.mass, capacity);
+        this.comX = Arrays.copyOf(this.comX, capacity);
+        this.comY = Arrays.copyOf(this.comY, capacity);
+        this.openDistSq = Arrays.copyOf(this.openDistSq, capacity);
+        this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+        this.body = Arrays.copyOf(this.body, capacity);
+    }
+
+    @Override
+    public void field(BodyStore bodies, double x, double y, int skip, double[] out) {
+        double sumX = 0;
+        double sumY = 0;
+
+        for (int k = 0; k < bodies.getNonPlanetCount(); k++) {
+            int j = bodies.getNonPlanet(k);
+            if (j == skip || bodies.isBlackHole(j))
+                continue;
+            double dx = bodies.x[j] - x;
+            double dy = bodies.y[j] - y;
+            double distSq = dx * dx + dy * dy;
+            if (distSq == 0)
+                continue;
+            double s = bodies.mass[j] / (distSq * Math.sqrt(distSq));
+            sumX += dx * s;
+            sumY += dy * s;
+        }
+
+        // depth first walk; a node pushes its four children, so the stack never holds more than 3 per level + 4
+        int top = 0;
+        this.stack[top++] = 0;
+        while (top > 0) {
+            int node = this.stack[--top];
+            double m = this.mass[node];
+            if (m == 0 || (skip >= 0 && this.body[node] == skip))
+                continue;
+
+            double dx = this.comX[node] - x;
+            double dy = this.comY[node] - y;
+            double distSq = dx * dx + dy * dy;
+
+            int first = this.firstChild[node];
+            if (first >= 0) {
+                double size = this.cellSize[node];
+                boolean inside = x >= this.cellX[node] && x < this.cellX[node] + size
+                        && y >= this.cellY[node] && y < this.cellY[node] + size;
+                if (inside || distSq < this.openDistSq[node]) {
+                    this.stack[top++] = first;
+                    this.stack[top++] = first + 1;
+                    this.stack[top++] = first + 2;
+                    this.stack[top++] = first + 3;
+                    continue;
+                }
+            }
+            if (distSq == 0)
+                continue; // overlapping bodies? no gravity
+
+            double s = m / (distSq * Math.sqrt(distSq));
+            sumX += dx * s;
+            sumY += dy * s;
+        }
+        out[0] = sumX;
+        out[1] = sumY;
+    }
+
+    // Number of tree nodes built by the last prepare()
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+}
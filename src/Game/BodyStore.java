@@ -0,0 +1,431 @@
+package Game;
+
+import Game.Constant.CELESTIAL_BODY_TYPE;
+import Game.Constant.Integrator;
+import Game.Constant.PHYSICS_CONSTANT;
+import java.util.Arrays;
+
+/**
+ * BodyStore class holds the dynamic state of all bodies of one solar system in packed
+ * primitive arrays (structure of arrays) instead of one object per body.
+ * Index i of every array belongs to the same body; a CelestialBody is only a view over
+ * its index. Positions and velocities are in AU scale, like the rest of the orbit physics.
+ * The integration kernel and the gravity solvers walk the arrays front to back, so the
+ * values they read for all other bodies sit next to each other in memory and a system
+ * with hundreds of bodies stays cache friendly.
+ * Planets whose orbit around the sun is barely disturbed by the rest of the system are put
+ * on rails (see KeplerRails): they follow their fitted Kepler ellipse in closed form and are
+ * skipped by the integrator. updateRails() moves planets on and off rails as the
+ * disturbance changes.
+ */
+public class BodyStore {
+    private static final int INITIAL_CAPACITY = 8;
+    private static final CELESTIAL_BODY_TYPE[] TYPES = CELESTIAL_BODY_TYPE.values();
+
+    private static final int PLANET = CELESTIAL_BODY_TYPE.PLANET.ordinal();
+    private static final int BLACK_HOLE = CELESTIAL_BODY_TYPE.BLACK_HOLE.ordinal();
+
+    // Yoshida's weights for chaining three second order steps into a fourth order one
+    private static final double YOSHIDA_W1 = 1 / (2 - Math.cbrt(2));
+    private static final double YOSHIDA_W0 = 1 - 2 * YOSHIDA_W1;
+
+    private int count = 0;
+
+    // position and velocity in AU scale
+    double[] x = new double[INITIAL_CAPACITY];
+    double[] y = new double[INITIAL_CAPACITY];
+    double[] vx = new double[INITIAL_CAPACITY];
+    double[] vy = new double[INITIAL_CAPACITY];
+
+    // position at the end of the previous tick, for interpolating between ticks
+    double[] prevX = new double[INITIAL_CAPACITY];
+    double[] prevY = new double[INITIAL_CAPACITY];
+
+    // acceleration at the current positions in AU scale per s^2, valid while accValid is set
+    double[] ax = new double[INITIAL_CAPACITY];
+    double[] ay = new double[INITIAL_CAPACITY];
+    private boolean accValid = false;
+
+    double[] mass = new double[INITIAL_CAPACITY];
+    // radius in pixels
+    double[] radius = new double[INITIAL_CAPACITY];
+    // CELESTIAL_BODY_TYPE ordinal
+    int[] type = new int[INITIAL_CAPACITY];
+    // index of the body this one orbits, -1 for none
+    int[] parent = new int[INITIAL_CAPACITY];
+
+    // orbital elements of the planets on rails
+    private final KeplerRails rails = new KeplerRails();
+    private int planetCount = 0;
+
+    // simulated seconds since the system was created
+    private double time = 0;
+
+    // indices of the bodies that are not planets (suns, moons, black holes), a few per system
+    private int[] nonPlanets = new int[4];
+    private int nonPlanetCount = 0;
+
+    // scratch for the field of one body during a step
+    private final double[] field = new double[2];
+
+    /**
+     * Appends a body at rest.
+     *
+     * @param x        The x-coordinate in AU scale.
+     * @param y        The y-coordinate in AU scale.
+     * @param radius   The radius in pixels.
+     * @param mass     The mass in kg.
+     * @param bodyType The type of the body.
+     * @param parent   The index of the body it orbits, or -1.
+     * @return the index of the new body
+     */
+    int add(double x, double y, double radius, double mass, CELESTIAL_BODY_TYPE bodyType, int parent) {
+        if (this.count == this.x.length)
+            this.grow(this.count * 2);
+
+        int i = this.count++;
+        this.x[i] = this.prevX[i] = x;
+        this.y[i] = this.prevY[i] = y;
+        this.vx[i] = this.vy[i] = 0;
+        this.ax[i] = this.ay[i] = 0;
+        this.accValid = false;
+        this.mass[i] = mass;
+        this.radius[i] = radius;
+        this.type[i] = bodyType.ordinal();
+        this.parent[i] = parent;
+        this.rails.ensureCapacity(this.x.length);
+
+        if (bodyType == CELESTIAL_BODY_TYPE.PLANET) {
+            this.planetCount++;
+        } else {
+            if (this.nonPlanetCount == this.nonPlanets.length)
+                this.nonPlanets = Arrays.copyOf(this.nonPlanets, this.nonPlanetCount * 2);
+            this.nonPlanets[this.nonPlanetCount++] = i;
+        }
+        return i;
+    }
+
+    /**
+     * Makes this store a copy of the bodies of another one: their state, masses, radii,
+     * types and parents, and the simulated time. Nothing is put on rails, and the store
+     * only grows when the other one holds more bodies than it ever did, so a copy taken
+     * every tick does not allocate.
+     *
+     * @param source the store to copy
+     */
+    void copyFrom(BodyStore source) {
+        this.releaseRails();
+        int n = source.count;
+        if (n > this.x.length)
+            this.grow(Math.max(n, this.x.length * 2));
+        System.arraycopy(source.x, 0, this.x, 0, n);
+        System.arraycopy(source.y, 0, this.y, 0, n);
+        System.arraycopy(source.vx, 0, this.vx, 0, n);
+        System.arraycopy(source.vy, 0, this.vy, 0, n);
+        System.arraycopy(source.prevX, 0, this.prevX, 0, n);
+        System.arraycopy(source.prevY, 0, this.prevY, 0, n);
+        System.arraycopy(source.mass, 0, this.mass, 0, n);
+        System.arraycopy(source.radius, 0, this.radius, 0, n);
+        System.arraycopy(source.type, 0, this.type, 0, n);
+        System.arraycopy(source.parent, 0, this.parent, 0, n);
+        if (source.nonPlanetCount > this.nonPlanets.length)
+            this.nonPlanets = Arrays.copyOf(this.nonPlanets, source.nonPlanets.length);
+        System.arraycopy(source.nonPlanets, 0, this.nonPlanets, 0, source.nonPlanetCount);
+        this.nonPlanetCount = source.nonPlanetCount;
+        this.planetCount = source.planetCount;
+        this.count = n;
+        this.time = source.time;
+        this.accValid = false;
+        this.rails.ensureCapacity(this.x.length);
+    }
+
+    private void grow(int capacity) {
+        this.x = Arrays.copyOf(this.x, capacity);
+        this.y = Arrays.copyOf(this.y, capacity);
+        this.vx = Arrays.copyOf(this.vx, capacity);
+        this.vy = Arrays.copyOf(this.vy, capacity);
+        this.prevX = Arrays.copyOf(this.prevX, capacity);
+        this.prevY = Arrays.copyOf(this.prevY, capacity);
+        this.ax = Arrays.copyOf(this.ax, capacity);
+        this.ay = Arrays.copyOf(this.ay, capacity);
+        this.mass = Arrays.copyOf(this.mass, capacity);
+        this.radius = Arrays.copyOf(this.radius, capacity);
+        this.type = Arrays.copyOf(this.type, capacity);
+        this.parent = Arrays.copyOf(this.parent, capacity);
+    }
+
+    /**
+     * Advances every planet by one tick. Suns and black holes stay where they are.
+     * The tick is split into substeps so that no substep is longer than accuracy times
+     * the shortest |v| / |a| of any planet; for a circular orbit that is the orbital period
+     * over 2 pi, so a planet on a tight orbit or passing close to another body gets more,
+     * shorter steps and a wide orbit gets one long one.
+     * Every force evaluation uses the positions of all planets at that moment, so the result
+     * does not depend on the order of the bodies. Planets on rails are moved along their
+     * orbits instead, to wherever the substeps need them. When the step returns the solver
+     * has been prepared for the new positions.
+     *
+     * @param timestep    simulated seconds the tick covers
+     * @param solver      the gravity solver, prepared for the current positions
+     * @param integrator  the integration scheme
+     * @param accuracy    fraction of |v| / |a| a substep may cover, 0 for a single step
+     * @param maxSubsteps upper limit on the substeps of one tick
+     * @return the number of substeps taken
+     */
+    int step(double timestep, GravitySolver solver, Integrator integrator, double accuracy, int maxSubsteps) {
+        for (int i = 0; i < this.count; i++) {
+            this.prevX[i] = this.x[i];
+            this.prevY[i] = this.y[i];
+        }
+
+        double start = this.time;
+        if (this.planetCount == this.rails.getRailsCount()) {
+            // nothing to integrate
+            this.time = start + timestep;
+            this.propagateRails();
+            solver.prepare(this);
+            return 1;
+        }
+
+        if (!this.accValid)
+            this.computeAccelerations(solver);
+        int substeps = this.substeps(timestep, accuracy, maxSubsteps);
+        double h = timestep / substeps;
+
+        for (int s = 0; s < substeps; s++) {
+            if (!this.accValid)
+                this.computeAccelerations(solver);
+
+            switch (integrator) {
+                case EULER -> {
+                    // semi-implicit Euler: kick with the old acceleration, then drift with the new velocity
+                    this.kick(h);
+                    this.drift(h);
+                    solver.prepare(this);
+                    this.accValid = false;
+                }
+                case LEAPFROG -> this.leapfrog(h, solver);
+                case YOSHIDA4 -> {
+                    this.leapfrog(YOSHIDA_W1 * h, solver);
+                    this.leapfrog(YOSHIDA_W0 * h, solver);
+                    this.leapfrog(YOSHIDA_W1 * h, solver);
+                }
+            }
+        }
+
+        // land the planets on rails exactly on the end of the tick, without the rounding of the substeps
+        if (this.time != start + timestep) {
+            this.time = start + timestep;
+            this.propagateRails();
+        }
+        return substeps;
+    }
+
+    /**
+     * One kick-drift-kick leapfrog (velocity Verlet) step. It starts and ends with the
+     * accelerations of the current positions, so consecutive steps share a force evaluation.
+     */
+    private void leapfrog(double h, GravitySolver solver) {
+        this.kick(h / 2);
+        this.drift(h);
+        solver.prepare(this);
+        this.computeAccelerations(solver);
+        this.kick(h / 2);
+    }
+
+    private void kick(double h) {
+        for (int i = 0; i < this.count; i++) {
+            if (!this.isIntegrated(i))
+                continue;
+            this.vx[i] += this.ax[i] * h;
+            this.vy[i] += this.ay[i] * h;
+        }
+    }
+
+    private void drift(double h) {
+        for (int i = 0; i < this.count; i++) {
+            if (!this.isIntegrated(i))
+                continue;
+            this.x[i] += this.vx[i] * h;
+            this.y[i] += this.vy[i] * h;
+        }
+        this.time += h;
+        this.propagateRails();
+    }
+
+    // Moves every planet on rails to the current time
+    private void propagateRails() {
+        if (this.rails.getRailsCount() == 0)
+            return;
+        for (int i = 0; i < this.count; i++) {
+            if (this.rails.isOnRails(i))
+                this.rails.propagate(this, i, this.parent[i], this.time);
+        }
+    }
+
+    // Planets that are not on rails are moved by the integrator
+    private boolean isIntegrated(int i) {
+        return this.type[i] == PLANET && !this.rails.isOnRails(i);
+    }
+
+    // Acceleration of every planet from the field at its position, G * field
+    private void computeAccelerations(GravitySolver solver) {
+        double[] field = this.field;
+        for (int i = 0; i < this.count; i++) {
+            if (!this.isIntegrated(i))
+                continue;
+            solver.field(this, this.x[i], this.y[i], i, field);
+            this.ax[i] = field[0] * PHYSICS_CONSTANT.G;
+            this.ay[i] = field[1] * PHYSICS_CONSTANT.G;
+        }
+        this.accValid = true;
+    }
+
+    // Substeps needed so every planet moves at most accuracy * |v| / |a| of time per substep
+    private int substeps(double timestep, double accuracy, int maxSubsteps) {
+        if (accuracy <= 0)
+            return 1;
+
+        // fastest turning rate |a| / |v| of any planet, kept squared to save square roots
+        double maxRateSq = 0;
+        for (int i = 0; i < this.count; i++) {
+            if (!this.isIntegrated(i))
+                continue;
+            double vSq = this.vx[i] * this.vx[i] + this.vy[i] * this.vy[i];
+            double aSq = this.ax[i] * this.ax[i] + this.ay[i] * this.ay[i];
+            if (vSq > 0)
+                maxRateSq = Math.max(maxRateSq, aSq / vSq);
+        }
+        // a substep of h covers h * |a| / |v| of the planet's turning; keep that under accuracy
+        double needed = timestep * Math.sqrt(maxRateSq) / accuracy;
+        return (int) Math.max(1, Math.min(maxSubsteps, Math.ceil(needed)));
+    }
+
+    /**
+     * Puts planets on rails or takes them off, by how much the rest of the system disturbs
+     * them: the ratio of the pull of everything else to the pull of the parent.
+     * A planet goes on rails below half the threshold and comes off above it, so a planet
+     * near the threshold does not switch back and forth. Only planets orbiting a body that
+     * does not move (a sun) can go on rails; the orbit is refitted from the current state
+     * every time, so a planet that was knocked onto a new orbit rides on the new one.
+     *
+     * @param solver    the gravity solver, prepared for the current positions
+     * @param threshold largest disturbance ratio a planet on rails may have
+     */
+    void updateRails(GravitySolver solver, double threshold) {
+        double[] field = this.field;
+        for (int i = 0; i < this.count; i++) {
+            int p = this.parent[i];
+            if (this.type[i] != PLANET || p < 0 || this.type[p] == PLANET)
+                continue;
+
+            // the parent's own pull
+            double dx = this.x[p] - this.x[i];
+            double dy = this.y[p] - this.y[i];
+            double distSq = dx * dx + dy * dy;
+            if (distSq == 0)
+                continue;
+            double s = this.mass[p] / (distSq * Math.sqrt(distSq));
+            double parentX = dx * s;
+            double parentY = dy * s;
+
+            solver.field(this, this.x[i], this.y[i], i, field);
+            double otherX = field[0] - parentX;
+            double otherY = field[1] - parentY;
+            double ratioSq = (otherX * otherX + otherY * otherY) / (parentX * parentX + parentY * parentY);
+
+            if (this.rails.isOnRails(i)) {
+                if (ratioSq > threshold * threshold) {
+                    this.rails.release(i);
+                    this.accValid = false;
+                }
+            } else if (ratioSq < threshold * threshold / 4) {
+                this.rails.fit(this, i, p, this.time);
+            }
+        }
+    }
+
+    // Takes every planet off rails
+    void releaseRails() {
+        if (this.rails.getRailsCount() == 0)
+            return;
+        for (int i = 0; i < this.count; i++)
+            this.rails.release(i);
+        this.accValid = false;
+    }
+
+    /**
+     * Computes where a planet on rails is at any simulated time, past or future, without
+     * moving it.
+     *
+     * @param i   index of the planet
+     * @param t   simulated time, see getTime()
+     * @param out receives {x, y, vx, vy} in AU scale
+     * @return false when the planet is not on rails
+     */
+    public boolean orbitStateAt(int i, double t, double[] out) {
+        if (!this.rails.isOnRails(i))
+            return false;
+        this.rails.stateAt(this, i, this.parent[i], t, out);
+        return true;
+    }
+
+    // Simulated seconds since the system was created
+    public double getTime() {
+        return this.time;
+    }
+
+    public KeplerRails getRails() {
+        return this.rails;
+    }
+
+    public int size() {
+        return this.count;
+    }
+
+    public CELESTIAL_BODY_TYPE getType(int i) {
+        return TYPES[this.type[i]];
+    }
+
+    boolean isPlanet(int i) {
+        return this.type[i] == PLANET;
+    }
+
+    // Black holes pull on the ship only, not on the other bodies
+    boolean isBlackHole(int i) {
+        return this.type[i] == BLACK_HOLE;
+    }
+
+    public int getNonPlanetCount() {
+        return this.nonPlanetCount;
+    }
+
+    // Index of the k-th body that is not a planet
+    public int getNonPlanet(int k) {
+        return this.nonPlanets[k];
+    }
+
+    // x-coordinate of body i in AU scale
+    public double getX(int i) {
+        return this.x[i];
+    }
+
+    // y-coordinate of body i in AU scale
+    public double getY(int i) {
+        return this.y[i];
+    }
+
+    public double getMass(int i) {
+        return this.mass[i];
+    }
+
+    // x-velocity of body i in AU scale per s
+    public double getVx(int i) {
+        return this.vx[i];
+    }
+
+    // y-velocity of body i in AU scale per s
+    public double getVy(int i) {
+        return this.vy[i];
+    }
+}
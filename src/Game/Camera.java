@@ -18,6 +18,10 @@ import Game.utils.*;
 public class Camera {
     final private Vector2D pos = new Vector2D();
     private Vector2D currScale = new Vector2D(1, 1);
+
+    // position and zoom of the previous tick, for interpolating between ticks
+    final private Vector2D prevPos = new Vector2D();
+    private double prevScale = 1;
     private final Vector2D currentOffset = new Vector2D(0, 0);
 
     // Look-ahead settings
@@ -35,10 +39,16 @@ public class Camera {
     public Camera(double x, double y) {
         this.pos.x = x;
         this.pos.y = y;
+        this.prevPos.x = x;
+        this.prevPos.y = y;
     }
 
-    public void update(Entity player, double dt) {
-        zoomUpdate(dt);
+    public void update(Entity player, InputState input, double dt) {
+        this.prevPos.x = this.pos.x;
+        this.prevPos.y = this.pos.y;
+        this.prevScale = this.currScale.x;
+
+        zoomUpdate(input, dt);
         follow(player, dt);
 
     }
@@ -46,22 +56,20 @@ public class Camera {
     /*
      * update the current zoom status of the game
      */
-    private void zoomUpdate(double dt) {
+    private void zoomUpdate(InputState input, double dt) {
 
-        if (Input.isResetZoomPressed()) {
+        if (input.resetZoom) {
             currScale.x = GAME_CONSTANT.defaultScale;
             currScale.y = GAME_CONSTANT.defaultScale;
         }
 
         // If the mouse scrolled down
-        if (Input.getScrollRotation() > 0) {
+        if (input.scroll > 0) {
             currScale.subtract(GAME_CONSTANT.scaleScrollRateOfChange);
-            Input.resetScrollRotation();
         }
         // if the mouse scrolled up
-        else if (Input.getScrollRotation() < 0) {
+        else if (input.scroll < 0) {
             currScale.add(GAME_CONSTANT.scaleScrollRateOfChange);
-            Input.resetScrollRotation();
         }
 
         // Clamp the currScale within the max and min scale
@@ -75,8 +83,6 @@ public class Camera {
 
         }
 
-        System.out.println(currScale + "Scale:" + GAME_CONSTANT.scaleRange.getMin());
-
         // Clamp when it is min scale
     }
 
@@ -93,26 +99,28 @@ public class Camera {
         double targetY = player.pos.y;
 
         // Compute forward direction
-        Vector2D forward = new Vector2D(Math.cos(player.angle), Math.sin(player.angle));
+        double forwardX = Math.cos(player.angle);
+        double forwardY = Math.sin(player.angle);
 
         // Project velocity onto forward vector: dot product
         Vector2D velocity = player.getVel();
-        double forwardSpeed = Vector2D.dot(velocity, forward);
+        double forwardSpeed = velocity.x * forwardX + velocity.y * forwardY;
 
         // Desired offset in pixels
-        Vector2D targetOffset = forward.multiply(forwardSpeed * DISTANCE_MULTIPLIER);
+        double offsetX = forwardX * (forwardSpeed * DISTANCE_MULTIPLIER);
+        double offsetY = forwardY * (forwardSpeed * DISTANCE_MULTIPLIER);
 
         // Clamp magnitude
-        double dist = targetOffset.length();
+        double dist = Math.sqrt(offsetX * offsetX + offsetY * offsetY);
         if (dist > MAX_OFFSET) {
-            targetOffset = Vector2D.normalize(targetOffset);
-            targetOffset.multiply(MAX_OFFSET);
+            offsetX = offsetX / dist * MAX_OFFSET;
+            offsetY = offsetY / dist * MAX_OFFSET;
         }
 
         // Smooth interpolation (Lerp)
         double t = 1 - Math.exp(-RESPONSIVENESS * dt);
-        this.currentOffset.x += (targetOffset.x - this.currentOffset.x) * t;
-        this.currentOffset.y += (targetOffset.y - this.currentOffset.y) * t;
+        this.currentOffset.x += (offsetX - this.currentOffset.x) * t;
+        this.currentOffset.y += (offsetY - this.currentOffset.y) * t;
 
         // Final camera position
         this.pos.x = targetX + this.currentOffset.x;
@@ -146,6 +154,16 @@ public class Camera {
         return this.currScale;
     }
 
+    // Copy the camera position, relative to the snapshot's origin, and zoom into a snapshot
+    void writeTo(WorldSnapshot snapshot) {
+        snapshot.cameraX = this.pos.x - snapshot.originX;
+        snapshot.cameraY = this.pos.y - snapshot.originY;
+        snapshot.cameraScale = this.currScale.x;
+        snapshot.cameraPrevX = this.prevPos.x - snapshot.originX;
+        snapshot.cameraPrevY = this.prevPos.y - snapshot.originY;
+        snapshot.cameraPrevScale = this.prevScale;
+    }
+
     /**
      * Setter method for camera's y position.
      * 
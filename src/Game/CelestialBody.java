@@ -3,34 +3,29 @@ package Game;
 import Game.Constant.CELESTIAL_BODY_TYPE;
 import Game.Constant.PHYSICS_CONSTANT;
 import Game.utils.Vector2D;
-import java.awt.BasicStroke;
 import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.RenderingHints;
-import java.awt.Stroke;
 import java.util.ArrayList;
 
 /**
  * CelestialBody class represents a celestial body in the solar system
  * It can be a planet,sun,black hole, or a moon depending on its CelestialBodyType
- * It has a position, velocity, radius, mass, and color
- * It can update its position based on gravitational forces from other celestial bodies
- * It can render itself on the screen as a circle
+ * Its position, velocity, radius, mass and type live in the BodyStore of its solar system;
+ * the object itself is a view over its index there that adds the color and the orbit
+ * It can copy its position, size, color and orbit into a WorldSnapshot for rendering
  * It can calculate its optimal orbital velocity around a central body
  * It can draw its orbit based on its travelled path
+ * It keeps the ellipse of its orbit, fitted once and again only when the orbit changed
  */
-public class CelestialBody extends Entity {
-    // radius of the celestial body in pixels
-    public double radius = 0;
+public class CelestialBody {
+    // the arrays holding the state of this body, and its index in them
+    private final BodyStore store;
+    private final int index;
 
     // color of the celestial body
     private final Color color;
 
     private final int glowSize;
 
-    // Is the celetrial body a sun
-    public CELESTIAL_BODY_TYPE bodyType;
-
     // The parent celestial body, e.g., the sun for planets
     public CelestialBody parent;
 
@@ -40,15 +35,21 @@ public class CelestialBody extends Entity {
     // This is used to draw the orbit of the celestial body
     public ArrayList<Vector2D> orbits = new ArrayList<>();
 
-    // store initial orbital parameters for ellipse
-    private final double initRau;
-    private final double initVxau;
-    private final double initVyau;
+    // the ellipse of the orbit around the parent in pixels: semi-axes, distance from the focus
+    // (the parent) to the center, and the angle of the periapsis; 0 semi-axes for none
+    private double orbitSemiMajor;
+    private double orbitSemiMinor;
+    private double orbitFocusOffset;
+    private double orbitAngle;
+    // KeplerRails fit the ellipse was taken from, 0 for the initial state
+    private int orbitFit = 0;
 
     /**
      * Constructor for the CelestialBody class.
-     * Initializes a celestial body with a position, radius, mass, type, color,
-     * parent body.
+     * Adds a celestial body with a position, radius, mass, type, color and
+     * parent body to a body store.
+     *
+     * @param store The body store of the solar system the body belongs to.
      *
      * @param x The x-coordinate of the celestial body's position in AU scale.
      * 
@@ -64,113 +65,105 @@ public class CelestialBody extends Entity {
      * 
      * @param parent The parent celestial body (e.g., the sun for planets).
      */
-    public CelestialBody(double x, double y, double radius, double mass, CELESTIAL_BODY_TYPE bodyType, Color color,
-                         CelestialBody parent) {
-        super(x, y, mass);
-        this.radius = radius;
-        this.bodyType = bodyType;
+    CelestialBody(BodyStore store, double x, double y, double radius, double mass, CELESTIAL_BODY_TYPE bodyType,
+                  Color color, CelestialBody parent) {
+        this.store = store;
+        this.index = store.add(x, y, radius, mass, bodyType, parent == null ? -1 : parent.getIndex());
 
         //Useless right now
         this.glowSize = (int) (radius * 0.2);
         this.color = color;
-        this.mass = mass;
         if (bodyType == CELESTIAL_BODY_TYPE.PLANET) {
-            this.vel.y = this.optimalOrbitalVelocity(parent).length();
+            store.vy[this.index] = this.optimalOrbitalVelocity(parent).length();
         }
 
         this.parent = parent;
 
-        // record initial orbital state in AU units
-        if (parent != null) {
-            Vector2D deltaAU = Vector2D.subtract(this.pos, parent.pos);
-            this.initRau = deltaAU.length();
-            this.initVxau = this.vel.x;
-            this.initVyau = this.vel.y;
-        } else {
-            this.initRau = 0;
-            this.initVxau = 0;
-            this.initVyau = 0;
-        }
+        // the orbit it starts on, kept until it is knocked onto another one
+        if (parent != null)
+            this.fitOrbit(x - parent.getX(), y - parent.getY(), store.vx[this.index], store.vy[this.index],
+                    PHYSICS_CONSTANT.G * parent.getMass());
     }
 
     /**
-     * Update the position and velocity of the celestial body based on
-     * gravitational forces from other celestial bodies.
-     * updates its velocity based on that force, and then updates its position
-     * accordingly.
-     * It also updates the orbit path of the celestial body.
+     * Sets the orbit ellipse from a state relative to the parent, through the specific energy
+     * (semi-major axis) and the eccentricity vector (eccentricity and periapsis).
+     *
+     * @param rx x-offset from the parent in AU scale
+     * @param ry y-offset from the parent in AU scale
+     * @param vx x-velocity relative to the parent in AU scale per s
+     * @param vy y-velocity relative to the parent in AU scale per s
+     * @param mu G times the mass of the parent
      */
-    public void update(ArrayList<CelestialBody> other) {
-
-        if(this.bodyType ==CELESTIAL_BODY_TYPE.PLANET){
-            this.updateNetGravitationalForce(other);
-        // Acceleration is in AU scale
-            this.acc.x = this.force.x / this.mass * PHYSICS_CONSTANT.TIMESTEP;
-            this.acc.y = this.force.y / this.mass * PHYSICS_CONSTANT.TIMESTEP;
-        // aply acceleration to velocity
-            this.vel.x += this.acc.x;
-            this.vel.y += this.acc.y;
-        // apply velocity to position
-            this.pos.x += this.vel.x * PHYSICS_CONSTANT.TIMESTEP;
-            this.pos.y += this.vel.y * PHYSICS_CONSTANT.TIMESTEP;
+    private void fitOrbit(double rx, double ry, double vx, double vy, double mu) {
+        double r = Math.sqrt(rx * rx + ry * ry);
+        double vSq = vx * vx + vy * vy;
+        // Specific orbital energy: ε = v²/2 - μ/r, semi-major axis a = -μ / (2ε)
+        double energy = 0.5 * vSq - mu / r;
+        if (r == 0 || energy >= 0) {
+            this.setOrbit(0, 0, 0); // not bound, no ellipse
+            return;
         }
+        double rv = rx * vx + ry * vy;
+        double ex = ((vSq - mu / r) * rx - rv * vx) / mu;
+        double ey = ((vSq - mu / r) * ry - rv * vy) / mu;
+        this.setOrbit(-mu / (2 * energy), Math.min(Math.sqrt(ex * ex + ey * ey), 1), Math.atan2(ey, ex));
+    }
 
+    // Sets the orbit ellipse from its semi-major axis in AU scale, eccentricity and periapsis angle
+    private void setOrbit(double semiMajor, double eccentricity, double periapsis) {
+        double scale = PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE;
+        this.orbitSemiMajor = semiMajor * scale;
+        // Semi-minor axis: b = a * sqrt(1 - e²); the center lies a * e from the focus, away from the periapsis
+        this.orbitSemiMinor = semiMajor * Math.sqrt(1 - eccentricity * eccentricity) * scale;
+        this.orbitFocusOffset = semiMajor * eccentricity * scale;
+        this.orbitAngle = periapsis;
     }
 
     /**
-     * Calculate the gravitational attraction force (N) between this body and
-     * another body.
-     * Uses Newton's law of universal gravitation: F = G * (m1 * m2) / r^2
-     *
-     * @param planets list of planets to calculate force
+     * Takes the orbit ellipse over from KeplerRails when it fitted the body a new orbit since
+     * the last call, which only happens when the body goes on rails after being disturbed.
+     * Otherwise the ellipse stays as it is, so drawing it costs nothing to compute.
      */
-    public void updateNetGravitationalForce(ArrayList<CelestialBody> planets) {
-        // clear last frame’s total
-        this.force.x = 0;
-        this.force.y = 0;
-        for (CelestialBody planet : planets) {
-            if (planet == this)
-                continue;
-            if(planet.bodyType == CELESTIAL_BODY_TYPE.BLACK_HOLE)
-                continue;
-            Vector2D f = this.attraction(planet, this.pos);
-            this.force.x += f.x;
-            this.force.y += f.y;
-        }
+    private void refreshOrbit() {
+        KeplerRails rails = this.store.getRails();
+        int fit = rails.getFitCount(this.index);
+        if (fit == this.orbitFit)
+            return;
+        this.orbitFit = fit;
+        this.setOrbit(rails.getSemiMajorAxis(this.index), rails.getEccentricity(this.index),
+                rails.getPeriapsisAngle(this.index));
     }
 
     /**
-     * Render the celestial body on the screen.
-     * It draws the orbit if there are more than 3 points in the orbit path.
-     * It draws the celestial body as a filled circle at its position.
-     * it sets the color for the celestial body
-     * the x and y coordinates are used as the center of the circle instead of the
-     * top-left corner
-     * 
-     * @param g2 The Graphics2D object used for rendering.
+     * Copy the render state of this body into slot i of a snapshot.
+     * Positions are converted to pixels relative to the snapshot's origin; planets also record
+     * their orbital ellipse.
+     *
+     * @param snapshot The snapshot being filled on the simulation thread.
+     * @param i        The index of this body in the snapshot's body arrays.
      */
-    @Override
-    public void render(Graphics2D g2) {
-
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // draw precomputed orbital ellipse if this has a parent
-        if (this.bodyType == CELESTIAL_BODY_TYPE.PLANET) {
-            Vector2D sunPx = this.parent.getPos();
-            OrbitUtils.drawOrbitEllipse(g2,
-                    sunPx.x, sunPx.y,
-                    this.initRau, this.initVxau, this.initVyau,
-                    this.parent.mass);
+    void writeTo(WorldSnapshot snapshot, int i) {
+        BodyStore b = this.store;
+        int k = this.index;
+        double scale = PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE;
+        snapshot.bodyX[i] = (float) (b.x[k] * scale - snapshot.originX);
+        snapshot.bodyY[i] = (float) (b.y[k] * scale - snapshot.originY);
+        snapshot.bodyPrevX[i] = (float) (b.prevX[k] * scale - snapshot.originX);
+        snapshot.bodyPrevY[i] = (float) (b.prevY[k] * scale - snapshot.originY);
+        snapshot.bodyRadius[i] = b.radius[k];
+        snapshot.bodyColor[i] = this.color;
+        snapshot.bodyType[i] = b.getType(k);
+
+        if (this.parent != null) {
+            this.refreshOrbit();
+            snapshot.orbitFocusX[i] = (float) (this.parent.getX() * scale - snapshot.originX);
+            snapshot.orbitFocusY[i] = (float) (this.parent.getY() * scale - snapshot.originY);
+            snapshot.orbitSemiMajor[i] = this.orbitSemiMajor;
+            snapshot.orbitSemiMinor[i] = this.orbitSemiMinor;
+            snapshot.orbitFocusOffset[i] = this.orbitFocusOffset;
+            snapshot.orbitAngle[i] = this.orbitAngle;
         }
-
-        // set the color for of the planet
-        g2.setColor(this.color);
-
-        int centerX = (int) (this.pos.x * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE - this.radius / 2);
-        int centerY = (int) (this.pos.y * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE - this.radius / 2);
-
-        g2.fillOval(centerX, centerY, (int) this.radius, (int) this.radius);
-
     }
 
     /**
@@ -179,7 +172,7 @@ public class CelestialBody extends Entity {
      */
     public Vector2D optimalOrbitalVelocity(CelestialBody centralBody) {
         // 1) compute the vector from centralBody to this body
-        Vector2D delta = Vector2D.subtract(this.pos, centralBody.pos);
+        Vector2D delta = new Vector2D(this.getX() - centralBody.getX(), this.getY() - centralBody.getY());
 
         // 2) radial distance
         double r = delta.length();
@@ -189,7 +182,7 @@ public class CelestialBody extends Entity {
         }
 
         // 3) speed magnitude for a circular orbit: v = sqrt(G * M / r)
-        double speed = Math.sqrt(PHYSICS_CONSTANT.G * centralBody.mass / r);
+        double speed = Math.sqrt(PHYSICS_CONSTANT.G * centralBody.getMass() / r);
 
         // 4) build a unit‐tangent vector perpendicular to delta
         // (rotate delta by +90°: (x,y) → (-y, x), then normalize)
@@ -210,111 +203,63 @@ public class CelestialBody extends Entity {
      */
     @Override
     public String toString() {
-        return "Pos: " + this.getPos() + " Radius:" + this.radius + " Mass:" + this.mass + " Vel: " + this.getVel();
+        return "Pos: " + this.getPos() + " Radius:" + this.getRadius() + " Mass:" + this.getMass() + " Vel: " + this.getVel();
     }
 
     /**
      * Get position of the celestial body in pixel units
      */
-    @Override
     public Vector2D getPos() {
-        return Vector2D.multiply(this.pos, PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE);
+        return new Vector2D(this.store.x[this.index] * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE,
+                this.store.y[this.index] * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE);
+    }
+
+    // Position in pixel units into out, without allocating
+    public Vector2D getPos(Vector2D out) {
+        return out.set(this.store.x[this.index] * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE,
+                this.store.y[this.index] * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE);
     }
 
     /**
      * get velocity of the celestial body in pixel/s.
      */
-    @Override
     public Vector2D getVel() {
-        return Vector2D.multiply(this.vel, PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE);
+        return new Vector2D(this.store.vx[this.index] * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE,
+                this.store.vy[this.index] * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE);
     }
 
-    /**
-     * get acceleration of the celestial body in pixel/s**2.
-     */
-    public Vector2D getAcc() {
-        return Vector2D.multiply(this.acc, PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE);
+    // Velocity in pixel/s into out, without allocating
+    public Vector2D getVel(Vector2D out) {
+        return out.set(this.store.vx[this.index] * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE,
+                this.store.vy[this.index] * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE);
     }
 
-    /**
-     * get force of the celestial body in Newton
-     */
-    @Override
-    public Vector2D getForce() {
-        return Vector2D.multiply(this.force, PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE);
+    // x-coordinate in AU scale
+    public double getX() {
+        return this.store.x[this.index];
     }
 
-    /**
-     * Utility class for rendering orbital ellipses.
-     */
-    private static class OrbitUtils {
-
-        /**
-         * Draws the orbital ellipse based on initial conditions.
-         * Assumes the central body (focus) is at (sunPxX, sunPxY) in pixel coordinates,
-         * and the orbit starts at perihelion on the positive x-axis relative to the
-         * sun.
-         *
-         * @param g2       Graphics2D context to draw into
-         * @param sunPxX   X-coordinate of the central body (pixels)
-         * @param sunPxY   Y-coordinate of the central body (pixels)
-         * @param initRau  Initial distance from sun in astronomical units (AU)
-         * @param initVxau Initial velocity X-component (per AU unit in AU/s)
-         * @param initVyau Initial velocity Y-component (in AU/s)
-         * @param sunMass  Mass of the central body (kg)
-         */
-        public static void drawOrbitEllipse(Graphics2D g2,
-                double sunPxX, double sunPxY,
-                double initRau,
-                double initVxau, double initVyau,
-                double sunMass) {
-
-            // Standard gravitational parameter μ = G * M
-            double mu = PHYSICS_CONSTANT.G * sunMass;
-            double v2 = initVxau * initVxau + initVyau * initVyau;
-
-            // Specific orbital energy: ε = v²/2 - μ/r
-            double energy = 0.5 * v2 - mu / initRau;
-
-            // Semi-major axis: a = -μ / (2ε)
-            double a = -mu / (2 * energy);
-
-            // Specific angular momentum magnitude: h = |r × v|
-            // If initial position is (r,0), cross product reduces to r * vy
-            double h = Math.abs(initRau * initVyau);
-
-            // Eccentricity: e = sqrt(1 - h²/(a μ))
-            double e = Math.sqrt(1 - (h * h) / (a * mu));
-
-            // Semi-minor axis: b = a * sqrt(1 - e²)
-            double b = a * Math.sqrt(1 - e * e);
-
-            // Focus offset from center: c = a * e
-            double cAu = a * e;
-
-            // Convert to pixels
-            double scale = PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE;
-            int pixA = (int) Math.round(a * scale);
-            int pixB = (int) Math.round(b * scale);
-            int pixOff = (int) Math.round(cAu * scale);
-
-            // Compute ellipse center in pixel space
-            double cx = sunPxX + pixOff;
-            double cy = sunPxY;
-
-            // Bounding rectangle for ellipse
-            int rx = (int) Math.round(cx - pixA);
-            int ry = (int) Math.round(cy - pixB);
-            int w = pixA * 2;
-            int hpx = pixB * 2;
-            Stroke old = g2.getStroke();
-            g2.setStroke(new BasicStroke(5));
-            g2.setColor(Color.WHITE);
-
-            // Draw ellipse
-            g2.drawOval(rx, ry, w, hpx);
-            g2.setStroke(old);
-        }
+    // y-coordinate in AU scale
+    public double getY() {
+        return this.store.y[this.index];
+    }
+
+    public double getMass() {
+        return this.store.mass[this.index];
+    }
+
+    // radius in pixels
+    public double getRadius() {
+        return this.store.radius[this.index];
+    }
+
+    public CELESTIAL_BODY_TYPE getType() {
+        return this.store.getType(this.index);
+    }
+
+    // Index of this body in the body store of its solar system
+    public int getIndex() {
+        return this.index;
     }
 
-}
\ No newline at end of file
+}
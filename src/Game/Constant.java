@@ -3,6 +3,7 @@ package Game;
 import Game.utils.Range;
 import Game.utils.Vector2D;
 import java.awt.Color;
+import java.util.Random;
 
 /*
  * Constant class contains all the constants used in the game   
@@ -62,20 +63,79 @@ public class Constant {
         public static int WINDOW_WIDTH = 1080;
         public static int WINDOW_HEIGHT = 1080;
 
-        // Game window size
-        public static int GAME_WIDTH = 100000;
-        public static int GAME_HEIGHT = 100000;
-
         //SOLAR SYSTEM GRID
-        public static int SOLAR_SYSTEM_SIZE = 26500; // px
-
-        public static int  GAME_WIDTH_GRID = (int)GAME_WIDTH/SOLAR_SYSTEM_SIZE; // number
-        public static int  GAME_HEIGHT_GRID = (int)GAME_HEIGHT/SOLAR_SYSTEM_SIZE; // number
-
-        // Frame rate
-        public static final int FPS_SET = 60;
+        public static int SOLAR_SYSTEM_SIZE = 26500; // px, the side of a Sector
+        // Most solar systems held at once (see SolarSystemCache); at least the (2 * LOD_REDUCED_RADIUS + 1)^2 simulated
+        public static int SOLAR_SYSTEM_CACHE = 16;
+        // Package targets are picked from the solar systems up to this many sectors from the ship
+        public static int PACKAGE_RADIUS = 1;
+
+        // Simulation tick rate, independent of the frame rate (frames are interpolated between ticks)
+        public static int FPS_SET = 60;
+        // Tick rate the per-tick physics (planet TIMESTEP, trail particles) was tuned for
+        public static final int BASE_TICK_RATE = 60;
+
+        // Frame scheduler
+        public static int FPS_CAP = 60; // max frames per second, 0 = uncapped
+        public static final int MAX_CATCH_UP_TICKS = 5; // ticks per frame before the backlog is dropped
+        public static final long SPIN_WINDOW_NS = 500_000; // spin instead of park for the last 0.5 ms
+
+        // Rendering
+        public static RenderMode RENDER_MODE = RenderMode.ACTIVE;
+
+        // Dynamic resolution: the world layer is drawn smaller and upscaled when it is too slow
+        public static double MIN_RENDER_SCALE = 0.5; // 1 = always native resolution
+        public static final long WORLD_RENDER_BUDGET_NS = 10_000_000; // world layer time per frame
+
+        // World seed and input recording (see InputRecorder), set from the command line
+        public static long WORLD_SEED = new Random().nextLong();
+        public static String RECORD_PATH = null; // record the session's input to this file
+        public static String REPLAY_PATH = null; // play the input of this recording instead of the keyboard
         public static final double G_Constant = 0;
 
+        // Orbit integration: simulated seconds per base tick and the scheme (see Integrator)
+        public static double ORBIT_TIMESTEP = PHYSICS_CONSTANT.TIMESTEP;
+        public static Integrator INTEGRATOR = Integrator.LEAPFROG;
+        // a tick is split into substeps that each cover at most this fraction of a planet's |v| / |a|
+        public static double ORBIT_STEP_ACCURACY = 0.05; // 0 = one step per tick
+        public static int MAX_ORBIT_SUBSTEPS = 16;
+        // Planets the rest of the system barely disturbs follow their Kepler ellipse in closed form (see KeplerRails)
+        public static boolean KEPLER_RAILS = true;
+        public static double RAILS_PERTURBATION_THRESHOLD = 0.02; // pull of the other bodies / pull of the sun
+        public static int RAILS_CHECK_TICKS = 30;
+
+        // Simulation level of detail, by grid distance from the player's solar system: systems up to
+        // LOD_FULL_RADIUS cells away are updated every tick, up to LOD_REDUCED_RADIUS every LOD_REDUCED_TICKS
+        // ticks, and the ones further out only once they come closer again
+        public static int LOD_FULL_RADIUS = 0;
+        public static int LOD_REDUCED_RADIUS = 1;
+        public static int LOD_REDUCED_TICKS = 4;
+        public static int LOD_CATCH_UP_TICKS = 16; // most ticks a catching up system covers per update
+        public static int LOD_CATCH_UP_UPDATES = 64; // most updates a reduced system spends catching up per tick
+        // Solar systems due in the same tick are updated in parallel when at least PARALLEL_MIN_SYSTEMS are due
+        public static boolean PARALLEL_SYSTEMS = true;
+        public static int PARALLEL_MIN_SYSTEMS = 8;
+
+        // Gravity solver: systems with at least this many bodies use a Barnes-Hut tree instead of the direct sum
+        public static int BARNES_HUT_MIN_BODIES = 1024;
+        public static double BARNES_HUT_THETA = 0.5; // opening angle, larger is faster and less accurate
+        // Direct sum with the Vector API when VectorGravitySolver is built; rounds differently from the scalar sum
+        public static boolean SIMD_GRAVITY = false;
+        // Pull of the suns and black holes: cells per side of each system's StaticGravityGrid, 0 sums them exactly.
+        // With one sun and at most one black hole per system the exact sum is the cheaper one (StaticGravityReport)
+        public static int STATIC_GRAVITY_GRID = 0;
+        public static double STATIC_GRAVITY_EXACT_CELLS = 16; // queries this close to a sun or black hole are exact
+        // pull of the suns and black holes on enemies and trail particles, as a share of their pull on the ship
+        public static double ENEMY_GRAVITY_SCALE = 1;
+        public static double PARTICLE_GRAVITY_SCALE = 1;
+
+        // Cell sizes in px of the SpatialHash of each solar system's bodies and of the world's ships
+        public static double BODY_HASH_CELL = 2048;
+        public static double ENTITY_HASH_CELL = 256;
+        // Predicted coasting path of the ship drawn ahead of it (see TrajectoryPredictor), this many seconds long
+        public static boolean TRAJECTORY_PREDICTION = true;
+        public static double TRAJECTORY_SECONDS = 8;
+
         //Zoom
         public static final Range scaleRange = new Range(0.05,1.5);
         public static final double defaultScale = 1.0;
@@ -164,6 +224,11 @@ public class Constant {
         public static final double SHIP_SPEED = 300.0; // px / s
         public static final double SIDE_SPEED = 150; // rad / s
 
+        // gravitational strength adjusters applied for smoother gameplay
+        public static final double GRAVITY_STRENGTH = 11 * 5e1; // suns
+        public static final double PLANET_GRAVITY_STRENGTH = GRAVITY_STRENGTH * 3.5;
+        public static final double BLACK_HOLE_GRAVITY_STRENGTH = PLANET_GRAVITY_STRENGTH * 2;
+
         // Rotational dampening PID
         // how fast you can turn (radians per second)
         public static final double MAX_TURN_SPEED = Math.toRadians(360);
@@ -172,6 +237,29 @@ public class Constant {
         public static final double ANGLE_DEADZONE = Math.toRadians(1); // ~1°
     }
 
+    /*
+     * How frames reach the screen.
+     * ACTIVE draws onto a Canvas BufferStrategy from a dedicated render thread.
+     * PASSIVE is the Swing fallback: repaint() is requested and the EDT calls paintComponent.
+     */
+    public enum RenderMode {
+        ACTIVE,
+        PASSIVE
+    };
+
+    /*
+     * How the orbits of the planets are integrated (see BodyStore.step).
+     * EULER is semi-implicit Euler, first order; orbits slowly drift unless the step is small.
+     * LEAPFROG is kick-drift-kick velocity Verlet, second order and symplectic, so the orbit
+     * energy does not drift away over time. YOSHIDA4 chains three leapfrog steps into a
+     * fourth order symplectic step, three force evaluations per step.
+     */
+    public enum Integrator {
+        EULER,
+        LEAPFROG,
+        YOSHIDA4
+    };
+
     // The type of thrust for the player ship
     public enum ThrustType {
         CENTER,
@@ -0,0 +1,39 @@
+package Game;
+
+/**
+ * DirectGravitySolver class sums the field of every body for every query, O(n) per query
+ * and O(n^2) per tick for a whole system. It is exact and, for the handful of bodies of a
+ * generated system, also the fastest solver.
+ */
+public class DirectGravitySolver implements GravitySolver {
+
+    @Override
+    public void prepare(BodyStore bodies) {
+    }
+
+    @Override
+    public void field(BodyStore bodies, double x, double y, int skip, double[] out) {
+        double[] bx = bodies.x;
+        double[] by = bodies.y;
+        double[] mass = bodies.mass;
+        double sumX = 0;
+        double sumY = 0;
+
+        // every pair costs a square root and one division
+        for (int j = 0, n = bodies.size(); j < n; j++) {
+            if (j == skip || bodies.isBlackHole(j))
+                continue;
+            double dx = bx[j] - x;
+            double dy = by[j] - y;
+            double distSq = dx * dx + dy * dy;
+            if (distSq == 0)
+                continue; // overlapping bodies? no gravity
+
+            double s = mass[j] / (distSq * Math.sqrt(distSq));
+            sumX += dx * s;
+            sumY += dy * s;
+        }
+        out[0] = sumX;
+        out[1] = sumY;
+    }
+}
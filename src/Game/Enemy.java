@@ -1,65 +1,122 @@
 package Game;
+import Game.Constant.GAME_CONSTANT;
+import Game.Constant.PHYSICS_CONSTANT;
+import Game.Constant.PLAYER_CONST;
 import Game.Entity;
-import Game.utils.FrameAnimation;
 import Game.utils.Vector2D;
 
-import java.awt.*;
-import java.awt.geom.AffineTransform;
-import java.awt.image.BufferedImage;
 
 public class Enemy extends Entity {
-    private final FrameAnimation currAnimation;
-    private final FrameAnimation idleAnimation;
-    private final FrameAnimation deathAnimation;
+    // seconds each idle animation frame is shown
+    private static final double SECONDS_PER_FRAME = 0.8;
+    // edge length in px of the sprite before scaling by the size
+    private static final int SPRITE_SIZE = 32;
+
     private final double size;
 
+    // animation clock; the renderer maps the frame number onto its sprite frames
+    private double animationTimer = 0;
+    private int animationFrame = 0;
+
+    // entry of the enemy in the world's SpatialHash
+    int hashId = -1;
+
+    // scratch for the field of the suns and black holes
+    private final double[] staticField = new double[4];
+
     public Enemy(double x, double y, double size) {
         super(x, y, 1e10);
         this.size = size;
-        this.idleAnimation = new FrameAnimation(0.8, false);
-        this.idleAnimation.loadFramesFromPath("Images/Enemy Idle", 1);
-
-        this.deathAnimation = new FrameAnimation(0.5, false);
-        this.deathAnimation.loadFramesFromPath("Images/Enemy Death", 1);
-        this.currAnimation = this.idleAnimation;
-
     }
-    @Override
-    public void render(Graphics2D g2) {
-        AffineTransform old = g2.getTransform();
-        g2.translate(this.pos.x, this.pos.y);
-        g2.rotate(this.angle + Math.PI / 2);
-        g2.scale(this.size, this.size);
-        BufferedImage img = this.currAnimation.getFrame();
-        g2.drawImage(img, -img.getWidth() / 2, -img.getHeight() / 2, null);
-        g2.setTransform(old);
+
+    // Copy the render state of this enemy into slot i of a snapshot, relative to its origin
+    void writeTo(WorldSnapshot snapshot, int i) {
+        snapshot.enemyX[i] = (float) (this.pos.x - snapshot.originX);
+        snapshot.enemyY[i] = (float) (this.pos.y - snapshot.originY);
+        snapshot.enemyAngle[i] = this.angle;
+        snapshot.enemyPrevX[i] = (float) (this.prevPos.x - snapshot.originX);
+        snapshot.enemyPrevY[i] = (float) (this.prevPos.y - snapshot.originY);
+        snapshot.enemyPrevAngle[i] = this.prevAngle;
+        snapshot.enemySize[i] = this.size;
+        snapshot.enemyFrame[i] = this.animationFrame;
     }
 
     public void followAndAttack(Player player) {
-        Vector2D diff = Vector2D.subtract(player.pos, this.pos);
+        double dx = player.pos.x - this.pos.x;
+        double dy = player.pos.y - this.pos.y;
+        double length = Math.sqrt(dx * dx + dy * dy);
 
         // if the enemy is close to the target
-        if(diff.length() < this.size * 20) {
+        if(length < this.size * 20) {
 //            player.health -= 1;
             return;
         }
 
-        diff.normalize();
-        diff.multiply(60 / (this.size * 0.5));
+        // head straight at the player, in place so the chase does not allocate
+        double speed = 60 / (this.size * 0.5);
+        this.vel.set(dx / length * speed, dy / length * speed);
+        this.angle = this.vel.getAngle();
+    }
 
-        this.vel = diff;
-        this.angle = diff.getAngle();
+    /**
+     * Moves the enemy straight away from a point until it is the given distance from it.
+     *
+     * @param x        x-coordinate of the point in pixels
+     * @param y        y-coordinate of the point in pixels
+     * @param distance the distance to keep in pixels
+     */
+    public void separateFrom(double x, double y, double distance) {
+        double dx = this.pos.x - x;
+        double dy = this.pos.y - y;
+        double length = Math.sqrt(dx * dx + dy * dy);
+        if (length >= distance)
+            return;
+        if (length == 0) {
+            // right on the point, leave the way it came
+            dx = -Math.cos(this.angle);
+            dy = -Math.sin(this.angle);
+            length = 1;
+        }
+        this.pos.x = x + dx / length * distance;
+        this.pos.y = y + dy / length * distance;
     }
 
-    public void update(double dt) {
-        this.currAnimation.tick(dt);
+    // Radius in pixels of the circle the enemy is hit as, that of its sprite
+    public double getCollisionRadius() {
+        return SPRITE_SIZE / 2.0 * this.size;
+    }
 
-        // decay acceleration
-        this.acc.multiply(0.9);
+    /**
+     * Sets the acceleration to the pull of the suns and black holes of a solar system, read
+     * from its StaticGravityGrid, as strong as on the ship times GAME_CONSTANT.ENEMY_GRAVITY_SCALE.
+     * The chase sets the velocity anew every tick, so the pull mostly shows while an enemy
+     * hovers next to the ship.
+     *
+     * @param system the solar system the enemy is in, or null outside the grid
+     */
+    public void updateGravity(SolarSystem system) {
+        if (system == null) {
+            this.acc.set(0, 0);
+            return;
+        }
+        double[] f = this.staticField;
+        system.staticGravityAt(this.pos.x * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE,
+                this.pos.y * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE, f);
+        double scale = PHYSICS_CONSTANT.G * GAME_CONSTANT.ENEMY_GRAVITY_SCALE;
+        this.acc.set(scale * (PLAYER_CONST.GRAVITY_STRENGTH * f[0] + PLAYER_CONST.BLACK_HOLE_GRAVITY_STRENGTH * f[2]),
+                scale * (PLAYER_CONST.GRAVITY_STRENGTH * f[1] + PLAYER_CONST.BLACK_HOLE_GRAVITY_STRENGTH * f[3]));
+    }
+
+    public void update(double dt) {
+        this.animationTimer += dt;
+        if (this.animationTimer >= SECONDS_PER_FRAME) {
+            this.animationTimer = 0;
+            this.animationFrame++;
+        }
 
         // apply acceleration and velocity
-        this.vel.add(Vector2D.multiply(this.acc, dt));
-        this.pos.add(Vector2D.multiply(this.vel, dt));
+        this.vel.addScaled(this.acc, dt);
+        this.pos.addScaled(this.vel, dt);
     }
 
     @Override
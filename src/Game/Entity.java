@@ -2,13 +2,15 @@ package Game;
 
 import Game.Constant.PHYSICS_CONSTANT;
 import Game.utils.Vector2D;
-import java.awt.Graphics2D;
 
 /**
  * Entity class represents a generic entity in the game.
- * It serves as a base class for all game entities, such as celestial bodies and players.
+ * It serves as a base class for the moving game entities, such as the player, enemies and particles.
  * It contains properties like position, velocity, force, width, height, angle, and mass.
- * It provides methods for rendering, calculating gravitational attraction, and retrieving mass.  
+ * It provides methods for calculating gravitational attraction and retrieving mass.
+ * Entities are not drawn directly; they copy their render state into a WorldSnapshot instead.
+ * Every entity also keeps its position and angle of the previous tick, so the renderer can
+ * interpolate between the last two ticks.
  * * The attraction method calculates the gravitational force between this entity and a celestial body.
  * The gravitational force is calculated using Newton's law of universal gravitation.
  * The mass of the entity can be retrieved using the getMass method.
@@ -24,6 +26,10 @@ public abstract class Entity {
     protected double angle;
     protected double mass;
 
+    // position and angle at the end of the previous tick, for interpolating between ticks
+    protected final Vector2D prevPos = new Vector2D();
+    protected double prevAngle;
+
     /**
      * Constructor for the Entity class.
      * Initializes an entity with a position, width, height, and mass.
@@ -37,10 +43,16 @@ public abstract class Entity {
         this.pos.x = x;
         this.pos.y = y;
         this.mass = mass;
+        this.savePreviousState();
+    }
+
+    // Remembers the current position and angle as the previous tick's; called before moving
+    protected void savePreviousState() {
+        this.prevPos.x = this.pos.x;
+        this.prevPos.y = this.pos.y;
+        this.prevAngle = this.angle;
     }
 
-    // abstract function for rendering
-    public abstract void render(Graphics2D g2);
     // abstract getter function 
     //Get pos
     public abstract Vector2D getPos();
@@ -62,23 +74,24 @@ public abstract class Entity {
     // Calculate the distance vector between the two objects
     // and its magnitude
     public Vector2D attraction(CelestialBody body, Vector2D subject) {
+        return this.attraction(body, subject, new Vector2D());
+    }
 
-        Vector2D delta = Vector2D.subtract(body.pos, subject);
+    // The same force written into out, without allocating
+    public Vector2D attraction(CelestialBody body, Vector2D subject, Vector2D out) {
+        double dx = body.getX() - subject.x;
+        double dy = body.getY() - subject.y;
 
-        double distSq = delta.x * delta.x + delta.y * delta.y;
+        double distSq = dx * dx + dy * dy;
         if (distSq == 0) {
             // overlapping bodies? no gravity
-            return new Vector2D(0, 0);
+            return out.set(0, 0);
         }
 
-        // F = G*m1*m2 / (r^2)
+        // F = G*m1*m2 / (r^2), along the unit vector d / r
         double magnitude = PHYSICS_CONSTANT.G * body.getMass() * this.mass / distSq;
-
-        Vector2D newForce = Vector2D.normalize(delta);
-        newForce.multiply(magnitude);
-
-        return newForce;
-
+        double scale = magnitude / Math.sqrt(distSq);
+        return out.set(dx * scale, dy * scale);
     }
 
     // Getter method to retrieve the mass of the entity
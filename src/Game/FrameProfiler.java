@@ -0,0 +1,242 @@
+package Game;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * FrameProfiler class measures how long each part of a tick and of a frame takes, and draws
+ * the numbers as a HUD overlay (toggled with F3, dumped to CSV with F4).
+ * Code under measurement brackets itself with
+ *
+ *     long t = FrameProfiler.begin();
+ *     ...
+ *     FrameProfiler.end(FrameProfiler.Section.CAMERA, t);
+ *
+ * While the profiler is disabled begin() returns 0 without reading the clock and end() returns
+ * straight away, so the timers cost a static field read and a branch.
+ * Every section keeps its last SAMPLE_COUNT durations in a ring buffer. The simulation sections
+ * are written by the game thread and the render sections by the render thread; the overlay
+ * reads them without locking, so a sample may occasionally be one tick stale.
+ */
+public class FrameProfiler {
+    // Samples kept per section, four seconds at 60 ticks per second
+    public static final int SAMPLE_COUNT = 240;
+
+    /*
+     * The measured sections. TICK and RENDER are the totals of the simulation tick and the
+     * world render, FRAME is the time between two presented frames.
+     * PARTICLES is measured inside PLAYER, the render layers inside RENDER.
+     */
+    public enum Section {
+        TICK("tick", false),
+        CAMERA("  camera", false),
+        PLAYER("  player", false),
+        PARTICLES("    particles", false),
+        SOLAR_SYSTEMS("  solar systems", false),
+        ENEMIES("  enemies", false),
+        RENDER("render", true),
+        STARS("  stars", true),
+        SYSTEMS("  solar systems", true),
+        SHIP("  ship", true),
+        ENEMY_SPRITES("  enemies", true),
+        HUD("  hud", true),
+        FRAME("frame interval", true);
+
+        final String label;
+        final boolean render;
+
+        Section(String label, boolean render) {
+            this.label = label;
+            this.render = render;
+        }
+    }
+
+    private static final Section[] SECTIONS = Section.values();
+    private static final Font FONT = new Font("Consolas", Font.PLAIN, 12);
+    private static final Color BACKGROUND = new Color(0, 0, 0, 170);
+    private static final Color TICK_BAR = new Color(90, 200, 255);
+    private static final Color FRAME_BAR = new Color(120, 255, 120);
+    private static final Color LATE_BAR = new Color(255, 90, 90);
+
+    private static volatile boolean enabled = false;
+
+    // ring buffers of durations in nanoseconds, one per section
+    private static final long[][] samples = new long[SECTIONS.length][SAMPLE_COUNT];
+    private static final int[] next = new int[SECTIONS.length];
+    private static final long[] count = new long[SECTIONS.length];
+
+    // scratch space for the percentiles of the overlay, only used by the drawing thread
+    private static final long[] sorted = new long[SAMPLE_COUNT];
+
+    private static long lastFrame = 0;
+
+    private FrameProfiler() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    // Turns the profiler on or off; the old samples are thrown away when it is turned on
+    public static void setEnabled(boolean on) {
+        if (on && !enabled) {
+            for (int i = 0; i < SECTIONS.length; i++) {
+                next[i] = 0;
+                count[i] = 0;
+            }
+            lastFrame = 0;
+        }
+        enabled = on;
+    }
+
+    public static void toggle() {
+        setEnabled(!enabled);
+    }
+
+    /**
+     * Starts timing a section.
+     *
+     * @return the start time to pass to end(), or 0 while the profiler is disabled
+     */
+    public static long begin() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since begin() for a section.
+     *
+     * @param section the section that was measured
+     * @param start   the value begin() returned
+     */
+    public static void end(Section section, long start) {
+        if (start == 0)
+            return;
+        record(section, System.nanoTime() - start);
+    }
+
+    // Records the interval since the previous presented frame
+    public static void frame() {
+        if (!enabled)
+            return;
+        long now = System.nanoTime();
+        if (lastFrame != 0)
+            record(Section.FRAME, now - lastFrame);
+        lastFrame = now;
+    }
+
+    private static void record(Section section, long ns) {
+        int s = section.ordinal();
+        samples[s][next[s]] = ns;
+        next[s] = (next[s] + 1) % SAMPLE_COUNT;
+        count[s]++;
+    }
+
+    /**
+     * Draws the overlay: the rolling tick and frame time graphs, followed by the mean, p50,
+     * p99 and maximum of every section in milliseconds.
+     *
+     * @param g          graphics in panel coordinates
+     * @param x          left edge of the overlay
+     * @param y          top edge of the overlay
+     * @param lateFrames frames the scheduler started after their deadline
+     * @param budgetNs   frame budget drawn as a line across the graphs
+     */
+    public static void draw(Graphics2D g, int x, int y, long lateFrames, long budgetNs) {
+        if (!enabled)
+            return;
+
+        int graphH = 60;
+        int width = SAMPLE_COUNT * 2;
+        int rowH = 14;
+        int height = 2 * (graphH + 20) + (SECTIONS.length + 2) * rowH + 10;
+
+        g.setColor(BACKGROUND);
+        g.fillRect(x, y, width + 20, height);
+        g.setFont(FONT);
+
+        int cy = y + 15;
+        cy = drawGraph(g, Section.TICK, "tick time", TICK_BAR, x + 10, cy, width, graphH, budgetNs);
+        cy = drawGraph(g, Section.FRAME, "frame interval", FRAME_BAR, x + 10, cy, width, graphH, budgetNs);
+
+        g.setColor(Color.WHITE);
+        g.drawString(String.format("%-18s %8s %8s %8s %8s", "section (ms)", "mean", "p50", "p99", "max"), x + 10, cy);
+        for (Section section : SECTIONS) {
+            cy += rowH;
+            double[] stats = stats(section, sorted);
+            g.drawString(String.format("%-18s %8.3f %8.3f %8.3f %8.3f", section.label,
+                    stats[0] / 1e6, stats[1] / 1e6, stats[2] / 1e6, stats[3] / 1e6), x + 10, cy);
+        }
+        cy += rowH;
+        g.drawString("late frames: " + lateFrames + "   F3 hide   F4 dump csv", x + 10, cy);
+    }
+
+    // Draws one bar per sample, oldest on the left; bars more than a quarter over the budget are red
+    private static int drawGraph(Graphics2D g, Section section, String title, Color color,
+            int x, int y, int width, int height, long budgetNs) {
+        g.setColor(Color.WHITE);
+        g.drawString(title, x, y);
+        int top = y + 5;
+
+        // the graph shows twice the budget, longer samples are clipped
+        double scale = height / (2.0 * budgetNs);
+        int s = section.ordinal();
+        int n = (int) Math.min(count[s], SAMPLE_COUNT);
+        for (int i = 0; i < n; i++) {
+            long ns = samples[s][(next[s] - n + i + SAMPLE_COUNT) % SAMPLE_COUNT];
+            int h = (int) Math.min(height, ns * scale);
+            g.setColor(ns > budgetNs * 5 / 4 ? LATE_BAR : color);
+            g.fillRect(x + i * 2, top + height - h, 2, h);
+        }
+
+        g.setColor(Color.GRAY);
+        int budgetY = top + height - (int) (budgetNs * scale);
+        g.drawLine(x, budgetY, x + width, budgetY);
+        return top + height + 15;
+    }
+
+    /**
+     * Summary of the samples currently held for a section.
+     *
+     * @param scratch array of SAMPLE_COUNT longs to sort the samples in
+     * @return {mean, p50, p99, max} in nanoseconds, all 0 without samples
+     */
+    private static double[] stats(Section section, long[] scratch) {
+        int s = section.ordinal();
+        int n = (int) Math.min(count[s], SAMPLE_COUNT);
+        if (n == 0)
+            return new double[4];
+
+        System.arraycopy(samples[s], 0, scratch, 0, n);
+        Arrays.sort(scratch, 0, n);
+        double sum = 0;
+        for (int i = 0; i < n; i++)
+            sum += scratch[i];
+
+        return new double[] { sum / n, scratch[(n - 1) / 2], scratch[(int) Math.ceil(n * 0.99) - 1], scratch[n - 1] };
+    }
+
+    /**
+     * Writes the summary of every section and the late frame count to a CSV file.
+     *
+     * @param path       the file to write
+     * @param lateFrames frames the scheduler started after their deadline
+     */
+    public static void dumpCsv(String path, long lateFrames) throws IOException {
+        long[] scratch = new long[SAMPLE_COUNT];
+        try (PrintWriter out = new PrintWriter(new FileWriter(path))) {
+            out.println("section,thread,samples,mean_ms,p50_ms,p99_ms,max_ms");
+            for (Section section : SECTIONS) {
+                double[] stats = stats(section, scratch);
+                out.printf("%s,%s,%d,%.4f,%.4f,%.4f,%.4f%n", section.name().toLowerCase(),
+                        section.render ? "render" : "game", Math.min(count[section.ordinal()], SAMPLE_COUNT),
+                        stats[0] / 1e6, stats[1] / 1e6, stats[2] / 1e6, stats[3] / 1e6);
+            }
+            out.printf("late_frames,game,%d,,,,%n", lateFrames);
+        }
+    }
+}
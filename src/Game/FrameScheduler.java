@@ -0,0 +1,195 @@
+package Game;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.DoubleConsumer;
+
+/**
+ * FrameScheduler class drives the fixed-timestep game loop.
+ * The simulation is advanced in fixed ticks of 1 / tickRate seconds, independent of the frame rate.
+ * Frames are paced to the FPS cap by parking the thread until shortly before the deadline
+ * and spinning only for the last few hundred microseconds, so an idle game does not keep a core busy.
+ * When the machine falls behind, at most maxCatchUpTicks ticks are run per frame and the rest of
+ * the backlog is dropped, which keeps the loop from spiralling into ever longer catch-up frames.
+ * Frames that start after their deadline are counted as late so the ratio can be reported.
+ * getTickTime() tells the renderer at which point of the wall clock the newest tick is due, so it
+ * can interpolate between the last two ticks by the fraction of a tick that has passed since.
+ */
+public class FrameScheduler {
+    private static final double NS_PER_SECOND = 1_000_000_000.0;
+
+    private final long nsPerTick;
+    private final double secondsPerTick;
+    private final int maxCatchUpTicks;
+    private final long spinWindowNs;
+
+    // 0 means uncapped: a frame is produced as soon as a new tick is available
+    private volatile long nsPerFrame;
+
+    private volatile boolean running;
+
+    // System.nanoTime() at which the tick being run (or last run) is due
+    private volatile long tickTime;
+
+    // statistics, written by the loop thread and read by the HUD
+    private volatile long frameCount;
+    private volatile long lateFrameCount;
+    private volatile long tickCount;
+    private volatile long droppedTickCount;
+
+    /**
+     * Constructor for the FrameScheduler class.
+     *
+     * @param tickRate        simulation ticks per second
+     * @param fpsCap          maximum frames per second, 0 for uncapped
+     * @param maxCatchUpTicks maximum ticks run before a frame when behind schedule
+     * @param spinWindowNs    how long before a deadline to stop parking and spin instead
+     */
+    public FrameScheduler(int tickRate, int fpsCap, int maxCatchUpTicks, long spinWindowNs) {
+        this.nsPerTick = Math.round(NS_PER_SECOND / tickRate);
+        this.secondsPerTick = 1.0 / tickRate;
+        this.maxCatchUpTicks = Math.max(1, maxCatchUpTicks);
+        this.spinWindowNs = spinWindowNs;
+        this.setFpsCap(fpsCap);
+    }
+
+    /**
+     * Runs the loop on the calling thread until stop() is called.
+     *
+     * @param tick  called once per simulation tick with the fixed tick length in seconds
+     * @param frame called once per frame after the ticks due for that frame
+     */
+    public void run(DoubleConsumer tick, Runnable frame) {
+        this.running = true;
+
+        long lastTime = System.nanoTime();
+        long nextFrame = lastTime;
+        long accumulator = 0;
+
+        while (this.running) {
+            long now = System.nanoTime();
+            accumulator += now - lastTime;
+            lastTime = now;
+
+            // run the ticks that are due, but never more than the catch-up limit
+            int steps = 0;
+            long dueTime = now - accumulator;
+            while (accumulator >= this.nsPerTick && steps < this.maxCatchUpTicks) {
+                dueTime += this.nsPerTick;
+                this.tickTime = dueTime;
+                tick.accept(this.secondsPerTick);
+                accumulator -= this.nsPerTick;
+                steps++;
+            }
+            this.tickCount += steps;
+
+            // spiral-of-death guard: forget the backlog we could not afford to simulate
+            if (accumulator >= this.nsPerTick) {
+                this.droppedTickCount += accumulator / this.nsPerTick;
+                accumulator %= this.nsPerTick;
+            }
+
+            long frameNs = this.nsPerFrame;
+            if (frameNs == 0) {
+                // uncapped: draw whenever the world changed, then sleep until the next tick is due
+                if (steps > 0) {
+                    frame.run();
+                    this.frameCount++;
+                }
+                this.waitUntil(lastTime + (this.nsPerTick - accumulator));
+                continue;
+            }
+
+            frame.run();
+            this.frameCount++;
+
+            // pace to the cap; a frame whose deadline already passed is late and re-syncs the schedule
+            nextFrame += frameNs;
+            now = System.nanoTime();
+            if (now > nextFrame) {
+                this.lateFrameCount++;
+                nextFrame = now;
+            } else {
+                this.waitUntil(nextFrame);
+            }
+        }
+    }
+
+    /**
+     * Blocks until the given System.nanoTime() deadline.
+     * Parks for the bulk of the wait and spins with onSpinWait() for the final spin window,
+     * since parkNanos can overshoot by tens of microseconds.
+     */
+    private void waitUntil(long deadline) {
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                return;
+
+            if (remaining > this.spinWindowNs)
+                LockSupport.parkNanos(remaining - this.spinWindowNs);
+            else
+                Thread.onSpinWait();
+        }
+    }
+
+    // Stops the loop after the current frame
+    public void stop() {
+        this.running = false;
+    }
+
+    /**
+     * Sets the frame rate cap.
+     *
+     * @param fpsCap maximum frames per second, 0 for uncapped
+     */
+    public void setFpsCap(int fpsCap) {
+        this.nsPerFrame = fpsCap <= 0 ? 0 : (long) (NS_PER_SECOND / fpsCap);
+    }
+
+    public long getFrameCount() {
+        return this.frameCount;
+    }
+
+    /**
+     * The System.nanoTime() at which the newest tick was due.
+     * The time since then, divided by getNsPerTick(), is the fraction of the next tick that
+     * has already passed (the accumulator left over after the tick).
+     */
+    public long getTickTime() {
+        return this.tickTime;
+    }
+
+    public long getNsPerTick() {
+        return this.nsPerTick;
+    }
+
+    public long getLateFrameCount() {
+        return this.lateFrameCount;
+    }
+
+    public long getTickCount() {
+        return this.tickCount;
+    }
+
+    public long getDroppedTickCount() {
+        return this.droppedTickCount;
+    }
+
+    /**
+     * @return the fraction of frames that started after their deadline, between 0 and 1
+     */
+    public double getLateFrameRatio() {
+        long frames = this.frameCount;
+        return frames == 0 ? 0 : (double) this.lateFrameCount / frames;
+    }
+
+    /**
+     * Display the scheduler statistics in a string format.
+     */
+    @Override
+    public String toString() {
+        return String.format("frames: %d   late: %d (%.1f%%)   ticks: %d   dropped: %d",
+                this.frameCount, this.lateFrameCount, this.getLateFrameRatio() * 100,
+                this.tickCount, this.droppedTickCount);
+    }
+}
@@ -0,0 +1,309 @@
+package Game;
+
+import Game.Constant.GAME_CONSTANT;
+import Game.jfr.TickEvent;
+import java.util.ArrayList;
+import java.util.Random;
+import jdk.jfr.EventType;
+
+/**
+ * GameWorld class is the simulation core of the game.
+ * It owns the solar systems, the player ship, the camera following it, the enemies and the
+ * package delivery manager, and advances all of them one fixed tick at a time.
+ * The universe has no edge: every Sector has a solar system, generated from the world seed
+ * when the player comes near and dropped again when far away and no longer among the recently
+ * used ones (see SolarSystemCache).
+ * The world reads its controls only from the InputState handed to step() and never loads
+ * images or touches a window, so it runs the same way inside the Orbitor panel and headless
+ * (see HeadlessRunner), where it can be stepped far faster than real time.
+ * Only the solar system the player is in is simulated every tick; the ones around it are
+ * simulated less often and the far ones not at all until the player comes closer (see
+ * updateSolarSystems()), so a tick costs about the same however many systems are held.
+ * The ship and the enemies are kept in a SpatialHash, so collisions between them only test
+ * neighbours; the bodies of each solar system have one of their own (see SolarSystem).
+ * After a tick the render state can be copied out with writeTo(). Once started, a
+ * TrajectoryPredictor is handed the ship and its solar system after every tick and predicts
+ * the ship's path on its own thread; writeTo() includes the newest path it has.
+ * Every tick is recorded as a TickEvent when a flight recording is running.
+ * All randomness (solar system generation, enemy placement, package targets and the trail
+ * particles) is drawn from generators derived from one world seed, so the same seed and the
+ * same sequence of InputStates always produce the same game (see InputRecorder).
+ */
+public class GameWorld {
+    // a TickEvent is only created while a recording has it enabled; the JIT does not always
+    // manage to optimize the allocation away, and a tick should not allocate
+    private static final EventType TICK_EVENT = EventType.getEventType(TickEvent.class);
+
+    private final Player player;
+    private final Camera camera;
+
+    // the solar systems around the player, generated on demand
+    private final SolarSystemCache solarSystems;
+    // the sector the systems around were last loaded for
+    private long loadedX;
+    private long loadedY;
+
+    // Enemies container
+    private final ArrayList<Enemy> enemies = new ArrayList<>();
+    // the ship and the enemies, for collision and proximity queries
+    private final SpatialHash<Entity> entityHash = new SpatialHash<>(GAME_CONSTANT.ENTITY_HASH_CELL, 256);
+    private int playerHashId;
+
+    // predicts the ship's path on a worker thread, idle until started
+    private final TrajectoryPredictor trajectoryPredictor = new TrajectoryPredictor();
+
+    // Package delivery management system
+    private final PackageManager packageManager;
+
+    private final long seed;
+
+    // ticks stepped so far
+    private long tick = 0;
+
+    // runs the solar system updates of a tick, in parallel when there are enough
+    private final SolarSystemStepper stepper = new SolarSystemStepper();
+
+    // one generator per subsystem, so e.g. more particles never change the enemies
+    private final Random enemyRandom;
+
+    /**
+     * Constructor for the GameWorld class.
+     * Places the player and camera next to the solar system of sector (1, 1), generates the
+     * solar systems around it and the enemies, and picks the first package target.
+     *
+     * @param seed The world seed all random generators are derived from.
+     */
+    public GameWorld(long seed) {
+        this.seed = seed;
+        Random seeds = new Random(seed);
+        this.solarSystems = new SolarSystemCache(seeds.nextLong());
+        this.enemyRandom = new Random(seeds.nextLong());
+        this.packageManager = new PackageManager(new Random(seeds.nextLong()));
+
+        // up and to the left of the sun of sector (1, 1)
+        double start = Sector.center(1) - 4000;
+        this.player = new Player(start, start, new Random(seeds.nextLong()));
+        this.camera = new Camera(start, start);
+
+        this.loadSolarSystems(Sector.of(start), Sector.of(start));
+        this.generateEnemies();
+        this.playerHashId = this.entityHash.add(this.player, this.player.pos.x, this.player.pos.y,
+                this.player.getCollisionRadius());
+        this.packageManager.generateNextPackage(this.solarSystemsAround(GAME_CONSTANT.PACKAGE_RADIUS));
+    }
+
+    private void generateEnemies() {
+        for (int i = 0; i < 10; i++)
+            this.addEnemy(new Enemy(this.player.pos.x + this.enemyRandom.nextInt(-1000, 1000),
+                    this.player.pos.y + this.enemyRandom.nextInt(-1000, 1000), (this.enemyRandom.nextDouble() + 1) * 2.5));
+    }
+
+    private void addEnemy(Enemy enemy) {
+        this.enemies.add(enemy);
+        enemy.hashId = this.entityHash.add(enemy, enemy.pos.x, enemy.pos.y, enemy.getCollisionRadius());
+    }
+
+    /**
+     * Generates the solar systems the player's system is simulated with, up to
+     * GAME_CONSTANT.LOD_REDUCED_RADIUS sectors around it, before the player gets to them, so
+     * they catch up at the reduced rate instead of all at once when the player arrives.
+     * Each has a sun at the center of its sector and planets orbiting around it.
+     *
+     * @param x the player's sector along x
+     * @param y the player's sector along y
+     */
+    private void loadSolarSystems(long x, long y) {
+        int radius = GAME_CONSTANT.LOD_REDUCED_RADIUS;
+        this.solarSystems.keep(x, y, radius, this.packageManager.getSolarSystem());
+        for (long j = y - radius; j <= y + radius; j++) {
+            for (long i = x - radius; i <= x + radius; i++)
+                this.solarSystems.get(i, j);
+        }
+        this.loadedX = x;
+        this.loadedY = y;
+    }
+
+    // The solar systems up to radius sectors around the player's, row by row
+    private ArrayList<SolarSystem> solarSystemsAround(int radius) {
+        long x = Sector.of(this.player.pos.x);
+        long y = Sector.of(this.player.pos.y);
+        ArrayList<SolarSystem> systems = new ArrayList<>();
+        for (long j = y - radius; j <= y + radius; j++) {
+            for (long i = x - radius; i <= x + radius; i++)
+                systems.add(this.solarSystems.get(i, j));
+        }
+        return systems;
+    }
+
+    /**
+     * Advances the world by one tick: the camera follows the player, the player
+     * moves under gravity and input, the solar systems are updated and the
+     * enemies chase the player.
+     *
+     * @param input The controls for this tick.
+     * @param dt    The tick length in seconds.
+     */
+    public void step(InputState input, double dt) {
+        TickEvent event = TICK_EVENT.isEnabled() ? new TickEvent() : null;
+        if (event != null)
+            event.begin();
+        long tickStart = FrameProfiler.begin();
+        SolarSystem currentSolarSystem = this.getCurrentSolarSystem();
+
+        long t = FrameProfiler.begin();
+        this.camera.update(this.player, input, dt);
+        FrameProfiler.end(FrameProfiler.Section.CAMERA, t);
+
+        t = FrameProfiler.begin();
+        this.player.update(this.entityHash, currentSolarSystem, input, dt);
+        this.entityHash.update(this.playerHashId, this.player.pos.x, this.player.pos.y);
+        FrameProfiler.end(FrameProfiler.Section.PLAYER, t);
+
+        t = FrameProfiler.begin();
+        this.updateSolarSystems(dt);
+        FrameProfiler.end(FrameProfiler.Section.SOLAR_SYSTEMS, t);
+
+        t = FrameProfiler.begin();
+        // indexed, an iterator would allocate every tick
+        for (int i = 0; i < this.enemies.size(); i++) {
+            Enemy enemy = this.enemies.get(i);
+            enemy.savePreviousState();
+            enemy.followAndAttack(this.player);
+            enemy.updateGravity(this.getSolarSystemAt(enemy.pos.x, enemy.pos.y));
+            enemy.update(dt);
+            this.entityHash.update(enemy.hashId, enemy.pos.x, enemy.pos.y);
+        }
+        FrameProfiler.end(FrameProfiler.Section.ENEMIES, t);
+
+        this.trajectoryPredictor.request(this.player, this.getCurrentSolarSystem(), dt);
+
+        FrameProfiler.end(FrameProfiler.Section.TICK, tickStart);
+
+        if (event == null)
+            return;
+        event.end();
+        if (event.shouldCommit()) {
+            for (int k = 0; k < this.solarSystems.size(); k++)
+                event.bodies += this.solarSystems.get(k).getCelestrialBodies().size();
+            event.particles = this.player.getParticleCount();
+            event.enemies = this.enemies.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Updates the solar systems by their level of detail, which goes by the distance in
+     * sectors (diagonals count as one) from the system the player is in:
+     *   full     up to GAME_CONSTANT.LOD_FULL_RADIUS, updated every tick
+     *   reduced  up to GAME_CONSTANT.LOD_REDUCED_RADIUS, updated every LOD_REDUCED_TICKS ticks
+     *            with a proportionally longer step; not all on the same tick
+     *   dormant  further out, not updated at all
+     * Every system keeps count of the ticks it missed and catches up on them when it is
+     * updated again, so the orbits are where they would be had it been updated all along.
+     * A system waking up from dormancy catches up over several of its updates, so crossing
+     * into a new ring of sectors does not stall the tick; the player's system always
+     * catches up at once. The systems around a sector the player enters are generated then
+     * (see loadSolarSystems()); of the ones further out, only the recently used stay held.
+     * The system of the package target is never dormant, as the HUD points at it.
+     * The due systems are updated together by the SolarSystemStepper, in parallel when
+     * there are enough of them; the enemies only move once all of them are done.
+     *
+     * @param dt The tick length in seconds.
+     */
+    private void updateSolarSystems(double dt) {
+        long playerX = Sector.of(this.player.pos.x);
+        long playerY = Sector.of(this.player.pos.y);
+        SolarSystem target = this.packageManager.getSolarSystem();
+        if (playerX != this.loadedX || playerY != this.loadedY)
+            this.loadSolarSystems(playerX, playerY);
+        this.solarSystems.keep(playerX, playerY, GAME_CONSTANT.LOD_REDUCED_RADIUS, target);
+
+        this.stepper.clear();
+        for (int k = 0; k < this.solarSystems.size(); k++) {
+            SolarSystem system = this.solarSystems.get(k);
+            long distance = Math.max(Math.abs(this.solarSystems.getSectorX(k) - playerX),
+                    Math.abs(this.solarSystems.getSectorY(k) - playerY));
+
+            // this tick is deferred as well and simulated by the catch-up
+            system.defer(dt);
+            if (distance <= GAME_CONSTANT.LOD_FULL_RADIUS) {
+                this.stepper.add(system, Integer.MAX_VALUE);
+            } else {
+                boolean reduced = distance <= GAME_CONSTANT.LOD_REDUCED_RADIUS || system == target;
+                if (reduced && (this.tick + k) % GAME_CONSTANT.LOD_REDUCED_TICKS == 0)
+                    this.stepper.add(system, GAME_CONSTANT.LOD_CATCH_UP_UPDATES);
+            }
+        }
+        this.stepper.run();
+        this.solarSystems.advance(dt);
+        this.tick++;
+    }
+
+    /**
+     * Copies the render state of the world into a snapshot.
+     * Only the bodies of the solar system the player is in are copied. Positions are taken
+     * relative to the center of the player's Sector, the snapshot's origin.
+     *
+     * @param snapshot The snapshot to fill.
+     */
+    public void writeTo(WorldSnapshot snapshot) {
+        // the floating origin moves with the ship from sector to sector
+        snapshot.originX = Sector.center(Sector.of(this.player.pos.x));
+        snapshot.originY = Sector.center(Sector.of(this.player.pos.y));
+        this.camera.writeTo(snapshot);
+        this.player.writeTo(snapshot);
+
+        snapshot.setEnemyCount(this.enemies.size());
+        for (int i = 0; i < this.enemies.size(); i++)
+            this.enemies.get(i).writeTo(snapshot, i);
+
+        SolarSystem currentSolarSystem = this.getCurrentSolarSystem();
+        if (currentSolarSystem != null)
+            currentSolarSystem.writeTo(snapshot);
+        else
+            snapshot.setBodyCount(0);
+
+        this.packageManager.writeTo(snapshot);
+        this.trajectoryPredictor.writeTo(snapshot);
+    }
+
+    // Getter method to retrieve the solar system the player is currently in, generated if it is not held
+    public SolarSystem getCurrentSolarSystem() {
+        return this.solarSystems.get(Sector.of(this.player.pos.x), Sector.of(this.player.pos.y));
+    }
+
+    // The solar system of the sector holding a point in pixels, or null when it is not held
+    public SolarSystem getSolarSystemAt(double px, double py) {
+        return this.solarSystems.find(Sector.of(px), Sector.of(py));
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public Player getPlayer() {
+        return this.player;
+    }
+
+    public Camera getCamera() {
+        return this.camera;
+    }
+
+    // The solar systems held at the moment
+    public SolarSystemCache getSolarSystems() {
+        return this.solarSystems;
+    }
+
+    public ArrayList<Enemy> getEnemies() {
+        return this.enemies;
+    }
+
+    public TrajectoryPredictor getTrajectoryPredictor() {
+        return this.trajectoryPredictor;
+    }
+
+    // The ship and the enemies, as of the end of the last tick
+    public SpatialHash<Entity> getEntityHash() {
+        return this.entityHash;
+    }
+}
@@ -0,0 +1,32 @@
+package Game;
+
+/**
+ * GravitySolver interface computes the gravitational field of the bodies of a BodyStore.
+ * The field at a point is the sum of m * d / |d|^3 over the bodies, where d is the vector
+ * from the point to the body; multiplied by G and the mass of whatever sits at the point
+ * it gives the force in N. Black holes do not take part, they only pull on the ship.
+ *
+ * prepare() is called once per tick before the first field() of the tick, so solvers that
+ * build a structure over the bodies (see BarnesHutSolver) can do that once and answer all
+ * queries of the tick from it. DirectGravitySolver is the exact reference.
+ */
+public interface GravitySolver {
+
+    /**
+     * Gets the solver ready for the current positions of the bodies.
+     *
+     * @param bodies the bodies of one solar system
+     */
+    void prepare(BodyStore bodies);
+
+    /**
+     * Computes the field at a point.
+     *
+     * @param bodies the bodies passed to the last prepare()
+     * @param x      x-coordinate of the point in AU scale
+     * @param y      y-coordinate of the point in AU scale
+     * @param skip   index of a body to leave out (the body the point belongs to), or -1
+     * @param out    receives the field, {x, y}
+     */
+    void field(BodyStore bodies, double x, double y, int skip, double[] out);
+}
@@ -0,0 +1,153 @@
+package Game;
+
+import Game.Constant.GAME_CONSTANT;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * HeadlessRunner class steps a GameWorld without a window, as fast as the machine allows.
+ * It is meant for soak and regression runs on build agents:
+ *
+ *     java -Djava.awt.headless=true -cp bin Game.HeadlessRunner [ticks] [options]
+ *
+ *   --seed <n>       world seed (default 1)
+ *   --record <file>  record the ticks that were run, for later replays
+ *   --replay <file>  replay a recording (made in the game or here) instead of the script
+ *   --render         also draw every tick into an offscreen image, so the times are frame times
+ *   --simd           sum gravity with the Vector API (needs --add-modules jdk.incubator.vector)
+ *   --gravity-grid <cells>  read the pull of the suns and black holes from a StaticGravityGrid
+ *
+ * Without a replay the ship flies a scripted pattern (thrusting in bursts while the mouse
+ * circles the screen) so that gravity, landing and the particle trail are all exercised.
+ * A replay of a real flight reproduces it exactly, which makes it a repeatable frame-time
+ * regression benchmark. A replay also brings the seed, tick rate and simulation settings it
+ * was recorded with.
+ * At the end it prints how much faster than real time the simulation ran and the tick time
+ * percentiles, and exits with status 1 if the ship position ever stopped being a finite number.
+ */
+public class HeadlessRunner {
+    private static final int DEFAULT_TICKS = 600_000; // ~2.8 hours of game time
+    private static final long DEFAULT_SEED = 1;
+
+    public static void main(String[] args) throws IOException {
+        int ticks = DEFAULT_TICKS;
+        long seed = DEFAULT_SEED;
+        String recordPath = null;
+        String replayPath = null;
+        boolean render = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--record" -> recordPath = args[++i];
+                case "--replay" -> replayPath = args[++i];
+                case "--render" -> render = true;
+                case "--simd" -> GAME_CONSTANT.SIMD_GRAVITY = true;
+                case "--gravity-grid" -> GAME_CONSTANT.STATIC_GRAVITY_GRID = Integer.parseInt(args[++i]);
+                default -> ticks = Integer.parseInt(args[i]);
+            }
+        }
+
+        InputReplay replay = replayPath == null ? null : new InputReplay(replayPath);
+        int tickRate = GAME_CONSTANT.FPS_SET;
+        if (replay != null) {
+            seed = replay.getSeed();
+            tickRate = replay.getTickRate();
+            replay.applySettings();
+        }
+        double dt = 1.0 / tickRate;
+
+        GameWorld world = new GameWorld(seed);
+        InputState input = new InputState();
+        InputRecorder recorder = recordPath == null ? null : new InputRecorder(recordPath, seed, tickRate);
+
+        WorldSnapshot snapshot = render ? new WorldSnapshot() : null;
+        WorldRenderer renderer = render ? new WorldRenderer() : null;
+        BufferedImage image = render
+                ? new BufferedImage(GAME_CONSTANT.WINDOW_WIDTH, GAME_CONSTANT.WINDOW_HEIGHT, BufferedImage.TYPE_INT_RGB)
+                : null;
+        if (snapshot != null)
+            snapshot.state = GameState.PLAYING;
+
+        long[] tickNs = new long[1 << 16];
+        int tick = 0;
+        long start = System.nanoTime();
+        while (replay != null ? replay.next(input) : tick < ticks) {
+            if (replay == null)
+                scriptInput(input, tick);
+
+            long tickStart = System.nanoTime();
+            world.step(input, dt);
+            if (render) {
+                world.writeTo(snapshot);
+                Graphics2D g = image.createGraphics();
+                g.setColor(GAME_CONSTANT.SPACE_COLOR);
+                g.fillRect(0, 0, image.getWidth(), image.getHeight());
+                renderer.render(g, snapshot);
+                g.dispose();
+            }
+            if (tick == tickNs.length)
+                tickNs = Arrays.copyOf(tickNs, tickNs.length * 2);
+            tickNs[tick] = System.nanoTime() - tickStart;
+
+            if (recorder != null)
+                recorder.record(input);
+
+            Player player = world.getPlayer();
+            if (!Double.isFinite(player.pos.x) || !Double.isFinite(player.pos.y)) {
+                System.err.println("Ship position became " + player.pos + " at tick " + tick);
+                System.exit(1);
+            }
+            tick++;
+        }
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+        double gameSeconds = tick * dt;
+
+        if (recorder != null)
+            recorder.close();
+        if (replay != null)
+            replay.close();
+
+        System.out.printf("%d ticks (%.0f s game time) in %.2f s: %.0f ticks/s, %.0fx real time%n",
+                tick, gameSeconds, wallSeconds, tick / wallSeconds, gameSeconds / wallSeconds);
+        printPercentiles(render ? "frame" : "tick", tickNs, tick);
+        System.out.println("Seed " + seed + ", final ship position: " + world.getPlayer().getPos());
+    }
+
+    /**
+     * Fills the controls for a tick: the mouse circles the screen center once every
+     * ten seconds, and the main engine fires for two seconds out of every five.
+     * The mouse is kept on whole pixels like real mouse input, so a recording of the
+     * script replays exactly.
+     */
+    private static void scriptInput(InputState input, int tick) {
+        double seconds = tick / (double) GAME_CONSTANT.FPS_SET;
+        double aim = seconds * 2 * Math.PI / 10;
+
+        input.clear();
+        input.mouseX = Math.round(GAME_CONSTANT.WINDOW_WIDTH / 2.0 + Math.cos(aim) * 200);
+        input.mouseY = Math.round(GAME_CONSTANT.WINDOW_HEIGHT / 2.0 + Math.sin(aim) * 200);
+        input.thrust = seconds % 5 < 2;
+    }
+
+    // Prints the mean and the percentiles of the first n durations
+    private static void printPercentiles(String what, long[] durations, int n) {
+        if (n == 0)
+            return;
+        long[] sorted = Arrays.copyOf(durations, n);
+        Arrays.sort(sorted);
+        double sum = 0;
+        for (long d : sorted)
+            sum += d;
+
+        System.out.printf("%s time (ms): mean %.3f  p50 %.3f  p90 %.3f  p99 %.3f  p99.9 %.3f  max %.3f%n", what,
+                sum / n / 1e6, percentile(sorted, 0.5) / 1e6, percentile(sorted, 0.9) / 1e6,
+                percentile(sorted, 0.99) / 1e6, percentile(sorted, 0.999) / 1e6, sorted[n - 1] / 1e6);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.max(0, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
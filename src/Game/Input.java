@@ -59,6 +59,14 @@ public class Input implements KeyListener, MouseListener, MouseMotionListener, M
         return keys[KeyEvent.VK_R];
     }
 
+    public static boolean isProfilerTogglePressed(){
+        return keys[KeyEvent.VK_F3];
+    }
+
+    public static boolean isProfilerDumpPressed(){
+        return keys[KeyEvent.VK_F4];
+    }
+
     public static Vector2D getMouseRelativeToScreen() {
         return new Vector2D(mousePos.x, mousePos.y);
     }
@@ -78,6 +86,23 @@ public class Input implements KeyListener, MouseListener, MouseMotionListener, M
         scrollRotation = 0;
     }
 
+    /**
+     * Copies the current controls into an InputState for the next simulation tick.
+     * The scroll rotation is consumed, so every wheel movement reaches exactly one tick.
+     *
+     * @param out The state to fill.
+     */
+    public static void sample(InputState out) {
+        out.thrust = isThrusting();
+        out.leftThrust = isLeftThrusting();
+        out.rightThrust = isRightThrusting();
+        out.resetZoom = isResetZoomPressed();
+        out.mouseX = mousePos.x;
+        out.mouseY = mousePos.y;
+        out.scroll = scrollRotation;
+        resetScrollRotation();
+    }
+
     @Override
     public void keyTyped(KeyEvent e) {
     }
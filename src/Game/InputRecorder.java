@@ -0,0 +1,123 @@
+package Game;
+
+import Game.Constant.GAME_CONSTANT;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * InputRecorder class writes the controls of every simulation tick to a binary file, so a
+ * session can be played back exactly with InputReplay.
+ * Together with the world seed and the simulation settings the input sequence fully
+ * determines the game, because the GameWorld only reads its controls from InputState and
+ * draws all randomness from the seed.
+ *
+ * File format (big endian, as written by DataOutputStream):
+ *   int MAGIC, short VERSION, long world seed, int tick rate
+ *   then the GAME_CONSTANT settings the simulation depends on, as they were when the
+ *   recording started:
+ *     UTF integrator, double orbit timestep, boolean Kepler rails,
+ *     int full LOD radius, int reduced LOD radius, boolean parallel systems,
+ *     boolean SIMD gravity, int gravity grid cells
+ *   then one record per tick:
+ *     byte flags: thrust, left thrust, right thrust, reset zoom, mouse moved, scrolled
+ *     short mouseX, short mouseY   only if the mouse moved since the previous tick
+ *     byte scroll                  only if the wheel moved
+ * A tick without mouse movement or scrolling takes a single byte, about 3.5 KB per minute.
+ * Mouse positions are whole window pixels and the wheel rotation whole notches, which is all
+ * AWT reports; fractional values are rounded before they are written.
+ */
+public class InputRecorder implements Closeable {
+    static final int MAGIC = 0x4D535250; // "MSRP"
+    static final short VERSION = 7;
+
+    static final int THRUST = 1;
+    static final int LEFT_THRUST = 1 << 1;
+    static final int RIGHT_THRUST = 1 << 2;
+    static final int RESET_ZOOM = 1 << 3;
+    static final int MOUSE_MOVED = 1 << 4;
+    static final int SCROLLED = 1 << 5;
+
+    private final DataOutputStream out;
+
+    private int lastMouseX = 0;
+    private int lastMouseY = 0;
+    private long tickCount = 0;
+
+    /**
+     * Constructor for the InputRecorder class.
+     * Creates the file and writes the header, with the simulation settings as they are now.
+     *
+     * @param path     the file to write
+     * @param seed     the seed of the recorded world
+     * @param tickRate the simulation ticks per second of the recorded world
+     */
+    public InputRecorder(String path, long seed, int tickRate) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+        this.out.writeInt(MAGIC);
+        this.out.writeShort(VERSION);
+        this.out.writeLong(seed);
+        this.out.writeInt(tickRate);
+        this.out.writeUTF(GAME_CONSTANT.INTEGRATOR.name());
+        this.out.writeDouble(GAME_CONSTANT.ORBIT_TIMESTEP);
+        this.out.writeBoolean(GAME_CONSTANT.KEPLER_RAILS);
+        this.out.writeInt(GAME_CONSTANT.LOD_FULL_RADIUS);
+        this.out.writeInt(GAME_CONSTANT.LOD_REDUCED_RADIUS);
+        this.out.writeBoolean(GAME_CONSTANT.PARALLEL_SYSTEMS);
+        this.out.writeBoolean(GAME_CONSTANT.SIMD_GRAVITY);
+        this.out.writeInt(GAME_CONSTANT.STATIC_GRAVITY_GRID);
+    }
+
+    /**
+     * Appends the controls of one tick.
+     *
+     * @param input the controls the world was stepped with
+     */
+    public synchronized void record(InputState input) throws IOException {
+        int mouseX = clampToShort(input.mouseX);
+        int mouseY = clampToShort(input.mouseY);
+        int scroll = (int) Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, Math.round(input.scroll)));
+
+        int flags = 0;
+        if (input.thrust)
+            flags |= THRUST;
+        if (input.leftThrust)
+            flags |= LEFT_THRUST;
+        if (input.rightThrust)
+            flags |= RIGHT_THRUST;
+        if (input.resetZoom)
+            flags |= RESET_ZOOM;
+        if (this.tickCount == 0 || mouseX != this.lastMouseX || mouseY != this.lastMouseY)
+            flags |= MOUSE_MOVED;
+        if (scroll != 0)
+            flags |= SCROLLED;
+
+        this.out.writeByte(flags);
+        if ((flags & MOUSE_MOVED) != 0) {
+            this.out.writeShort(mouseX);
+            this.out.writeShort(mouseY);
+            this.lastMouseX = mouseX;
+            this.lastMouseY = mouseY;
+        }
+        if ((flags & SCROLLED) != 0)
+            this.out.writeByte(scroll);
+
+        this.tickCount++;
+    }
+
+    public synchronized long getTickCount() {
+        return this.tickCount;
+    }
+
+    // Flushes the remaining ticks and closes the file
+    @Override
+    public synchronized void close() throws IOException {
+        this.out.close();
+    }
+
+    private static int clampToShort(double value) {
+        return (int) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value)));
+    }
+}
@@ -0,0 +1,137 @@
+package Game;
+
+import Game.Constant.GAME_CONSTANT;
+import Game.Constant.Integrator;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * InputReplay class reads a file written by InputRecorder back one tick at a time.
+ * Stepping a GameWorld created with getSeed() at getTickRate(), after applySettings(), with
+ * the replayed controls reproduces the recorded session exactly, in the game window or
+ * headless at full speed.
+ */
+public class InputReplay implements Closeable {
+    private final DataInputStream in;
+    private final long seed;
+    private final int tickRate;
+    private final Integrator integrator;
+    private final double orbitTimestep;
+    private final boolean keplerRails;
+    private final int lodFullRadius;
+    private final int lodReducedRadius;
+    private final boolean parallelSystems;
+    private final boolean simdGravity;
+    private final int staticGravityGrid;
+
+    private double mouseX = 0;
+    private double mouseY = 0;
+    private long tickCount = 0;
+
+    /**
+     * Constructor for the InputReplay class.
+     * Opens the file and reads the header.
+     *
+     * @param path the file written by InputRecorder
+     * @throws IOException if the file cannot be read or is not an input recording
+     */
+    public InputReplay(String path) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)));
+        try {
+            if (this.in.readInt() != InputRecorder.MAGIC)
+                throw new IOException(path + " is not an input recording");
+            short version = this.in.readShort();
+            if (version != InputRecorder.VERSION)
+                throw new IOException(path + " has unsupported recording version " + version);
+            this.seed = this.in.readLong();
+            this.tickRate = this.in.readInt();
+            String integrator = this.in.readUTF();
+            try {
+                this.integrator = Integrator.valueOf(integrator);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(path + " was recorded with unknown integrator " + integrator);
+            }
+            this.orbitTimestep = this.in.readDouble();
+            this.keplerRails = this.in.readBoolean();
+            this.lodFullRadius = this.in.readInt();
+            this.lodReducedRadius = this.in.readInt();
+            this.parallelSystems = this.in.readBoolean();
+            this.simdGravity = this.in.readBoolean();
+            this.staticGravityGrid = this.in.readInt();
+        } catch (IOException e) {
+            this.in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the controls of the next tick.
+     *
+     * @param out the state to fill
+     * @return false when the recording has ended, out is left unchanged then
+     */
+    public boolean next(InputState out) throws IOException {
+        int flags = this.in.read();
+        if (flags < 0)
+            return false;
+
+        double scroll;
+        try {
+            if ((flags & InputRecorder.MOUSE_MOVED) != 0) {
+                this.mouseX = this.in.readShort();
+                this.mouseY = this.in.readShort();
+            }
+            scroll = (flags & InputRecorder.SCROLLED) != 0 ? this.in.readByte() : 0;
+        } catch (EOFException e) {
+            // the recording was cut off in the middle of a tick, e.g. by a crash
+            return false;
+        }
+
+        out.thrust = (flags & InputRecorder.THRUST) != 0;
+        out.leftThrust = (flags & InputRecorder.LEFT_THRUST) != 0;
+        out.rightThrust = (flags & InputRecorder.RIGHT_THRUST) != 0;
+        out.resetZoom = (flags & InputRecorder.RESET_ZOOM) != 0;
+        out.mouseX = this.mouseX;
+        out.mouseY = this.mouseY;
+        out.scroll = scroll;
+        this.tickCount++;
+        return true;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public int getTickRate() {
+        return this.tickRate;
+    }
+
+    /**
+     * Sets the GAME_CONSTANT settings the simulation depends on back to the ones the
+     * recording was made with. Call it before the GameWorld is created.
+     */
+    public void applySettings() {
+        GAME_CONSTANT.INTEGRATOR = this.integrator;
+        GAME_CONSTANT.ORBIT_TIMESTEP = this.orbitTimestep;
+        GAME_CONSTANT.KEPLER_RAILS = this.keplerRails;
+        GAME_CONSTANT.LOD_FULL_RADIUS = this.lodFullRadius;
+        GAME_CONSTANT.LOD_REDUCED_RADIUS = this.lodReducedRadius;
+        GAME_CONSTANT.PARALLEL_SYSTEMS = this.parallelSystems;
+        GAME_CONSTANT.SIMD_GRAVITY = this.simdGravity;
+        GAME_CONSTANT.STATIC_GRAVITY_GRID = this.staticGravityGrid;
+    }
+
+    // Number of ticks read so far
+    public long getTickCount() {
+        return this.tickCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+}
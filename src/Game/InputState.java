@@ -0,0 +1,30 @@
+package Game;
+
+/**
+ * InputState class is a plain copy of the player controls for one simulation tick.
+ * The game world only reads its input from an InputState, never from the keyboard or
+ * mouse directly, so it can be stepped without a window (headless runs, replays).
+ * Input.sample() fills it from the live AWT listeners when playing interactively.
+ * The mouse position is in screen coordinates; scroll is the wheel rotation since the last tick.
+ */
+public class InputState {
+    public boolean thrust;
+    public boolean leftThrust;
+    public boolean rightThrust;
+    public boolean resetZoom;
+
+    public double mouseX;
+    public double mouseY;
+    public double scroll;
+
+    // Reset to no keys pressed, mouse at the top-left corner and no scrolling
+    public void clear() {
+        this.thrust = false;
+        this.leftThrust = false;
+        this.rightThrust = false;
+        this.resetZoom = false;
+        this.mouseX = 0;
+        this.mouseY = 0;
+        this.scroll = 0;
+    }
+}
@@ -0,0 +1,277 @@
+package Game;
+
+import Game.Constant.PHYSICS_CONSTANT;
+import java.util.Arrays;
+
+/**
+ * KeplerRails class holds the orbital elements of the bodies of a BodyStore that move "on
+ * rails": instead of being integrated tick by tick, their position at any time t comes out
+ * of Kepler's equation in closed form. That costs the same for every t, never drifts, and
+ * can be asked for any moment in the past or future.
+ * The elements describe an ellipse around the parent body, which must not move itself
+ * (the sun). They are fitted from the body's position and velocity relative to the parent;
+ * only bound orbits (eccentricity below 1) can be fitted.
+ * In the plane an orbit is given by
+ *   a      semi-major axis
+ *   e      eccentricity
+ *   omega  angle of the periapsis
+ *   m0     mean anomaly at the epoch t0
+ *   n      mean motion sqrt(mu / a^3), radians per second
+ *   dir    +1 for counterclockwise orbits, -1 for clockwise ones
+ * All arrays are indexed like the BodyStore. The sine and cosine of omega and the semi-minor
+ * to semi-major ratio are kept as well, so a propagation costs little beyond solving
+ * Kepler's equation. propagate() starts that solve from the eccentric anomaly of the body's
+ * last propagation, which a tick later is so close that one or two Newton iterations do.
+ */
+public class KeplerRails {
+    // Newton iterations stop when Kepler's equation holds to this many radians (a meter at 4 AU)
+    private static final double TOLERANCE = 1e-12;
+    // below this error one more Newton step lands within the tolerance
+    private static final double LAST_STEP = 1e-6;
+    private static final int MAX_ITERATIONS = 30;
+    private static final double TWO_PI = 2 * Math.PI;
+
+    private boolean[] onRails = new boolean[8];
+    private double[] a = new double[8];
+    private double[] e = new double[8];
+    private double[] omega = new double[8];
+    private double[] m0 = new double[8];
+    private double[] t0 = new double[8];
+    private double[] n = new double[8];
+    private double[] dir = new double[8];
+    private double[] cosOmega = new double[8];
+    private double[] sinOmega = new double[8];
+    private double[] ratio = new double[8]; // sqrt(1 - e^2)
+    // orbits fitted per body so far, so whoever keeps something derived from them can tell a new fit
+    private int[] fits = new int[8];
+
+    // mean and eccentric anomaly of the last propagation, the start of the next solve
+    private double[] lastM = new double[8];
+    private double[] lastE = new double[8];
+    private double[] lastCosE = new double[8];
+
+    // sine and cosine of the anomaly solve() returned
+    private double sinE;
+    private double cosE;
+
+    // scratch for propagate()
+    private final double[] state = new double[4];
+
+    private int railsCount = 0;
+
+    // Makes room for body indices below capacity
+    void ensureCapacity(int capacity) {
+        if (capacity <= this.onRails.length)
+            return;
+        int size = Math.max(capacity, this.onRails.length * 2);
+        this.onRails = Arrays.copyOf(this.onRails, size);
+        this.a = Arrays.copyOf(this.a, size);
+        this.e = Arrays.copyOf(this.e, size);
+        this.omega = Arrays.copyOf(this.omega, size);
+        this.m0 = Arrays.copyOf(this.m0, size);
+        this.t0 = Arrays.copyOf(this.t0, size);
+        this.n = Arrays.copyOf(this.n, size);
+        this.dir = Arrays.copyOf(this.dir, size);
+        this.cosOmega = Arrays.copyOf(this.cosOmega, size);
+        this.sinOmega = Arrays.copyOf(this.sinOmega, size);
+        this.ratio = Arrays.copyOf(this.ratio, size);
+        this.fits = Arrays.copyOf(this.fits, size);
+        this.lastM = Arrays.copyOf(this.lastM, size);
+        this.lastE = Arrays.copyOf(this.lastE, size);
+        this.lastCosE = Arrays.copyOf(this.lastCosE, size);
+    }
+
+    public boolean isOnRails(int i) {
+        return this.onRails[i];
+    }
+
+    // Number of bodies currently on rails
+    public int getRailsCount() {
+        return this.railsCount;
+    }
+
+    /**
+     * Fits the orbit of body i around its parent from the current state and puts it on rails.
+     *
+     * @param bodies the store holding the body and its parent
+     * @param i      index of the body
+     * @param parent index of the body it orbits, which must stay where it is
+     * @param time   simulated time of the current state, becomes the epoch
+     * @return false, leaving the body off rails, when the orbit is not bound
+     */
+    boolean fit(BodyStore bodies, int i, int parent, double time) {
+        double rx = bodies.x[i] - bodies.x[parent];
+        double ry = bodies.y[i] - bodies.y[parent];
+        double vx = bodies.vx[i] - bodies.vx[parent];
+        double vy = bodies.vy[i] - bodies.vy[parent];
+        double gm = PHYSICS_CONSTANT.G * bodies.mass[parent];
+
+        double r = Math.sqrt(rx * rx + ry * ry);
+        double vSq = vx * vx + vy * vy;
+        double h = rx * vy - ry * vx; // angular momentum per mass
+        double inverseA = 2 / r - vSq / gm;
+        if (r == 0 || h == 0 || inverseA <= 0)
+            return false; // falling straight in, or not bound
+
+        // eccentricity vector, pointing at the periapsis
+        double rv = rx * vx + ry * vy;
+        double ex = ((vSq - gm / r) * rx - rv * vx) / gm;
+        double ey = ((vSq - gm / r) * ry - rv * vy) / gm;
+        double ecc = Math.sqrt(ex * ex + ey * ey);
+        if (ecc >= 1)
+            return false;
+
+        double direction = Math.signum(h);
+        // a circle has no periapsis, measure from the current position instead
+        double periapsis = ecc > 1e-12 ? Math.atan2(ey, ex) : Math.atan2(ry, rx);
+        double trueAnomaly = direction * (Math.atan2(ry, rx) - periapsis);
+        double eccentricAnomaly = Math.atan2(Math.sqrt(1 - ecc * ecc) * Math.sin(trueAnomaly), ecc + Math.cos(trueAnomaly));
+
+        this.a[i] = 1 / inverseA;
+        this.e[i] = ecc;
+        this.omega[i] = periapsis;
+        this.m0[i] = eccentricAnomaly - ecc * Math.sin(eccentricAnomaly);
+        this.t0[i] = time;
+        this.n[i] = Math.sqrt(gm * inverseA * inverseA * inverseA);
+        this.dir[i] = direction;
+        this.cosOmega[i] = Math.cos(periapsis);
+        this.sinOmega[i] = Math.sin(periapsis);
+        this.ratio[i] = Math.sqrt(1 - ecc * ecc);
+        this.lastM[i] = this.m0[i];
+        this.lastE[i] = eccentricAnomaly;
+        this.lastCosE[i] = Math.cos(eccentricAnomaly);
+        this.fits[i]++;
+        if (!this.onRails[i])
+            this.railsCount++;
+        this.onRails[i] = true;
+        return true;
+    }
+
+    // Takes body i off rails; its position and velocity stay as last propagated
+    void release(int i) {
+        if (this.onRails[i])
+            this.railsCount--;
+        this.onRails[i] = false;
+    }
+
+    // Moves body i to where its orbit has it at time t, with the matching velocity
+    void propagate(BodyStore bodies, int i, int parent, double t) {
+        double meanAnomaly = this.meanAnomaly(i, t);
+        double ecc = this.e[i];
+        // the anomalies move together: dE = dM / (1 - e cos E)
+        double deltaM = wrap(meanAnomaly - this.lastM[i]);
+        double seed = this.lastE[i] + deltaM / (1 - ecc * this.lastCosE[i]);
+        double eccentricAnomaly = this.solve(meanAnomaly, ecc, seed);
+        this.lastM[i] = meanAnomaly;
+        this.lastE[i] = eccentricAnomaly;
+        this.lastCosE[i] = this.cosE;
+
+        double[] s = this.state;
+        this.write(bodies, i, parent, s);
+        bodies.x[i] = s[0];
+        bodies.y[i] = s[1];
+        bodies.vx[i] = s[2];
+        bodies.vy[i] = s[3];
+    }
+
+    /**
+     * Computes where the orbit of body i has it at time t.
+     *
+     * @param bodies the store holding the body and its parent
+     * @param i      index of a body on rails
+     * @param parent index of the body it orbits
+     * @param t      simulated time, before or after the epoch
+     * @param out    receives {x, y, vx, vy} in AU scale
+     */
+    void stateAt(BodyStore bodies, int i, int parent, double t, double[] out) {
+        double meanAnomaly = this.meanAnomaly(i, t);
+        double ecc = this.e[i];
+        // M + e sin M is already close for small e
+        double seed = ecc < 0.8 ? meanAnomaly + ecc * Math.sin(meanAnomaly) : Math.PI * Math.signum(meanAnomaly);
+        this.solve(meanAnomaly, ecc, seed);
+        this.write(bodies, i, parent, out);
+    }
+
+    // Position and velocity of body i at the eccentric anomaly of the last solve()
+    private void write(BodyStore bodies, int i, int parent, double[] out) {
+        double ecc = this.e[i];
+        double cosE = this.cosE;
+        double sinE = this.sinE;
+        double b = this.ratio[i];
+        double semiMajor = this.a[i];
+
+        // position and velocity in the frame of the ellipse, periapsis on the +x axis
+        double px = semiMajor * (cosE - ecc);
+        double py = semiMajor * b * sinE * this.dir[i];
+        double speed = semiMajor * this.n[i] / (1 - ecc * cosE);
+        double qx = -speed * sinE;
+        double qy = speed * b * cosE * this.dir[i];
+
+        double cosW = this.cosOmega[i];
+        double sinW = this.sinOmega[i];
+        out[0] = bodies.x[parent] + px * cosW - py * sinW;
+        out[1] = bodies.y[parent] + px * sinW + py * cosW;
+        out[2] = bodies.vx[parent] + qx * cosW - qy * sinW;
+        out[3] = bodies.vy[parent] + qx * sinW + qy * cosW;
+    }
+
+    // Mean anomaly of body i at time t, wrapped into [-pi, pi)
+    private double meanAnomaly(int i, double t) {
+        return wrap(this.m0[i] + this.n[i] * (t - this.t0[i]));
+    }
+
+    private static double wrap(double angle) {
+        return angle - TWO_PI * Math.floor((angle + Math.PI) / TWO_PI);
+    }
+
+    /**
+     * Solves Kepler's equation E - e sin E = M for the eccentric anomaly E with Newton's
+     * method and leaves its sine and cosine in sinE and cosE.
+     *
+     * @param meanAnomaly M in [-pi, pi)
+     * @param ecc         e in [0, 1)
+     * @param anomaly     first guess for E
+     */
+    private double solve(double meanAnomaly, double ecc, double anomaly) {
+        for (int k = 0; k < MAX_ITERATIONS; k++) {
+            double sin = Math.sin(anomaly);
+            double cos = Math.cos(anomaly);
+            double error = anomaly - ecc * sin - meanAnomaly;
+            this.sinE = sin;
+            this.cosE = cos;
+            if (Math.abs(error) < TOLERANCE)
+                break;
+            double delta = error / (1 - ecc * cos);
+            anomaly -= delta;
+            if (Math.abs(error) < LAST_STEP) {
+                // turn the sine and cosine by the small delta instead of evaluating them again
+                this.sinE = sin - delta * cos;
+                this.cosE = cos + delta * sin;
+                break;
+            }
+        }
+        return anomaly;
+    }
+    // Orbital period of body i in simulated seconds
+    public double getPeriod(int i) {
+        return 2 * Math.PI / this.n[i];
+    }
+
+    public double getEccentricity(int i) {
+        return this.e[i];
+    }
+
+    public double getSemiMajorAxis(int i) {
+        return this.a[i];
+    }
+
+    // Angle of the periapsis in radians
+    public double getPeriapsisAngle(int i) {
+        return this.omega[i];
+    }
+
+    // Number of times an orbit was fitted for body i; the elements above change only with it
+    public int getFitCount(int i) {
+        return this.fits[i];
+    }
+}
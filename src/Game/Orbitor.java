@@ -1,30 +1,31 @@
 package Game;
 
 import Game.Constant.GAME_CONSTANT;
+import Game.Constant.RenderMode;
 import Game.GameState;
+import Game.jfr.FrameEvent;
 import Game.ui.GameMenu;
 import Game.ui.InstructionMenu;
 import Game.ui.SettingsMenu;
+import Game.utils.FpsCounter;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.Random;
+import java.io.IOException;
+import jdk.jfr.EventType;
 
 /**
  * Orbitor class represents the main game panel where the player can navigate
  * through a solar system.
- * It handles the game loop, input, rendering, and updates for the player and
- * solar systems.
+ * It is a thin view over the GameWorld simulation core: it runs the game loop,
+ * feeds keyboard and mouse input into the world, handles the menus and renders
+ * the snapshots the world publishes.
+ * The controls of every tick can be recorded to a file and played back later
+ * (see InputRecorder), which reproduces the session exactly.
  * It extends JPanel and implements Runnable to create a game thread.
- * The game starts with a player at the center of the screen and a camera that
- * follows the player.
- * The solar system is loaded with a root celestrial body (the sun) and other
- * celestrial bodies (planets).
- * The game updates the player position, camera position, and solar system every
- * frame.
- * It also renders the player and solar system on the screen.
- * The game runs at a fixed frame rate defined by GAME_CONSTANT.FPS_SET.
+ * The game is simulated at the fixed tick rate GAME_CONSTANT.FPS_SET and drawn at
+ * up to GAME_CONSTANT.FPS_CAP frames per second, interpolated between ticks; with
+ * the cap at 0 the render thread draws continuously.
  * The game panel is set to a preferred size and background color defined in
  * GAME_CONSTANT.
  * The game can be extended to include more features such as collision
@@ -33,44 +34,56 @@ import java.util.Random;
  * updates and rendering.
  */
 public class Orbitor extends JPanel implements Runnable {
+	// a FrameEvent is only created while a recording has it enabled, a frame creates no garbage
+	private static final EventType FRAME_EVENT = EventType.getEventType(FrameEvent.class);
+
 	final private Input input;
-	final private Player player;
-	final private Camera camera;
+
+	// Simulation core and the controls sampled for it every tick
+	private final GameWorld world;
+	private final InputState inputState = new InputState();
+
+	// Input recording of this session and the recording being played back, null when off
+	private volatile InputRecorder recorder;
+	private InputReplay replay;
 
 	private Thread gameThread;
-	final private ArrayList<SolarSystem> solarSystems = new ArrayList<SolarSystem>();
+	private final FrameScheduler scheduler = new FrameScheduler(GAME_CONSTANT.FPS_SET, GAME_CONSTANT.FPS_CAP,
+			GAME_CONSTANT.MAX_CATCH_UP_TICKS, GAME_CONSTANT.SPIN_WINDOW_NS);
 
-	// Game menu
-	final private GameMenu gameMenu;
-	final private InstructionMenu instructionMenu;
-	final private SettingsMenu settingsMenu;
+	// Active rendering canvas, null when running in passive (repaint) mode
+	private final ActiveRenderer activeRenderer;
+	private final FpsCounter passiveFpsCounter = new FpsCounter();
 
-	// Number of background stars
-	private static final int STAR_COUNT = 200;
+	// Render state handed from the game thread to the renderer, and the renderer drawing it
+	private final SnapshotBuffer snapshots = new SnapshotBuffer();
+	private final WorldRenderer worldRenderer = new WorldRenderer(new ResolutionController(
+			GAME_CONSTANT.MIN_RENDER_SCALE, 1, GAME_CONSTANT.WORLD_RENDER_BUDGET_NS));
 
-	// Star container
-	private final ArrayList<Star> stars = new ArrayList<>();
+	// Serializes the EDT and the render thread while the canvas is being shown or hidden
+	private final Object renderLock = new Object();
 
-	// Enemies container
-	private final ArrayList<Enemy> enemies = new ArrayList<>();
+	// Profiler hotkey states of the previous tick, so holding a key acts only once
+	private boolean profilerToggleHeld = false;
+	private boolean profilerDumpHeld = false;
 
-	// Package delivery management system
-	private final PackageManager packageManager = new PackageManager();
+	// Game menu
+	final private GameMenu gameMenu;
+	final private InstructionMenu instructionMenu;
+	final private SettingsMenu settingsMenu;
 
 	/**
 	 * Constructor for the Orbitor class.
-	 * Initializes the player, camera, input handling, and starts the game.
+	 * Initializes the input handling and the menus, and starts the game.
 	 * Preparing the game panel.
 	 * Sets the preferred size and background color of the game panel.
 	 * Adds key and mouse listeners for input handling.
 	 */
 	public Orbitor() {
 
-		this.player = new Player(GAME_CONSTANT.GAME_WIDTH / 2.0 - 1000 - GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2.0,
-				GAME_CONSTANT.GAME_HEIGHT / 2.0 - 1000 - GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2.0);
-		this.camera = new Camera(GAME_CONSTANT.GAME_WIDTH / 2.0 - 1000 - GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2.0,
-				GAME_CONSTANT.GAME_HEIGHT / 2.0 - 1000 - GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2.0);
-		Input.setCamera(this.camera);
+		this.world = new GameWorld(this.openRecordings());
+		Input.setCamera(this.world.getCamera());
+		this.world.getTrajectoryPredictor().start();
 
 		this.setPreferredSize(new Dimension(GAME_CONSTANT.WINDOW_WIDTH, GAME_CONSTANT.WINDOW_HEIGHT));
 		this.setBackground(GAME_CONSTANT.SPACE_COLOR);
@@ -85,6 +98,19 @@ public class Orbitor extends JPanel implements Runnable {
 		this.addMouseMotionListener(this.input);
 		this.addMouseWheelListener(this.input);
 
+		// the canvas covers the whole panel, so it needs the same listeners
+		if (GAME_CONSTANT.RENDER_MODE == RenderMode.ACTIVE) {
+			this.activeRenderer = new ActiveRenderer(this::render);
+			this.activeRenderer.setContinuous(GAME_CONSTANT.FPS_CAP <= 0);
+			this.activeRenderer.setBounds(0, 0, GAME_CONSTANT.WINDOW_WIDTH, GAME_CONSTANT.WINDOW_HEIGHT);
+			this.activeRenderer.addKeyListener(this.input);
+			this.activeRenderer.addMouseListener(this.input);
+			this.activeRenderer.addMouseMotionListener(this.input);
+			this.activeRenderer.addMouseWheelListener(this.input);
+		} else {
+			this.activeRenderer = null;
+		}
+
 		// input focus
 		this.requestFocus();
 		this.StartGame();
@@ -101,107 +127,87 @@ public class Orbitor extends JPanel implements Runnable {
 		settingsMenu.audioSlider.setVisible(false);
 		settingsMenu.volumeLabel.setVisible(false);
 
+		if (this.activeRenderer != null) {
+			this.add(this.activeRenderer);
+			this.activeRenderer.start();
+		}
+
 		// --- MUSIC SETUP ---
 		MusicManager.init();
 
 	}
 
-	private void StartGame() {
-		this.loadSolarSystem();
-		this.generateStars();
-		this.generateEnemies();
-		this.gameThread = new Thread(this);
-		this.gameThread.start();
-		this.packageManager.generateNextPackage(solarSystems);
-	}
-
-	private void generateEnemies() {
-		Random rand = new Random();
-		for (int i = 0; i < 10; i++)
-			this.enemies.add(new Enemy(this.player.pos.x + rand.nextInt(-1000, 1000),
-					this.player.pos.y + rand.nextInt(-1000, 1000), (rand.nextDouble() + 1) * 2.5));
-	}
-
 	/**
-	 * Generate a default solar system with a sun and planets.
-	 * This method creates a solar system with a sun at the center and planets
-	 * orbiting around it.
+	 * Opens the replay and the recording requested on the command line.
+	 * A replay starts playing straight away and brings its own world seed and simulation
+	 * settings.
+	 *
+	 * @return the seed to create the world with
 	 */
-	private void loadSolarSystem() {
-
-		// SolarSystem solar = new SolarSystem((int)(GAME_CONSTANT.GAME_WIDTH / 2.0 -
-		// GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2.0),
-		// (int)(GAME_CONSTANT.GAME_HEIGHT / 2.0 - GAME_CONSTANT.SOLAR_SYSTEM_SIZE /
-		// 2.0));
-		// this.solarSystems.add(solar);
-
-		for (int i = 0; i < GAME_CONSTANT.GAME_HEIGHT_GRID; i++) {
-			for (int j = 0; j < GAME_CONSTANT.GAME_WIDTH_GRID; j++) {
-				SolarSystem solar = new SolarSystem(
-						j * GAME_CONSTANT.SOLAR_SYSTEM_SIZE + GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2,
-						i * GAME_CONSTANT.SOLAR_SYSTEM_SIZE + GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2);
-
-				this.solarSystems.add(solar);
-				System.out.println(solar.getRoot().getPos());
+	private long openRecordings() {
+		long seed = GAME_CONSTANT.WORLD_SEED;
+
+		if (GAME_CONSTANT.REPLAY_PATH != null) {
+			try {
+				this.replay = new InputReplay(GAME_CONSTANT.REPLAY_PATH);
+				if (this.replay.getTickRate() != GAME_CONSTANT.FPS_SET)
+					throw new IOException("recorded at " + this.replay.getTickRate() + " ticks per second, the game runs at "
+							+ GAME_CONSTANT.FPS_SET);
+				seed = this.replay.getSeed();
+				this.replay.applySettings();
+				GameState.state = GameState.PLAYING;
+			} catch (IOException e) {
+				System.err.println("Could not replay " + GAME_CONSTANT.REPLAY_PATH + ": " + e.getMessage());
+				this.replay = null;
 			}
 		}
-	}
 
-	/**
-	 * Populate background stars with random positions and depth.
-	 */
-	private void generateStars() {
-		Random rnd = new Random();
-		for (int i = 0; i < STAR_COUNT; i++) {
-			float depth = 0.01f + rnd.nextFloat() * 0.1f; // between 0.01 and 0.1
-			double x = rnd.nextDouble() * GAME_CONSTANT.WINDOW_WIDTH;
-			double y = rnd.nextDouble() * GAME_CONSTANT.WINDOW_HEIGHT;
-			this.stars.add(new Star(x, y, depth));
+		if (GAME_CONSTANT.RECORD_PATH != null) {
+			try {
+				this.recorder = new InputRecorder(GAME_CONSTANT.RECORD_PATH, seed, GAME_CONSTANT.FPS_SET);
+				// the game ends through System.exit, so the file is closed by a shutdown hook
+				Runtime.getRuntime().addShutdownHook(new Thread(this::stopRecording));
+			} catch (IOException e) {
+				System.err.println("Could not record to " + GAME_CONSTANT.RECORD_PATH + ": " + e.getMessage());
+			}
 		}
+		return seed;
+	}
+
+	private void StartGame() {
+		this.gameThread = new Thread(this);
+		this.gameThread.start();
 	}
 
 	/**
-	 * This method is the main game loop that runs at a fixed frame rate.
-	 * It calculates the time delta between frames and updates the game state
-	 * accordingly.
-	 * It also handles rendering the game components on the screen.
+	 * This method is the main game loop that runs at a fixed tick rate.
+	 * The frame scheduler advances the game state in fixed steps and paces
+	 * the frames to GAME_CONSTANT.FPS_CAP, sleeping in between so the game
+	 * thread does not occupy a whole core.
 	 */
 	@Override
 	public void run() {
-		final double nsPerSecond = 1_000_000_000.0;
-		long lastTime = System.nanoTime();
-		double accumulator = 0;
-		double nsPerFrame = nsPerSecond / GAME_CONSTANT.FPS_SET;
-
-		GameState currGameState = GameState.MENU;
-
-		// Game loop
-		while (true) {
-
-			long now = System.nanoTime();
-			double delta = now - lastTime;
-			lastTime = now;
-			accumulator += delta;
-
-			// Main Game
-			// only update & repaint when enough time has passed
-			while (accumulator >= nsPerFrame) {
-
-				double seconds = nsPerFrame / nsPerSecond;
-				this.update(seconds);
-				this.repaint();
-
-				accumulator -= nsPerFrame;
-
-			}
+		this.scheduler.run(this::update, this::presentFrame);
+	}
 
-		}
+	/**
+	 * Hands a finished tick to the screen.
+	 * In active mode the render thread draws onto the canvas. The canvas is
+	 * heavyweight and would hide the Swing slider, so the settings screen and
+	 * passive mode go through repaint() and paintComponent instead.
+	 */
+	private void presentFrame() {
+		if (this.activeRenderer != null && this.activeRenderer.isVisible())
+			this.activeRenderer.requestFrame();
+		else
+			this.repaint();
 	}
 
 	/**
-	 * This method updates the game state by following the player with the camera,
-	 * updating the player's position, and updating all solar systems.
-	 * It is called every frame in the game loop.
+	 * This method updates the game state: while playing it samples the controls
+	 * and steps the game world, otherwise it updates the active menu.
+	 * It is called every tick in the game loop, and publishes a snapshot of the
+	 * result for the renderer at the end.
 	 */
 	public void update(double dt) {
 
@@ -209,21 +215,16 @@ public class Orbitor extends JPanel implements Runnable {
         boolean show = (GameState.state == GameState.SETTINGS);
         settingsMenu.audioSlider.setVisible(show);
         settingsMenu.volumeLabel.setVisible(show);
+		if (this.activeRenderer != null)
+			this.activeRenderer.setVisible(!show);
+
+		this.handleProfilerKeys();
 
 		// Update in acoordance to the current game state
 		if (GameState.state == GameState.PLAYING) {
-			SolarSystem currentSolarSystem = getCurrentSolarSystem();
-
-			this.camera.update(this.player, dt);
-			this.player.update(enemies, currentSolarSystem, dt);
-
-			for (SolarSystem system : this.solarSystems)
-				system.update();
-
-			for (Enemy enemy : this.enemies) {
-				enemy.followAndAttack(player);
-				enemy.update(dt);
-			}
+			this.sampleInput();
+			this.world.step(this.inputState, dt);
+			this.recordInput();
 
 		}  else if (GameState.state == GameState.INSTRUCTION) {
             instructionMenu.update();
@@ -236,101 +237,166 @@ public class Orbitor extends JPanel implements Runnable {
             System.exit(0);
         }
 
+		this.publishSnapshot();
+	}
+
+	/**
+	 * Fills the controls for the next tick from the replay while one is playing,
+	 * and from the keyboard and mouse otherwise. When the replay ends the player
+	 * takes over the ship where the recording left it.
+	 */
+	private void sampleInput() {
+		if (this.replay != null) {
+			try {
+				if (this.replay.next(this.inputState))
+					return;
+				this.replay.close();
+			} catch (IOException e) {
+				System.err.println("Replay stopped: " + e.getMessage());
+			}
+			this.replay = null;
+		}
+		Input.sample(this.inputState);
+	}
+
+	// Appends the controls of the tick to the recording, if one is running
+	private void recordInput() {
+		if (this.recorder == null)
+			return;
+		try {
+			this.recorder.record(this.inputState);
+		} catch (IOException e) {
+			System.err.println("Recording stopped: " + e.getMessage());
+			this.stopRecording();
+		}
+	}
+
+	private void stopRecording() {
+		InputRecorder rec = this.recorder;
+		this.recorder = null;
+		if (rec == null)
+			return;
+		try {
+			rec.close();
+		} catch (IOException e) {
+			System.err.println("Could not finish " + GAME_CONSTANT.RECORD_PATH + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * F3 shows or hides the frame profiler overlay, F4 writes its numbers to
+	 * frame-profile-<time>.csv in the working directory.
+	 */
+	private void handleProfilerKeys() {
+		boolean toggle = Input.isProfilerTogglePressed();
+		if (toggle && !this.profilerToggleHeld)
+			FrameProfiler.toggle();
+		this.profilerToggleHeld = toggle;
+
+		boolean dump = Input.isProfilerDumpPressed();
+		if (dump && !this.profilerDumpHeld && FrameProfiler.isEnabled()) {
+			String path = "frame-profile-" + System.currentTimeMillis() + ".csv";
+			try {
+				FrameProfiler.dumpCsv(path, this.scheduler.getLateFrameCount());
+			} catch (IOException e) {
+				System.err.println("Could not write " + path + ": " + e);
+			}
+		}
+		this.profilerDumpHeld = dump;
+	}
+
+	/**
+	 * Copies the render state of the world into the write snapshot and publishes it.
+	 * This runs on the game thread after the tick, so the renderer always sees a
+	 * whole tick and never the objects being updated.
+	 */
+	private void publishSnapshot() {
+		WorldSnapshot snapshot = this.snapshots.getWriteSnapshot();
+		snapshot.state = GameState.state;
+		snapshot.tickTime = this.scheduler.getTickTime();
+		snapshot.tickNs = this.scheduler.getNsPerTick();
+		this.world.writeTo(snapshot);
+		this.snapshots.publish();
 	}
 
 	/**
 	 * This method is called to paint the game components on the screen.
-	 * It uses a Graphics2D object to render the player and solar system.
-	 * It also draws a fixed HUD overlay with player information.
+	 * It draws the latest published snapshot, including the fixed HUD overlay
+	 * with player information.
 	 */
 	@Override
 	public void paintComponent(Graphics g) {
 		super.paintComponent(g);
+
+		// the canvas draws over the panel while it is visible
+		if (this.activeRenderer != null && this.activeRenderer.isVisible())
+			return;
+
 		this.render(g);
+		this.passiveFpsCounter.frame();
 	}
 
 	/**
 	 * This method renders the game components on the screen.
+	 * The screen is picked by the state of the newest snapshot published by the game
+	 * thread, not the live GameState.state, and the playing screen is drawn from that
+	 * snapshot, so a frame never mixes two states. The lock only keeps the EDT and the
+	 * render thread from reading snapshots at the same time while switching modes, the
+	 * game thread never takes it.
+	 * Every frame is recorded as a FrameEvent when a flight recording is running.
 	 */
 	public void render(Graphics g) {
-		if (GameState.state == GameState.PLAYING) {
-			Graphics2D g2 = (Graphics2D) g.create();
-			g2.scale(this.camera.getScale().x, this.camera.getScale().y);
-			g2.translate(-this.camera.getX() + GAME_CONSTANT.WINDOW_WIDTH / camera.getScale().x / 2.0,
-					-this.camera.getY() + GAME_CONSTANT.WINDOW_HEIGHT / camera.getScale().y / 2.0);
-
-			// draw all orbits
-			g2.setColor(new Color(255, 255, 255, 64)); // translucent white
-
-			// draw stars
-			this.drawBackgroundStars(g);
-
-			// draw the fixed planet system
-			this.drawSolarSystems(g2);
-
-			this.player.render(g2);
-
-			for (Enemy enemy : this.enemies)
-				enemy.render(g2);
-
-			/* ---------- 2) fixed HUD overlay ---------- */
-			Graphics2D hud = (Graphics2D) g; // uses panel coords (0,0 at top-left)
-			hud.setColor(Color.WHITE);
-			hud.setFont(new Font("Consolas", Font.PLAIN, 14));
-
-			String msg = String.format("x: %.0f   y: %.0f   θ: %.0f° vx: %.0f vy: %.0f",
-					this.player.pos.x, this.player.pos.y, this.player.angle, this.player.vel.x, this.player.vel.y);
-			hud.drawString(msg, 10, 20);
-
-			this.player.renderHealthBar(hud);
-			this.packageManager.renderPackageArrow(this.player, hud);
-			// dispose of graphics
-			g2.dispose();
-		} else if (GameState.state == GameState.MENU) {
-            gameMenu.render(g);
-        } else if (GameState.state == GameState.INSTRUCTION) {
-            // Instruction menu
-            instructionMenu.render(g);
-        } else if (GameState.state == GameState.SETTINGS) {
-            settingsMenu.render(g);
-        }
-
+		synchronized (this.renderLock) {
+			FrameEvent event = FRAME_EVENT.isEnabled() ? new FrameEvent() : null;
+			if (event != null)
+				event.begin();
+			WorldSnapshot snapshot = this.snapshots.acquire();
+
+			if (snapshot.state == GameState.PLAYING) {
+				this.worldRenderer.render(g, snapshot);
+
+				g.drawString(this.scheduler.toString(), 10, 80);
+				g.drawString(this.getRenderStats(), 10, 100);
+			} else if (snapshot.state == GameState.MENU) {
+	            gameMenu.render(g);
+	        } else if (snapshot.state == GameState.INSTRUCTION) {
+	            // Instruction menu
+	            instructionMenu.render(g);
+	        } else if (snapshot.state == GameState.SETTINGS) {
+	            settingsMenu.render(g);
+	        }
+
+			if (event != null) {
+				event.end();
+				if (event.shouldCommit()) {
+					event.sequence = snapshot.sequence;
+					event.state = snapshot.state.name();
+					if (snapshot.state == GameState.PLAYING) {
+						event.bodies = snapshot.bodyCount;
+						event.particles = snapshot.particleCount;
+						event.enemies = snapshot.enemyCount;
+					}
+					event.commit();
+				}
+			}
 
+			FrameProfiler.frame();
+			FrameProfiler.draw((Graphics2D) g, GAME_CONSTANT.WINDOW_WIDTH - 520, 10,
+					this.scheduler.getLateFrameCount(),
+					1_000_000_000L / (GAME_CONSTANT.FPS_CAP > 0 ? GAME_CONSTANT.FPS_CAP : GAME_CONSTANT.FPS_SET));
+		}
 	}
 
 	/**
-	 * Draw parallax stars behind everything.
+	 * Frame rate of the current render mode, so both modes can be compared
 	 */
-	private void drawBackgroundStars(Graphics g) {
-		g.setColor(Color.WHITE);
-		for (Star s : this.stars) {
-			int sx = (int) ((s.pos.x - this.camera.getX() * s.depth) % GAME_CONSTANT.WINDOW_WIDTH);
-			int sy = (int) ((s.pos.y - this.camera.getY() * s.depth) % GAME_CONSTANT.WINDOW_HEIGHT);
-			if (sx < 0)
-				sx += GAME_CONSTANT.WINDOW_WIDTH;
-			if (sy < 0)
-				sy += GAME_CONSTANT.WINDOW_HEIGHT;
-			g.fillRect(sx, sy, 2, 2);
-		}
-	}
-
-	// This method draws all solar systems in the game.
-	private void drawSolarSystems(Graphics2D g2d) {
-		SolarSystem currSolarSystem = this.getCurrentSolarSystem();
-
-		if (currSolarSystem != null)
-			currSolarSystem.render(g2d);
-	}
-
-	// Getter method to retrieve the currentSolarSystem;
-	private SolarSystem getCurrentSolarSystem() {
-		int x = (int) player.pos.x / GAME_CONSTANT.SOLAR_SYSTEM_SIZE;
-		int y = (int) player.pos.y / GAME_CONSTANT.SOLAR_SYSTEM_SIZE;
-
-		if (x < 0 || x > 2 || y < 0 || y > 2)
-			return null;
-
-		int gridIndex = y * 3 + x;
-		return this.solarSystems.get(gridIndex);
+	private String getRenderStats() {
+		if (this.activeRenderer != null && this.activeRenderer.isVisible())
+			return String.format("active   fps: %.0f   lost buffers: %d   render scale: %.2f",
+					this.activeRenderer.getFps(), this.activeRenderer.getLostFrameCount(),
+					this.worldRenderer.getRenderScale());
+
+		return String.format("passive   fps: %.0f   render scale: %.2f", this.passiveFpsCounter.getFps(),
+				this.worldRenderer.getRenderScale());
 	}
-}
\ No newline at end of file
+}
@@ -1,30 +1,34 @@
 package Game;
 
-import Game.utils.FrameAnimation;
 import Game.utils.Vector2D;
-import java.awt.*;
-import java.awt.geom.AffineTransform;
-import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Random;
 
 public class PackageManager {
     private CelestialBody body;
-    private final BufferedImage arrowImage;
+    private SolarSystem solarSystem;
+    // scratch for the target position
+    private final Vector2D target = new Vector2D();
 
-    public PackageManager() {
-        this.arrowImage = FrameAnimation.loadImage("Images/arrow.png", 0.2);
+    // picks the package targets, seeded by the world so the targets can be replayed
+    private final Random random;
+
+    public PackageManager(Random random) {
+        this.random = random;
     }
 
     public void generateNextPackage(ArrayList<SolarSystem> solarSystems) {
-        Random rand = new Random();
-
         // random solar system
-        SolarSystem solarSystem = solarSystems.get(rand.nextInt(solarSystems.size()));
+        this.solarSystem = solarSystems.get(this.random.nextInt(solarSystems.size()));
 
         // random body in that solar system
-        ArrayList<CelestialBody> bodies = solarSystem.getCelestrialBodies();
-        this.body = bodies.get(rand.nextInt(bodies.size()));
+        ArrayList<CelestialBody> bodies = this.solarSystem.getCelestrialBodies();
+        this.body = bodies.get(this.random.nextInt(bodies.size()));
+    }
+
+    // The solar system of the package target, or null before the first package
+    public SolarSystem getSolarSystem() {
+        return this.solarSystem;
     }
 
     public Vector2D getPackagePos()
@@ -32,24 +36,13 @@ public class PackageManager {
         return this.body.getPos();
     }
 
-    public void renderPackageArrow(Player player, Graphics2D hud) {
-        Vector2D diff = Vector2D.subtract(this.body.getPos(), player.getPos());
-        double dist = diff.length();
-
-        diff.normalize();
-
-        int minDim = Math.min(Constant.GAME_CONSTANT.WINDOW_WIDTH, Constant.GAME_CONSTANT.WINDOW_HEIGHT);
-        diff.x *= minDim * 0.4;
-        diff.y *= minDim * 0.4;
-
-        AffineTransform old = hud.getTransform();
-        hud.translate(diff.x + Constant.GAME_CONSTANT.WINDOW_WIDTH / 2, diff.y + Constant.GAME_CONSTANT.WINDOW_HEIGHT / 2);
-
-        double scale = Math.min(Math.max(10000 / dist, 0.5), 2.5);
-        hud.scale(scale, scale);
-
-        hud.rotate(diff.getAngle());
-        hud.drawImage(this.arrowImage, -this.arrowImage.getWidth() / 2, -this.arrowImage.getHeight() / 2, null);
-        hud.setTransform(old);
+    // Copy the package target into a snapshot so the HUD can point at it
+    void writeTo(WorldSnapshot snapshot) {
+        snapshot.hasPackage = this.body != null;
+        if (this.body != null) {
+            Vector2D target = this.body.getPos(this.target);
+            snapshot.packageX = target.x - snapshot.originX;
+            snapshot.packageY = target.y - snapshot.originY;
+        }
     }
 }
@@ -1,41 +1,51 @@
 package Game;
 
-import Game.Constant.CELESTIAL_BODY_TYPE;
 import Game.Constant.PHYSICS_CONSTANT;
 import Game.Constant.PLAYER_CONST;
 import Game.Constant.ThrustType;
-import Game.utils.FrameAnimation;
 import Game.utils.Vector2D;
-import java.awt.*;
-import java.awt.geom.AffineTransform;
-import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Player class represents the player-controlled spaceship in the game
  * Player consist of three movement modes: main thrust, left thrust, right thrust
  * Player is affected by gravity from celestial bodies in the solar system
- * Player can collide with celestial bodies, which are planets or the sun
+ * Player can collide with celestial bodies, which are planets or the sun; the collision is
+ * swept over the tick, so a fast ship lands on a body instead of flying through it
  * Player can leave a trail of particles when thrusting
  * Player can rotate towards the mouse cursor when not colliding with a celestial body
  * Player can decay velocity over time
- * Player can be controlled using the keyboard and mouse
- * Player can be rendered on the screen
+ * Player is controlled by the keyboard and mouse state passed in as an InputState
+ * Player can copy its render state into a WorldSnapshot
  * Player can be updated based on the time delta
+ * Player allocates nothing per tick once warmed up: the math works in place or on scratch
+ * vectors, and dead trail particles go back to a pool to be emitted again
  */
 public class Player extends Entity {
 
-    private final FrameAnimation currAnimation;
-    private final FrameAnimation idleAnimation;
-    private final List<TrailParticle> particles = new ArrayList<>();
+    private final List<TrailParticle> particles;
+    // dead particles, reused by emit()
+    private final ArrayList<TrailParticle> particlePool;
+    private final Random particleRandom;
     private CelestialBody collidingBody;
 
+    // scratch for the gravity solver's answer and for the field of the suns and black holes
+    private final double[] field = new double[2];
+    private final double[] staticField = new double[4];
+    // scratch for a body's position in pixels and its velocity in pixels per simulated second
+    private final Vector2D bodyPos = new Vector2D();
+    private final Vector2D bodyVel = new Vector2D();
+    // answer of sweepCollision(): share of the tick's move done at the contact, and where the body was then
+    private double contactTime;
+    private double contactBodyX;
+    private double contactBodyY;
+
     // gravitational strength adjuster applied for smoother gameplay
-    private final double GravityStrengthModifier = 11 * 5e1;
-    private final double PlanetGravityStrengthModifier = this.GravityStrengthModifier * 3.5;
-    private final double BlackHoleGravityStrengthModifier = this.PlanetGravityStrengthModifier * 2;
+    private final double GravityStrengthModifier = PLAYER_CONST.GRAVITY_STRENGTH;
+    private final double PlanetGravityStrengthModifier = PLAYER_CONST.PLANET_GRAVITY_STRENGTH;
+    private final double BlackHoleGravityStrengthModifier = PLAYER_CONST.BLACK_HOLE_GRAVITY_STRENGTH;
 
     // sticking state
     private CelestialBody stuckBody = null;
@@ -45,59 +55,101 @@ public class Player extends Entity {
     private double health = 100;
     private double maxHealth = 100;
 
-    private int width = PLAYER_CONST.SHIP_W;
-    private int height = PLAYER_CONST.SHIP_H;
+    private final int width = PLAYER_CONST.SHIP_W;
+    private final int height = PLAYER_CONST.SHIP_H;
     /**
      * Constructor for the Player class.
      * Initializes the player at a given position with a default size and mass.
      *
-     * @param x The x-coordinate of the player's position.
-     * @param y The y-coordinate of the player's position.
+     * @param x              The x-coordinate of the player's position.
+     * @param y              The y-coordinate of the player's position.
+     * @param particleRandom The random generator the trail particles are drawn from.
      */
-    public Player(double x, double y) {
+    public Player(double x, double y, Random particleRandom) {
         super(x, y, 1e10);
-        this.idleAnimation = new FrameAnimation(0.1f, false);
-        this.idleAnimation.loadFrames(new String[] { "Images/rocket.png" }, 1);
-        this.currAnimation = this.idleAnimation;
+        this.particleRandom = particleRandom;
+
+        // room for every engine firing at once: three particles a tick, each living up to MAX_LIFE base ticks
+        int maxParticles = 3 * TrailParticle.MAX_LIFE * Constant.GAME_CONSTANT.FPS_SET / Constant.GAME_CONSTANT.BASE_TICK_RATE;
+        this.particles = new ArrayList<>(maxParticles);
+        this.particlePool = new ArrayList<>(maxParticles);
+        for (int i = 0; i < maxParticles; i++)
+            this.particlePool.add(new TrailParticle());
     }
 
     /**
      * Updating the trail particles left by the player.
+     * The particles drift towards the suns and black holes of the solar system, read from its
+     * StaticGravityGrid, as strongly as the ship times GAME_CONSTANT.PARTICLE_GRAVITY_SCALE.
+     * The live ones are moved to the front in their order and the dead ones go back to the pool.
      */
-    private void updateParticles() {
-        Iterator<TrailParticle> it = this.particles.iterator();
-        while (it.hasNext()) {
-            TrailParticle p = it.next();
-            p.update();
-            if (!p.isAlive()) {
-                it.remove();
+    private void updateParticles(SolarSystem system, double dt) {
+        double scale = PHYSICS_CONSTANT.G * Constant.GAME_CONSTANT.PARTICLE_GRAVITY_SCALE;
+        int live = 0;
+        for (int i = 0; i < this.particles.size(); i++) {
+            TrailParticle p = this.particles.get(i);
+            if (system != null && scale != 0) {
+                double[] f = this.staticField;
+                system.staticGravityAt(p.pos.x * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE,
+                        p.pos.y * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE, f);
+                p.accelerate(scale * (this.GravityStrengthModifier * f[0] + this.BlackHoleGravityStrengthModifier * f[2]),
+                        scale * (this.GravityStrengthModifier * f[1] + this.BlackHoleGravityStrengthModifier * f[3]), dt);
             }
+            p.update(dt);
+            if (p.isAlive())
+                this.particles.set(live++, p);
+            else
+                this.particlePool.add(p);
+        }
+        for (int i = this.particles.size() - 1; i >= live; i--)
+            this.particles.remove(i);
+    }
+
+    // Adds a trail particle, reusing a dead one when there is one
+    private void emit(ThrustType thrustType) {
+        if (this.particlePool.isEmpty()) {
+            this.particles.add(new TrailParticle(this.pos.x, this.pos.y, this.angle, thrustType, this.particleRandom));
+            return;
         }
+        TrailParticle p = this.particlePool.remove(this.particlePool.size() - 1);
+        p.reset(this.pos.x, this.pos.y, this.angle, thrustType, this.particleRandom);
+        this.particles.add(p);
     }
 
     /*
      * Always apply gravity (converted to px/s²) before checking collisions.
      */
     private void updateGravity(SolarSystem currentSolarSystem) {
-        this.updateNetGravitationalForce(currentSolarSystem.getCelestrialBodies());
-        this.acc = Vector2D.divide(this.force, this.mass);
+        this.updateNetGravitationalForce(currentSolarSystem);
+        this.acc.set(this.force.x / this.mass, this.force.y / this.mass);
     }
 
-    private void updateEnemyCollision(ArrayList<Enemy> enemies) {
-        for(Enemy enemy : enemies) {
-
+    /**
+     * Pushes the enemies that overlap the ship back out to touching distance. The enemies
+     * around the ship are looked up in the world's SpatialHash of ships.
+     */
+    private void updateEnemyCollision(SpatialHash<Entity> entities) {
+        int found = entities.overlapping(this.pos.x, this.pos.y, this.getCollisionRadius());
+        for (int k = 0; k < found; k++) {
+            int id = entities.getResult(k);
+            if (entities.get(id) instanceof Enemy enemy)
+                enemy.separateFrom(this.pos.x, this.pos.y, this.getCollisionRadius() + entities.getRadius(id));
         }
     }
 
-    public void update(ArrayList<Enemy> enemies, SolarSystem currentSolarSystem, double dt) {
+    public void update(SpatialHash<Entity> entities, SolarSystem currentSolarSystem, InputState input, double dt) {
+        this.savePreviousState();
+
         // update the player's particle
-        this.updateParticles();
-        this.updateEnemyCollision(enemies);
+        long t = FrameProfiler.begin();
+        this.updateParticles(currentSolarSystem, dt);
+        FrameProfiler.end(FrameProfiler.Section.PARTICLES, t);
+        this.updateEnemyCollision(entities);
 
         // if currently stuck to a planet
-        if (this.stuckBody != null && !Input.isThrusting()) {
+        if (this.stuckBody != null && !input.thrust) {
             // recompute absolute position by body center + fixed offset
-            Vector2D center = this.stuckBody.getPos();
+            Vector2D center = this.stuckBody.getPos(this.bodyPos);
             double px = center.x + Math.cos(this.stuckAngle) * this.stuckDistance;
             double py = center.y + Math.sin(this.stuckAngle) * this.stuckDistance;
             this.pos.x = px;
@@ -111,10 +163,10 @@ public class Player extends Entity {
         if (currentSolarSystem != null) {
             CelestialBody land = this.checkCollisionWithPlanets(currentSolarSystem);
 
-            if (land != null && !Input.isThrusting()) {
+            if (land != null && !input.thrust) {
                 // stick
                 this.stuckBody = land;
-                Vector2D cp = land.getPos();
+                Vector2D cp = land.getPos(this.bodyPos);
                 // vector from planet center to player
                 double dx = this.pos.x - cp.x;
                 double dy = this.pos.y - cp.y;
@@ -125,15 +177,12 @@ public class Player extends Entity {
             }
 
             // if thrusting while stuck, release
-            if (this.stuckBody != null && Input.isThrusting()) {
-                Vector2D center = this.stuckBody.getPos();
+            if (this.stuckBody != null && input.thrust) {
+                Vector2D center = this.stuckBody.getPos(this.bodyPos);
                 double px = center.x + Math.cos(this.stuckAngle) * this.stuckDistance;
                 double py = center.y + Math.sin(this.stuckAngle) * this.stuckDistance;
                 this.pos.x = px;
                 this.pos.y = py;
-                Vector2D diff = Vector2D.subtract(this.pos, this.stuckBody.getPos());
-                diff.normalize();
-                diff.multiply(this.getAcc().length());
 
                 this.vel.x = Math.cos(this.angle) * PLAYER_CONST.SHIP_SPEED * dt;
                 this.vel.y = Math.sin(this.angle) * PLAYER_CONST.SHIP_SPEED * dt;
@@ -146,27 +195,46 @@ public class Player extends Entity {
         }
 
         // Rotation
-        this.applyRotation(dt);
+        this.applyRotation(input, dt);
 
         // thrust inputs
-        this.handleThrust(dt);
+        this.handleThrust(input, dt);
 
         // velocity decay
         this.velocityDecay(dt);
 
         // apply acceleration and velocity
-        this.vel.add(Vector2D.multiply(this.acc, dt));
-        this.pos.add(Vector2D.multiply(this.vel, dt));
-
-        if (Input.isThrusting() && currentSolarSystem != null) {
-            CelestialBody collided = this.checkCollisionWithPlanets(currentSolarSystem);
-            if (collided != null) {
-                Vector2D center = collided.getPos();
-                Vector2D off = Vector2D.subtract(this.pos, center);
-                off.normalize();
-                double minDist = (this.width/5 + collided.radius / 2);
-                this.pos.x = center.x + off.x * minDist;
-                this.pos.y = center.y + off.y * minDist;
+        double fromX = this.pos.x;
+        double fromY = this.pos.y;
+        this.vel.addScaled(this.acc, dt);
+        this.pos.addScaled(this.vel, dt);
+
+        // stop at the first body the ship touched on the way, however far it flew this tick
+        CelestialBody hit = currentSolarSystem == null ? null
+                : this.sweepCollision(currentSolarSystem, fromX, fromY, dt);
+        if (hit != null) {
+            this.pos.x = fromX + (this.pos.x - fromX) * this.contactTime;
+            this.pos.y = fromY + (this.pos.y - fromY) * this.contactTime;
+            double offX = this.pos.x - this.contactBodyX;
+            double offY = this.pos.y - this.contactBodyY;
+            if (!input.thrust) {
+                // land where it touched
+                this.stuckBody = hit;
+                this.stuckAngle = Math.atan2(offY, offX);
+                this.stuckDistance = Math.hypot(offX, offY);
+                this.vel.x = this.vel.y = 0;
+            } else {
+                // thrusting into the body: keep only the velocity along its surface
+                double length = Math.sqrt(offX * offX + offY * offY);
+                if (length != 0) {
+                    offX /= length;
+                    offY /= length;
+                }
+                double inward = this.vel.x * offX + this.vel.y * offY;
+                if (inward < 0) {
+                    this.vel.x -= inward * offX;
+                    this.vel.y -= inward * offY;
+                }
             }
         }
 
@@ -175,9 +243,9 @@ public class Player extends Entity {
     /**
      * Apply rotation to the player
      */
-    public void applyRotation(double dt) {
-        Vector2D diff = Vector2D.subtract(Input.getMouseRelativeToScreen(), new Vector2D(Constant.GAME_CONSTANT.WINDOW_WIDTH / 2.0, Constant.GAME_CONSTANT.WINDOW_HEIGHT / 2.0));
-        double targetAngle = diff.getAngle();
+    public void applyRotation(InputState input, double dt) {
+        double targetAngle = Math.atan2(input.mouseY - Constant.GAME_CONSTANT.WINDOW_HEIGHT / 2.0,
+                input.mouseX - Constant.GAME_CONSTANT.WINDOW_WIDTH / 2.0);
         double err = this.clampAngle(targetAngle - this.angle);
         if (Math.abs(err) > PLAYER_CONST.ANGLE_DEADZONE) {
             double maxD = PLAYER_CONST.MAX_TURN_SPEED * dt;
@@ -185,26 +253,26 @@ public class Player extends Entity {
         }
     }
 
-    public void handleThrust(double dt) {
+    public void handleThrust(InputState input, double dt) {
         // main thrust
-        if (Input.isThrusting()) {
+        if (input.thrust) {
             this.vel.x += Math.cos(this.angle) * PLAYER_CONST.SHIP_SPEED * dt;
             this.vel.y += Math.sin(this.angle) * PLAYER_CONST.SHIP_SPEED * dt;
-            this.particles.add(new TrailParticle(this.pos.x, this.pos.y, this.angle, ThrustType.CENTER));
+            this.emit(ThrustType.CENTER);
         }
 
         // Side thrust is only available while in space
         if (this.collidingBody == null) {
             // side thrust
-            if (Input.isLeftThrusting()) {
+            if (input.leftThrust) {
                 this.vel.x += Math.cos(this.angle - Math.PI / 2) * PLAYER_CONST.SIDE_SPEED * dt;
                 this.vel.y += Math.sin(this.angle - Math.PI / 2) * PLAYER_CONST.SIDE_SPEED * dt;
-                this.particles.add(new TrailParticle(this.pos.x, this.pos.y, this.angle, ThrustType.LEFT));
+                this.emit(ThrustType.LEFT);
             }
-            if (Input.isRightThrusting()) {
+            if (input.rightThrust) {
                 this.vel.x += Math.cos(this.angle + Math.PI / 2) * PLAYER_CONST.SIDE_SPEED * dt;
                 this.vel.y += Math.sin(this.angle + Math.PI / 2) * PLAYER_CONST.SIDE_SPEED * dt;
-                this.particles.add(new TrailParticle(this.pos.x, this.pos.y, this.angle, ThrustType.RIGHT));
+                this.emit(ThrustType.RIGHT);
             }
 
         }
@@ -213,43 +281,89 @@ public class Player extends Entity {
 
     /**
      * Compute sum of gravitational forces (N) from all bodies.
+     * The solar system's gravity solver gives the pull of all bodies as if they were
+     * planets. The suns are then raised to their own strength and the black holes, which
+     * the solver leaves out, added, both read from the system's StaticGravityGrid; moons are
+     * corrected one by one. A system with thousands of planets costs one solver query.
      */
-    public void updateNetGravitationalForce(List<CelestialBody> bodies) {
-        this.force.x = this.force.y = 0;
-        for (CelestialBody body : bodies) {
-            Vector2D g = this.attraction(body, Vector2D.multiply(this.pos, PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE));
-
-            if (body.bodyType == CELESTIAL_BODY_TYPE.SUN)
-                g.multiply(this.GravityStrengthModifier);
-            else if (body.bodyType == CELESTIAL_BODY_TYPE.PLANET)
-                g.multiply(this.PlanetGravityStrengthModifier);
-            else if(body.bodyType == CELESTIAL_BODY_TYPE.BLACK_HOLE)
-                g.multiply(this.BlackHoleGravityStrengthModifier);
-
-            this.force.add(g);
+    public void updateNetGravitationalForce(SolarSystem system) {
+        double px = this.pos.x * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE;
+        double py = this.pos.y * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE;
+
+        system.gravityAt(px, py, this.field);
+        double fieldX = this.field[0] * this.PlanetGravityStrengthModifier;
+        double fieldY = this.field[1] * this.PlanetGravityStrengthModifier;
+
+        // the suns are in the solver's field at planet strength, the black holes not at all
+        double[] f = this.staticField;
+        system.staticGravityAt(px, py, f);
+        fieldX += f[0] * (this.GravityStrengthModifier - this.PlanetGravityStrengthModifier)
+                + f[2] * this.BlackHoleGravityStrengthModifier;
+        fieldY += f[1] * (this.GravityStrengthModifier - this.PlanetGravityStrengthModifier)
+                + f[3] * this.BlackHoleGravityStrengthModifier;
+
+        BodyStore bodies = system.getBodyStore();
+        for (int k = 0; k < bodies.getNonPlanetCount(); k++) {
+            int i = bodies.getNonPlanet(k);
+            if (StaticGravityGrid.isStatic(bodies.getType(i)))
+                continue; // in the grid
+            double dx = bodies.getX(i) - px;
+            double dy = bodies.getY(i) - py;
+            double distSq = dx * dx + dy * dy;
+            if (distSq == 0)
+                continue;
+
+            // moons are in the solver's field at planet strength
+            double s = (1 - this.PlanetGravityStrengthModifier) * bodies.getMass(i) / (distSq * Math.sqrt(distSq));
+            fieldX += dx * s;
+            fieldY += dy * s;
         }
+
+        double gm = PHYSICS_CONSTANT.G * this.mass;
+        this.force.x = fieldX * gm;
+        this.force.y = fieldY * gm;
+    }
+
+    /**
+     * Strength the ship feels the pull of a body of the type at, as summed by
+     * updateNetGravitationalForce(): the suns, planets and black holes at their modifiers,
+     * the moons unmodified.
+     */
+    static double gravityStrength(Constant.CELESTIAL_BODY_TYPE type) {
+        return switch (type) {
+            case SUN -> PLAYER_CONST.GRAVITY_STRENGTH;
+            case PLANET -> PLAYER_CONST.PLANET_GRAVITY_STRENGTH;
+            case BLACK_HOLE -> PLAYER_CONST.BLACK_HOLE_GRAVITY_STRENGTH;
+            case MOON -> 1;
+        };
     }
 
     /**
      * Checks if the player collides with any planets in the solar system.
      * If a collision is detected, it returns the colliding planet.
      * Otherwise, it returns null.
+     * Only the bodies near the ship are tested, found in the system's SpatialHash; of several
+     * it returns the first in the system's order, as a scan over all bodies would.
      *
      * @param currentSolarSystem The SolarSystem object containing all celestial bodies.
      * @return The CelestialBody that the player collides with, or null if no
      *         collision occurs.
      */
     public CelestialBody checkCollisionWithPlanets(SolarSystem currentSolarSystem) {
-        for (CelestialBody body : currentSolarSystem.getCelestrialBodies()) {
-            if(body.bodyType == Constant.CELESTIAL_BODY_TYPE.BLACK_HOLE)
+        SpatialHash<CelestialBody> bodies = currentSolarSystem.getBodyHash();
+        // the test below rounds the body position down to whole pixels, so look a little wider
+        int found = bodies.overlapping(this.pos.x, this.pos.y, this.getCollisionRadius() + 2);
+        for (int k = 0; k < found; k++) {
+            CelestialBody body = bodies.get(bodies.getResult(k));
+            if(body.getType() == Constant.CELESTIAL_BODY_TYPE.BLACK_HOLE)
                 continue;
 
-            Vector2D bodyPosPx = body.getPos();
-            bodyPosPx.x = (int) bodyPosPx.x;
-            bodyPosPx.y = (int) bodyPosPx.y;
-            double d = Vector2D.subtract(this.pos, bodyPosPx).length();
+            Vector2D bodyPosPx = body.getPos(this.bodyPos);
+            double dx = this.pos.x - (int) bodyPosPx.x;
+            double dy = this.pos.y - (int) bodyPosPx.y;
+            double d = Math.sqrt(dx * dx + dy * dy);
 
-            if (d < (this.width/5 + body.radius/2)) {
+            if (d < (this.width/5 + body.getRadius()/2)) {
                 return body;
             }
         }
@@ -257,38 +371,112 @@ public class Player extends Entity {
     }
 
     /**
-     * Renders the player on the screen.
-     * The player is drawn at its current position and angle, with the current
-     * animation frame. The player also leaves a trail of particles behind.
-     * 
-     * @param g2 The Graphics2D object used for rendering.
-     * This method applies a translation and rotation to the graphics context
-     * before drawing the player image, and restores the original transformation
-     * after drawing. It also iterates through the list of trail particles and
-     * renders each one.
+     * Continuous collision of the ship with the bodies of a system over one tick. The ship
+     * moved from (fromX, fromY) to its current position; the bodies move on by their velocity
+     * over the tick's orbit time (see SolarSystem.orbitTime()) once the system is updated.
+     * Both moves are taken as straight lines over the tick, so in the body's frame the ship
+     * sweeps its circle along a segment, and the contact is the first point of the segment
+     * where the circles touch; a ship faster than a body is wide cannot skip over it.
+     * Only approaching counts, so a ship already touching a body is free to leave it. Black
+     * holes are left out as in checkCollisionWithPlanets(). The bodies that can be reached
+     * at all are looked up in the system's SpatialHash.
+     *
+     * @param system the solar system the ship is in
+     * @param fromX  x-coordinate of the ship at the start of the tick in pixels
+     * @param fromY  y-coordinate of the ship at the start of the tick in pixels
+     * @param dt     the tick length in seconds
+     * @return the body touched first, with contactTime, contactBodyX and contactBodyY set; or null
      */
-    @Override
-    public void render(Graphics2D g2) {
-        AffineTransform old = g2.getTransform();
-        g2.translate(this.pos.x, this.pos.y);
-        g2.rotate(this.angle + Math.PI / 2);
-        BufferedImage img = this.currAnimation.getFrame();
-        this.width = img.getWidth();
-        this.height = img.getHeight();
-        g2.drawImage(img, -img.getWidth() / 2, -img.getHeight() / 2, null);
-        g2.setTransform(old);
-
-        for (TrailParticle p : this.particles) {
-            p.render(g2);
+    private CelestialBody sweepCollision(SolarSystem system, double fromX, double fromY, double dt) {
+        double moveX = this.pos.x - fromX;
+        double moveY = this.pos.y - fromY;
+        double orbitTime = SolarSystem.orbitTime(dt);
+        SpatialHash<CelestialBody> bodies = system.getBodyHash();
+        // every body whose circle can meet the ship's within the tick
+        double reach = Math.sqrt(moveX * moveX + moveY * moveY) / 2 + system.getMaxBodySpeed() * orbitTime
+                + this.getCollisionRadius();
+        int found = bodies.overlapping(fromX + moveX / 2, fromY + moveY / 2, reach);
+
+        CelestialBody first = null;
+        this.contactTime = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < found; k++) {
+            CelestialBody body = bodies.get(bodies.getResult(k));
+            if (body.getType() == Constant.CELESTIAL_BODY_TYPE.BLACK_HOLE)
+                continue;
+            Vector2D start = body.getPos(this.bodyPos);
+            Vector2D step = body.getVel(this.bodyVel).multiply(orbitTime);
+            // the ship relative to the body, at the start of the tick and its change over the tick
+            double dx = fromX - start.x;
+            double dy = fromY - start.y;
+            double vx = moveX - step.x;
+            double vy = moveY - step.y;
+            double minDist = this.getCollisionRadius() + body.getRadius() / 2;
+
+            // |d + t v| = minDist, solved for the first t in [0, 1]
+            double b = dx * vx + dy * vy;
+            if (b >= 0)
+                continue; // not getting closer
+            double c = dx * dx + dy * dy - minDist * minDist;
+            double t;
+            if (c < 0) {
+                t = 0; // already touching and moving in
+            } else {
+                double a = vx * vx + vy * vy;
+                double disc = b * b - a * c;
+                if (disc < 0)
+                    continue;
+                t = (-b - Math.sqrt(disc)) / a;
+                if (t > 1)
+                    continue;
+            }
+            // the first contact in time, of equal ones the first body in the system's order
+            if (t < this.contactTime) {
+                this.contactTime = t;
+                this.contactBodyX = start.x + step.x * t;
+                this.contactBodyY = start.y + step.y * t;
+                first = body;
+            }
         }
+        return first;
+    }
+
+    // Radius in pixels of the circle the ship is hit as
+    public double getCollisionRadius() {
+        return this.width / 5;
     }
 
-    public void renderHealthBar(Graphics2D hud) {
-        hud.setColor(Color.green);
-        hud.fillRect(10, 40, (int)(this.health / this.maxHealth * 300), 20);
+    // Whether the ship rests on a body
+    public boolean isLanded() {
+        return this.stuckBody != null;
+    }
+
+    // Number of live trail particles
+    public int getParticleCount() {
+        return this.particles.size();
+    }
 
-        hud.setColor(Color.white);
-        hud.drawRect(10, 40, 300, 20);
+    /**
+     * Copies the player's render state into a snapshot.
+     * The ship is stored with its current position, angle and animation frame,
+     * followed by every trail particle it left behind; positions relative to the snapshot's origin.
+     *
+     * @param snapshot The snapshot being filled on the simulation thread.
+     */
+    void writeTo(WorldSnapshot snapshot) {
+        snapshot.playerX = this.pos.x - snapshot.originX;
+        snapshot.playerY = this.pos.y - snapshot.originY;
+        snapshot.playerAngle = this.angle;
+        snapshot.playerPrevX = this.prevPos.x - snapshot.originX;
+        snapshot.playerPrevY = this.prevPos.y - snapshot.originY;
+        snapshot.playerPrevAngle = this.prevAngle;
+        snapshot.playerVelX = this.vel.x;
+        snapshot.playerVelY = this.vel.y;
+        snapshot.playerHealth = this.health;
+        snapshot.playerMaxHealth = this.maxHealth;
+
+        snapshot.setParticleCount(this.particles.size());
+        for (int i = 0; i < this.particles.size(); i++)
+            this.particles.get(i).writeTo(snapshot, i);
     }
 
     /**
@@ -323,13 +511,19 @@ public class Player extends Entity {
      * @param dt The time delta since the last update, used to scale the decay.
      */
     private void velocityDecay(double dt) {
-        if (this.vel.length() <= 0.1) {
-            this.vel = Vector2D.ZERO;
+        velocityDecay(this.vel, dt);
+    }
+
+    // The decay of velocityDecay() on any velocity, so a prediction of the flight decays the same way
+    static void velocityDecay(Vector2D vel, double dt) {
+        if (vel.length() <= 0.1) {
+            // zero it in place; sharing Vector2D.ZERO would let the next thrust change ZERO itself
+            vel.set(0, 0);
             return;
         }
         double f = Math.pow(PLAYER_CONST.VEL_DECAY, dt);
-        this.vel.x = Math.abs(this.vel.x) > 0.1 ? this.vel.x * f : 0;
-        this.vel.y = Math.abs(this.vel.y) > 0.1 ? this.vel.y * f : 0;
+        vel.x = Math.abs(vel.x) > 0.1 ? vel.x * f : 0;
+        vel.y = Math.abs(vel.y) > 0.1 ? vel.y * f : 0;
     }
 
     /**
@@ -0,0 +1,91 @@
+package Game;
+
+/**
+ * ResolutionController class picks the internal resolution the world layer is drawn at.
+ * After every frame it is told how long the world layer took; it keeps a moving average of
+ * those times and compares it against a time budget.
+ * When the average goes over the budget the scale is lowered in one jump to where the
+ * budget should fit again (the cost of drawing is roughly proportional to the pixel count,
+ * so to the square of the scale). When the average stays well under the budget the scale
+ * is raised one step at a time. After every change the controller waits a number of frames
+ * before it changes again, so the resolution does not flicker between two steps.
+ * With minScale equal to maxScale the scale is fixed.
+ */
+public class ResolutionController {
+    // scales are multiples of this step, so the offscreen region only changes in coarse steps
+    private static final double STEP = 0.05;
+
+    // frames to wait after a change before the average is trusted again
+    private static final int COOLDOWN_FRAMES = 30;
+
+    // weight of the newest frame in the moving average
+    private static final double SMOOTHING = 0.1;
+
+    // aim a little under the budget when scaling down, and only scale up when far under it
+    private static final double TARGET_RATIO = 0.85;
+    private static final double RAISE_RATIO = 0.6;
+
+    private final double minScale;
+    private final double maxScale;
+    private final long budgetNs;
+
+    private double scale;
+    private double averageNs = 0;
+    private int framesSinceChange = 0;
+
+    /**
+     * Constructor for the ResolutionController class.
+     *
+     * @param minScale lowest scale the world may be drawn at, e.g. 0.5 for half resolution
+     * @param maxScale highest scale, normally 1 for native resolution
+     * @param budgetNs time the world layer may take per frame in nanoseconds
+     */
+    public ResolutionController(double minScale, double maxScale, long budgetNs) {
+        this.minScale = minScale;
+        this.maxScale = maxScale;
+        this.budgetNs = budgetNs;
+        this.scale = maxScale;
+    }
+
+    // A controller that always draws at the given scale
+    public static ResolutionController fixed(double scale) {
+        return new ResolutionController(scale, scale, Long.MAX_VALUE);
+    }
+
+    /**
+     * Records the time the world layer took and adjusts the scale for the next frame.
+     *
+     * @param worldNs time spent drawing the world layer, including the upscale
+     */
+    public void frame(long worldNs) {
+        if (this.minScale >= this.maxScale)
+            return;
+
+        this.averageNs = this.averageNs == 0 ? worldNs : this.averageNs + SMOOTHING * (worldNs - this.averageNs);
+        if (++this.framesSinceChange < COOLDOWN_FRAMES)
+            return;
+
+        double newScale = this.scale;
+        if (this.averageNs > this.budgetNs)
+            newScale = this.scale * Math.sqrt(TARGET_RATIO * this.budgetNs / this.averageNs);
+        else if (this.averageNs < RAISE_RATIO * this.budgetNs)
+            newScale = this.scale + STEP;
+
+        newScale = Math.max(this.minScale, Math.min(this.maxScale, Math.floor(newScale / STEP + 1e-9) * STEP));
+        if (newScale != this.scale) {
+            // expect the cost to follow the pixel count until new measurements come in
+            this.averageNs *= (newScale * newScale) / (this.scale * this.scale);
+            this.scale = newScale;
+            this.framesSinceChange = 0;
+        }
+    }
+
+    // Scale of the world layer relative to the window, in (0, 1]
+    public double getScale() {
+        return this.scale;
+    }
+
+    public boolean isDynamic() {
+        return this.minScale < this.maxScale;
+    }
+}
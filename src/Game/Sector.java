@@ -0,0 +1,42 @@
+package Game;
+
+import Game.Constant.GAME_CONSTANT;
+
+/**
+ * Sector class splits the plane into squares of GAME_CONSTANT.SOLAR_SYSTEM_SIZE pixels, the
+ * cells of the solar system grid, so a position can be told as a sector and an offset in it.
+ * Sector indices are longs: an int pixel coordinate overflows at about two billion pixels,
+ * a sector index never does.
+ * The center of the ship's sector is the floating origin of every WorldSnapshot, see there,
+ * and every sector gets a solar system of its own, generated from seed() (see SolarSystemCache).
+ */
+public final class Sector {
+    private Sector() {
+    }
+
+    // Index of the sector holding a coordinate in pixels, along one axis
+    public static long of(double px) {
+        return Math.floorDiv((long) px, GAME_CONSTANT.SOLAR_SYSTEM_SIZE);
+    }
+
+    // Coordinate in pixels of the center of a sector, along one axis; always a whole number
+    public static double center(long sector) {
+        return sector * (double) GAME_CONSTANT.SOLAR_SYSTEM_SIZE + GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2;
+    }
+
+    /**
+     * Seed of the solar system of a sector. The world seed and the sector are mixed with the
+     * SplitMix64 finalizer, so neighbouring sectors get unrelated generators, and a sector
+     * gets the same one however often its system is generated.
+     *
+     * @param worldSeed the seed of the world's solar systems
+     * @param x         the sector's index along x
+     * @param y         the sector's index along y
+     */
+    public static long seed(long worldSeed, long x, long y) {
+        long h = worldSeed ^ x * 0x9E3779B97F4A7C15L ^ y * 0xC2B2AE3D27D4EB4FL;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,52 @@
+package Game;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * SnapshotBuffer class hands WorldSnapshots from the simulation thread to the renderer
+ * without locks.
+ * It is a triple buffer: the writer owns one snapshot, the reader owns one, and the most
+ * recently published one sits in between in an AtomicReference.
+ * Publishing and acquiring are each a single atomic swap, so neither side ever waits for the
+ * other, and the reader never sees a snapshot that is still being written.
+ * The three snapshots are reused forever, so handing over a frame creates no garbage.
+ * There must be exactly one writer thread and one reader at a time.
+ */
+public class SnapshotBuffer {
+    private final AtomicReference<WorldSnapshot> published = new AtomicReference<>(new WorldSnapshot());
+
+    // owned by the simulation thread
+    private WorldSnapshot back = new WorldSnapshot();
+    private long sequence = 0;
+
+    // owned by the reader
+    private WorldSnapshot front = new WorldSnapshot();
+
+    /**
+     * Returns the snapshot the simulation thread may fill for the next publish.
+     * Its contents are whatever was written into it two publishes ago.
+     */
+    public WorldSnapshot getWriteSnapshot() {
+        return this.back;
+    }
+
+    /**
+     * Publishes the filled write snapshot and takes the previously published one back for writing.
+     */
+    public void publish() {
+        this.back.sequence = ++this.sequence;
+        this.back = this.published.getAndSet(this.back);
+    }
+
+    /**
+     * Returns the newest published snapshot.
+     * The returned snapshot stays untouched by the simulation until the next acquire() call.
+     * If nothing new was published since the last call, the same snapshot is returned again.
+     */
+    public WorldSnapshot acquire() {
+        if (this.published.get().sequence > this.front.sequence)
+            this.front = this.published.getAndSet(this.front);
+
+        return this.front;
+    }
+}
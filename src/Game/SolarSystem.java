@@ -1,12 +1,13 @@
 package Game;
 
 import Game.Constant.CELESTIAL_BODY_TYPE;
+import Game.Constant.GAME_CONSTANT;
 import Game.Constant.PHYSICS_CONSTANT;
+import Game.jfr.SolarSystemGenerationEvent;
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.util.ArrayList;
 import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
+import jdk.jfr.EventType;
 
 /**
  * SolarSystem class represents a model of our solar system
@@ -14,17 +15,57 @@ import java.util.concurrent.ThreadLocalRandom;
  * It can generate a default solar system or a random one
  * All the created celestial bodies are added to the bodies list to be managed
  * It updates the positions of the celestial bodies based on their gravitational interactions
- * It renders the celestial bodies on the screen
+ * The dynamic state of the bodies is kept in a BodyStore, the CelestialBody objects are views into it
+ * Gravity is computed by a GravitySolver: the exact direct sum for small systems (with SIMD when
+ * VectorGravity provides it), a Barnes-Hut tree from GAME_CONSTANT.BARNES_HUT_MIN_BODIES bodies on
+ * The pull of the sun and the black hole, which never move, is answered by a StaticGravityGrid
+ * for the ship, the enemies and the trail particles, summed or interpolated from its nodes
+ * It copies the celestial bodies into a WorldSnapshot for rendering
  * It provides methods to get the celestial bodies and the root celestial body
  * It creates the mass of the celestial bodies based on its volume and a constant factor
+ * Every construction is recorded as a SolarSystemGenerationEvent when a flight recording is running
  */
 public class SolarSystem {
+    // a SolarSystemGenerationEvent is only created while a recording has it enabled
+    private static final EventType GENERATION_EVENT = EventType.getEventType(SolarSystemGenerationEvent.class);
 
+    // positions, velocities, masses, radii and types of all bodies, packed for the physics kernels
+    private final BodyStore store = new BodyStore();
+
+    // a view per body, in the same order as the store
     private final ArrayList<CelestialBody> bodies = new ArrayList<>();
 
+    // computes the gravity of the bodies; picked by body count unless one was set
+    private GravitySolver gravitySolver = VectorGravity.newDirectSolver();
+    private boolean fixedSolver = false;
+    // whether the solver was prepared for the current positions
+    private boolean solverReady = false;
+
+    // field of the suns and black holes, built on first use, and the non-planet count it was built for
+    private StaticGravityGrid staticGrid;
+    private int staticGridSources = -1;
+
+    // the bodies in pixels, for collision and proximity queries; ids are the store indices
+    private final SpatialHash<CelestialBody> bodyHash = new SpatialHash<>(GAME_CONSTANT.BODY_HASH_CELL, 64);
+    // whether the hash has the current positions
+    private boolean bodyHashReady = false;
+    // the largest speed of a body as of the last refresh of the hash, px per simulated second
+    private double maxBodySpeed = 0;
+
+    private int lastSubsteps = 0;
+    // ticks until the planets are checked for going on or off rails
+    private int railsCheckIn = 0;
+
+    // ticks left for catchUp() by defer(), and the time they cover
+    private int deferredTicks = 0;
+    private double deferredTime = 0;
+
     final private CelestialBody root;
 
     private CelestialBody blackHole;
+
+    // source of all randomness of the generated system, so a world seed reproduces it
+    private final Random random;
     
     private final int EXP_SCALE = (int) (PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE * PHYSICS_CONSTANT.AU / 100);
 
@@ -38,40 +79,251 @@ public class SolarSystem {
      * Constructor for the SolarSystem class.
      * Initializes the solar system with a root celestial body (the sun) at a given position.
      *
-     * @param x The x-coordinate of the sun's position in pixels units.
-     * @param y The y-coordinate of the sun's position in pixels units.
+     * @param x      The x-coordinate of the sun's position in pixels units.
+     * @param y      The y-coordinate of the sun's position in pixels units.
+     * @param random The random generator the planets and the black hole are drawn from.
      */
-    public SolarSystem(int x, int y) {
+    public SolarSystem(double x, double y, Random random) {
+        SolarSystemGenerationEvent event = GENERATION_EVENT.isEnabled() ? new SolarSystemGenerationEvent() : null;
+        if (event != null)
+            event.begin();
+        this.random = random;
 
         // Creating the sun
-        int sunRadius = PHYSICS_CONSTANT.SUN_RADIUS;
-        double sunMass = PHYSICS_CONSTANT.SUN_MASS;
-        this.root = new CelestialBody(x * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE, y * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE,
-                sunRadius * this.EXP_SCALE, sunMass, Constant.CELESTIAL_BODY_TYPE.SUN, Color.ORANGE, null);
-        this.bodies.add(this.root);
+        this.root = this.createSun(x, y);
 
         this.generateSolarSystem(this.root);
 
         //Determining if creating a black hole in the solar system or not
-        int chance = (int)generateRandomWithSteps(0, 1, 1);
+        int chance = (int)generateRandomWithSteps(this.random, 0, 1, 1);
         if(chance == 0) {
-            double distanceToSun = PHYSICS_CONSTANT.AU * generateRandomWithSteps(PHYSICS_CONSTANT.BLACK_DISTANCE_TO_SUN_AU.getMin(), PHYSICS_CONSTANT.BLACK_DISTANCE_TO_SUN_AU.getMax(), .1);
-            double angle = generateRandomWithSteps(0, 2*Math.PI, .1);
+            double distanceToSun = PHYSICS_CONSTANT.AU * generateRandomWithSteps(this.random, PHYSICS_CONSTANT.BLACK_DISTANCE_TO_SUN_AU.getMin(), PHYSICS_CONSTANT.BLACK_DISTANCE_TO_SUN_AU.getMax(), .1);
+            double angle = generateRandomWithSteps(this.random, 0, 2*Math.PI, .1);
             double blackHoleX = Math.cos(angle)* distanceToSun;
             double blackHoleY = Math.sin(angle) * distanceToSun;
 
-            this.blackHole = new CelestialBody(blackHoleX+ this.root.pos.x, blackHoleY+ this.root.pos.y, PHYSICS_CONSTANT.BLACK_HOLE_RADIUS* this.EXP_SCALE, PHYSICS_CONSTANT.BLACK_HOLE_MASS, CELESTIAL_BODY_TYPE.BLACK_HOLE, Color.black, this.blackHole);
+            this.blackHole = new CelestialBody(this.store, blackHoleX+ this.root.getX(), blackHoleY+ this.root.getY(), PHYSICS_CONSTANT.BLACK_HOLE_RADIUS* this.EXP_SCALE, PHYSICS_CONSTANT.BLACK_HOLE_MASS, CELESTIAL_BODY_TYPE.BLACK_HOLE, Color.black, this.blackHole);
             this.bodies.add(this.blackHole);
         }
+
+        // built now, not by the first tick that pulls something in the system
+        this.getStaticGravityGrid();
+
+        if (event == null)
+            return;
+        event.end();
+        if (event.shouldCommit()) {
+            event.x = x;
+            event.y = y;
+            event.bodies = this.bodies.size();
+            event.blackHole = this.blackHole != null;
+            event.commit();
+        }
+    }
+
+    /**
+     * Constructor for an empty solar system: only the sun, without generated planets or
+     * black hole. Bodies are added with addBody().
+     *
+     * @param x The x-coordinate of the sun's position in pixels units.
+     * @param y The y-coordinate of the sun's position in pixels units.
+     */
+    public SolarSystem(double x, double y) {
+        this.random = null;
+        this.root = this.createSun(x, y);
+    }
+
+    private CelestialBody createSun(double x, double y) {
+        int sunRadius = PHYSICS_CONSTANT.SUN_RADIUS;
+        double sunMass = PHYSICS_CONSTANT.SUN_MASS;
+        return this.addBody(x * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE, y * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE,
+                sunRadius * this.EXP_SCALE, sunMass, Constant.CELESTIAL_BODY_TYPE.SUN, Color.ORANGE, null);
     }
 
     /**
      * Update the positions of all celestial bodies in the solar system.
+     * Each tick advances the orbits by GAME_CONSTANT.ORBIT_TIMESTEP of simulated time per
+     * base tick, so the orbits keep their speed at any tick rate. The integrator and the
+     * adaptive substeps are set in GAME_CONSTANT as well.
+     * Every GAME_CONSTANT.RAILS_CHECK_TICKS ticks the planets are checked for going on or
+     * off Kepler rails.
+     *
+     * @param dt The tick length in seconds.
+     */
+    public void update(double dt) {
+        this.prepareSolver();
+        this.lastSubsteps = this.store.step(orbitTime(dt),
+                this.gravitySolver, GAME_CONSTANT.INTEGRATOR, GAME_CONSTANT.ORBIT_STEP_ACCURACY,
+                GAME_CONSTANT.MAX_ORBIT_SUBSTEPS);
+        // the step ends with the solver prepared for the new positions
+        this.solverReady = true;
+        this.bodyHashReady = false;
+
+        if (!GAME_CONSTANT.KEPLER_RAILS) {
+            this.store.releaseRails();
+        } else if (--this.railsCheckIn <= 0) {
+            this.store.updateRails(this.gravitySolver, GAME_CONSTANT.RAILS_PERTURBATION_THRESHOLD);
+            this.railsCheckIn = GAME_CONSTANT.RAILS_CHECK_TICKS;
+        }
+    }
+
+    // Simulated seconds of orbit a tick of dt seconds advances the bodies by
+    public static double orbitTime(double dt) {
+        return GAME_CONSTANT.ORBIT_TIMESTEP * dt * GAME_CONSTANT.BASE_TICK_RATE;
+    }
+
+    /**
+     * Leaves a tick for later: the system stands still until catchUp() simulates the time
+     * it missed. Solar systems away from the player are simulated at a reduced rate this
+     * way, or only once they are seen again (see GameWorld).
+     *
+     * @param dt The tick length in seconds.
      */
-    public void update() {
+    public void defer(double dt) {
+        this.deferredTicks++;
+        this.deferredTime += dt;
+    }
 
-        for (int i = 1; i < this.bodies.size(); i++)
-            this.bodies.get(i).update(this.bodies);
+    /**
+     * Leaves several ticks for later at once, as that many calls of defer() would.
+     *
+     * @param ticks the number of ticks
+     * @param time  the seconds they cover together
+     */
+    public void defer(int ticks, double time) {
+        this.deferredTicks += ticks;
+        this.deferredTime += time;
+    }
+
+    /**
+     * Simulates the ticks left by defer(), GAME_CONSTANT.LOD_CATCH_UP_TICKS of them per
+     * update. A longer update just covers more simulated time; the adaptive substeps split
+     * it as the orbits need, and planets on Kepler rails land exactly where they would have.
+     *
+     * @param maxUpdates most updates to spend; a system far behind can catch up over several calls
+     */
+    public void catchUp(int maxUpdates) {
+        for (int k = 0; k < maxUpdates && this.deferredTicks > 0; k++) {
+            int ticks = Math.min(this.deferredTicks, GAME_CONSTANT.LOD_CATCH_UP_TICKS);
+            double dt = this.deferredTime * ticks / this.deferredTicks;
+            this.update(dt);
+            this.deferredTicks -= ticks;
+            this.deferredTime -= dt;
+        }
+        if (this.deferredTicks == 0)
+            this.deferredTime = 0;
+    }
+
+    // Ticks the system is behind the world
+    public int getDeferredTicks() {
+        return this.deferredTicks;
+    }
+
+    // Substeps the last update took
+    public int getLastSubsteps() {
+        return this.lastSubsteps;
+    }
+
+    /**
+     * Computes the gravitational field of the system's bodies at a point (see GravitySolver).
+     * Black holes are not included.
+     *
+     * @param x   x-coordinate of the point in AU scale
+     * @param y   y-coordinate of the point in AU scale
+     * @param out receives the field, {x, y}
+     */
+    public void gravityAt(double x, double y, double[] out) {
+        this.prepareSolver();
+        this.gravitySolver.field(this.store, x, y, -1, out);
+    }
+
+    /**
+     * Computes the gravitational field of the suns and black holes of the system at a point,
+     * from the system's StaticGravityGrid (see there). Planets are not included.
+     *
+     * @param x   x-coordinate of the point in AU scale
+     * @param y   y-coordinate of the point in AU scale
+     * @param out receives {sunX, sunY, holeX, holeY}
+     */
+    public void staticGravityAt(double x, double y, double[] out) {
+        this.getStaticGravityGrid().sample(x, y, out);
+    }
+
+    /**
+     * The grid of the suns and black holes over the system's square of the world grid,
+     * GAME_CONSTANT.STATIC_GRAVITY_GRID cells per side. Built on the first call, and again
+     * when a sun or black hole was added or the resolution changed since.
+     */
+    public StaticGravityGrid getStaticGravityGrid() {
+        int resolution = GAME_CONSTANT.STATIC_GRAVITY_GRID;
+        if (this.staticGrid == null || this.staticGridSources != this.store.getNonPlanetCount()
+                || this.staticGrid.getResolution() != resolution) {
+            double size = GAME_CONSTANT.SOLAR_SYSTEM_SIZE * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE;
+            this.staticGrid = new StaticGravityGrid(this.store, this.root.getX() - size / 2,
+                    this.root.getY() - size / 2, size, resolution, GAME_CONSTANT.STATIC_GRAVITY_EXACT_CELLS);
+            this.staticGridSources = this.store.getNonPlanetCount();
+        }
+        return this.staticGrid;
+    }
+
+    /**
+     * The bodies of the system in a SpatialHash, as circles in pixels of half their radius
+     * like the collision tests use. The id of a body is its index in the store. Brought up to
+     * date on the first call after the bodies moved, so only systems that are asked pay for it.
+     */
+    public SpatialHash<CelestialBody> getBodyHash() {
+        if (this.bodyHashReady)
+            return this.bodyHash;
+        double maxSpeedSq = 0;
+        for (int i = 0; i < this.bodies.size(); i++) {
+            maxSpeedSq = Math.max(maxSpeedSq, this.store.getVx(i) * this.store.getVx(i) + this.store.getVy(i) * this.store.getVy(i));
+            double x = this.store.getX(i) * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE;
+            double y = this.store.getY(i) * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE;
+            double radius = this.bodies.get(i).getRadius() / 2;
+            if (i < this.bodyHash.size())
+                this.bodyHash.update(i, x, y, radius);
+            else
+                this.bodyHash.add(this.bodies.get(i), x, y, radius);
+        }
+        this.maxBodySpeed = Math.sqrt(maxSpeedSq) * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE;
+        this.bodyHashReady = true;
+        return this.bodyHash;
+    }
+
+    // The largest speed of a body of the system in pixels per simulated second
+    public double getMaxBodySpeed() {
+        this.getBodyHash();
+        return this.maxBodySpeed;
+    }
+
+    // Prepares the solver once per tick, on the first use after the bodies moved
+    private void prepareSolver() {
+        if (this.solverReady)
+            return;
+        if (!this.fixedSolver) {
+            boolean large = this.store.size() >= GAME_CONSTANT.BARNES_HUT_MIN_BODIES;
+            if (large && !(this.gravitySolver instanceof BarnesHutSolver))
+                this.gravitySolver = new BarnesHutSolver(GAME_CONSTANT.BARNES_HUT_THETA);
+            else if (!large && this.gravitySolver instanceof BarnesHutSolver)
+                this.gravitySolver = VectorGravity.newDirectSolver();
+        }
+        this.gravitySolver.prepare(this.store);
+        this.solverReady = true;
+    }
+
+    /**
+     * Sets the gravity solver of the system.
+     *
+     * @param solver the solver to use from now on, or null to pick one by body count again
+     */
+    public void setGravitySolver(GravitySolver solver) {
+        this.fixedSolver = solver != null;
+        this.gravitySolver = solver != null ? solver : VectorGravity.newDirectSolver();
+        this.solverReady = false;
+    }
+
+    public GravitySolver getGravitySolver() {
+        return this.gravitySolver;
     }
 
     /**
@@ -80,31 +332,30 @@ public class SolarSystem {
      */
     private void generateDefaultSolarSystem() {
 
-        Random rand = new Random();
         // Will produce only bright / light colours:
-        double r = rand.nextFloat() / 2f + 0.5;
-        double g = rand.nextFloat() / 2f + 0.5;
-        double b = rand.nextFloat() / 2f + 0.5;
+        double r = this.random.nextFloat() / 2f + 0.5;
+        double g = this.random.nextFloat() / 2f + 0.5;
+        double b = this.random.nextFloat() / 2f + 0.5;
         Color newColor = new Color((float) r, (float) g, (float) b);
 
         // Generate Mercury celestial body
         newColor = Color.DARK_GRAY;
-        this.bodies.add(new CelestialBody((PHYSICS_CONSTANT.MERCURY_DISTANCE_TO_SUN_AU) + this.root.pos.x, this.root.pos.y,
+        this.bodies.add(new CelestialBody(this.store, (PHYSICS_CONSTANT.MERCURY_DISTANCE_TO_SUN_AU) + this.root.getX(), this.root.getY(),
                 8 * this.EXP_SCALE, 3.30e23, CELESTIAL_BODY_TYPE.PLANET, newColor, this.root));
 
         // Generate Venus celestial body
         newColor = Color.WHITE;
-        this.bodies.add(new CelestialBody(-(PHYSICS_CONSTANT.VENUS_DISTANCE_TO_SUN_AU) + this.root.pos.x, this.root.pos.y,
+        this.bodies.add(new CelestialBody(this.store, -(PHYSICS_CONSTANT.VENUS_DISTANCE_TO_SUN_AU) + this.root.getX(), this.root.getY(),
                 14 * this.EXP_SCALE, 4.8685e24, CELESTIAL_BODY_TYPE.PLANET, newColor, this.root));
 
         // Generate Earth celestial body
         newColor = Color.BLUE;
-        this.bodies.add(new CelestialBody((PHYSICS_CONSTANT.EARTH_DISTANCE_TO_SUN_AU) + this.root.pos.x, this.root.pos.y,
+        this.bodies.add(new CelestialBody(this.store, (PHYSICS_CONSTANT.EARTH_DISTANCE_TO_SUN_AU) + this.root.getX(), this.root.getY(),
                 16 * this.EXP_SCALE, 5.9742e24, CELESTIAL_BODY_TYPE.PLANET, newColor, this.root));
 
         // Generate Mars celestial body
         newColor = Color.RED;
-        this.bodies.add(new CelestialBody(-(PHYSICS_CONSTANT.MARS_DISTANCE_TO_SUN_AU) + this.root.pos.x, this.root.pos.y,
+        this.bodies.add(new CelestialBody(this.store, -(PHYSICS_CONSTANT.MARS_DISTANCE_TO_SUN_AU) + this.root.getX(), this.root.getY(),
                 12 * this.EXP_SCALE, 6.39e23, CELESTIAL_BODY_TYPE.PLANET, newColor, this.root));
     }
 
@@ -116,47 +367,45 @@ public class SolarSystem {
      */
     private void generateSolarSystem(CelestialBody parent) {
 
-        Random colorRand = new Random();
-
         // Determines how many orbits (planets) to generate
-        int numberOfOrbit = (int) generateRandomWithSteps(
+        int numberOfOrbit = (int) generateRandomWithSteps(this.random,
                 PHYSICS_CONSTANT.AMOUNT_OF_ORBIT_RANGE.getMin(),
                 PHYSICS_CONSTANT.AMOUNT_OF_ORBIT_RANGE.getMax(),
                 1);
 
         for (int i = 0; i < numberOfOrbit; i++) {
             // Generate a random radius for the celestial body
-            double newRadius = generateRandomWithSteps(PHYSICS_CONSTANT.CELESTIAL_BODY_RADIUS_RANGE.getMin(),
+            double newRadius = generateRandomWithSteps(this.random, PHYSICS_CONSTANT.CELESTIAL_BODY_RADIUS_RANGE.getMin(),
                     PHYSICS_CONSTANT.CELESTIAL_BODY_RADIUS_RANGE.getMax(), 1);
             double newDistanceToSun=0;
 
             // Determine the distance to the sun based on the orbit index
             // The distance to the sun is determined by the orbit index 
             if(i == this.FIRST_ORBIT){
-             newDistanceToSun = generateRandomWithSteps(PHYSICS_CONSTANT.FIRST_PLANET_DISTNACE_TO_SUN_RANGE.getMin(),
+             newDistanceToSun = generateRandomWithSteps(this.random, PHYSICS_CONSTANT.FIRST_PLANET_DISTNACE_TO_SUN_RANGE.getMin(),
                     PHYSICS_CONSTANT.FIRST_PLANET_DISTNACE_TO_SUN_RANGE.getMax(), .1);
             }else if(i == this.SECOND_ORBIT){
-                 newDistanceToSun = generateRandomWithSteps(PHYSICS_CONSTANT.SECOND_PLANET_DISTNACE_TO_SUN_RANGE.getMin(),
+                 newDistanceToSun = generateRandomWithSteps(this.random, PHYSICS_CONSTANT.SECOND_PLANET_DISTNACE_TO_SUN_RANGE.getMin(),
                     PHYSICS_CONSTANT.SECOND_PLANET_DISTNACE_TO_SUN_RANGE.getMax(), .1);
             }else if(i == this.THIRD_ORBIT){
-                 newDistanceToSun = generateRandomWithSteps(PHYSICS_CONSTANT.THIRD_PLANET_DISTNACE_TO_SUN_RANGE.getMin(),
+                 newDistanceToSun = generateRandomWithSteps(this.random, PHYSICS_CONSTANT.THIRD_PLANET_DISTNACE_TO_SUN_RANGE.getMin(),
                     PHYSICS_CONSTANT.THIRD_PLANET_DISTNACE_TO_SUN_RANGE.getMax(), .1);
             }else if(i == this.FOURTH_ORBIT){
-                 newDistanceToSun = generateRandomWithSteps(PHYSICS_CONSTANT.FOURTH_PLANET_DISTNACE_TO_SUN_RANGE.getMin(),
+                 newDistanceToSun = generateRandomWithSteps(this.random, PHYSICS_CONSTANT.FOURTH_PLANET_DISTNACE_TO_SUN_RANGE.getMin(),
                     PHYSICS_CONSTANT.FOURTH_PLANET_DISTNACE_TO_SUN_RANGE.getMax(), .1);
             }else if(i == this.FIFTH_ORBIT){
-                 newDistanceToSun = generateRandomWithSteps(PHYSICS_CONSTANT.FIFTH_PLANET_DISTNACE_TO_SUN_RANGE.getMin(),
+                 newDistanceToSun = generateRandomWithSteps(this.random, PHYSICS_CONSTANT.FIFTH_PLANET_DISTNACE_TO_SUN_RANGE.getMin(),
                     PHYSICS_CONSTANT.FIFTH_PLANET_DISTNACE_TO_SUN_RANGE.getMax(), .1);
             }
             // Calculate the mass of the celestial body based on its volume and a constant factor
             double newMass = calculateSurfaceAreaOfPlanet(newRadius * this.EXP_SCALE) * 1e22;
             // Will produce only bright / light colours:
-            double r = colorRand.nextFloat() / 2f + 0.5;
-            double g = colorRand.nextFloat() / 2f + 0.5;
-            double b = colorRand.nextFloat() / 2f + 0.5;
+            double r = this.random.nextFloat() / 2f + 0.5;
+            double g = this.random.nextFloat() / 2f + 0.5;
+            double b = this.random.nextFloat() / 2f + 0.5;
             Color newColor = new Color((float) r, (float) g, (float) b);
 
-            int dir = (int)generateRandomWithSteps(0, 1, 1);
+            int dir = (int)generateRandomWithSteps(this.random, 0, 1, 1);
 
             if(dir == 0)
                 dir = -1;
@@ -164,7 +413,7 @@ public class SolarSystem {
                 dir = 1;
 
             // Create a new celestial body (planet) and add it to the solar system
-            this.bodies.add(new CelestialBody( dir * (PHYSICS_CONSTANT.AU * newDistanceToSun) + this.root.pos.x, this.root.pos.y,
+            this.bodies.add(new CelestialBody(this.store,  dir * (PHYSICS_CONSTANT.AU * newDistanceToSun) + this.root.getX(), this.root.getY(),
                     newRadius * this.EXP_SCALE, newMass, CELESTIAL_BODY_TYPE.PLANET, newColor, parent));
             
             //Determine to create a moon or not
@@ -198,8 +447,9 @@ public class SolarSystem {
         return 4 * Math.PI * radius * radius;
     }
 
-    /** Returns a random number in [min, max] with the given step size. */
-    public static double generateRandomWithSteps(double min,
+    /** Returns a random number in [min, max] with the given step size, drawn from rand. */
+    public static double generateRandomWithSteps(Random rand,
+            double min,
             double max,
             double step) {
         if (max < min) { // swap if caller mixed them up
@@ -209,17 +459,44 @@ public class SolarSystem {
         }
 
         int steps = (int) Math.floor((max - min) / step + 1); // always ≥ 1 now
-        int rnd = ThreadLocalRandom.current().nextInt(steps); // faster & thread-safe
+        int rnd = rand.nextInt(steps);
         return min + rnd * step;
     }
 
     /**
-     * Renders all celestial bodies in the solar system.
+     * Copies all celestial bodies in the solar system into a snapshot for rendering.
      */
-    public void render(Graphics2D g2) {
+    void writeTo(WorldSnapshot snapshot) {
+        snapshot.setBodyCount(this.bodies.size());
+        for (int i = 0; i < this.bodies.size(); i++)
+            this.bodies.get(i).writeTo(snapshot, i);
+    }
+
+    /**
+     * Adds a celestial body to the solar system.
+     * The body takes part in the system's gravity from the next update on.
+     *
+     * @param x        The x-coordinate of the body's position in AU scale.
+     * @param y        The y-coordinate of the body's position in AU scale.
+     * @param radius   The radius of the body in pixels.
+     * @param mass     The mass of the body in kg.
+     * @param bodyType The type of the body; planets start on a circular orbit around the parent.
+     * @param color    The color of the body.
+     * @param parent   The body it orbits, or null.
+     * @return the new body
+     */
+    public CelestialBody addBody(double x, double y, double radius, double mass, CELESTIAL_BODY_TYPE bodyType,
+            Color color, CelestialBody parent) {
+        CelestialBody body = new CelestialBody(this.store, x, y, radius, mass, bodyType, color, parent);
+        this.bodies.add(body);
+        this.solverReady = false;
+        this.bodyHashReady = false;
+        return body;
+    }
 
-        for (CelestialBody body : this.bodies)
-            body.render(g2);
+    // The packed state of all bodies of the system
+    public BodyStore getBodyStore() {
+        return this.store;
     }
 
     /**
@@ -244,7 +521,7 @@ public class SolarSystem {
      * Returns the pixel coordinates of the solar system's center.
      */
     public String toString(){
-        return "Position of the solar system: " + this.root.pos.x * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE+ ", " + this.root.pos.y * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE;
+        return "Position of the solar system: " + this.root.getX() * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE+ ", " + this.root.getY() * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE;
     }
 
 }
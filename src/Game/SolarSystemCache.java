@@ -0,0 +1,202 @@
+package Game;
+
+import Game.Constant.GAME_CONSTANT;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * SolarSystemCache class holds the solar systems of a GameWorld. Every Sector of the plane,
+ * however far out, has one, generated when it is first asked for from a generator seeded by
+ * the sector (see Sector.seed()), so it comes out the same every time it is generated.
+ * At most GAME_CONSTANT.SOLAR_SYSTEM_CACHE systems are held: a new one beyond that drops
+ * the least recently used system that is not kept (see keep()), which is generated again
+ * should the ship come back, so memory stays flat however far the ship flies. When every
+ * system held is kept, the cache grows past its size instead.
+ * A system generated after the world started missed every tick so far. It gets them as
+ * deferred ticks (see SolarSystem.defer()) and catches up on them like a system that was
+ * dormant since the start, so it does not matter whether it was held all along.
+ * The systems are held in a list with their sectors and found by a scan starting at the
+ * last one found. There are few of them, and unlike a map keyed by sector a lookup does not
+ * box a key, so the lookups of a tick do not allocate.
+ */
+public class SolarSystemCache {
+    private static final int INITIAL_CAPACITY = 16;
+
+    // seed all the systems are derived from, mixed with their sector
+    private final long seed;
+
+    private final ArrayList<SolarSystem> systems = new ArrayList<>();
+    // sector of each system, and the tick it was last looked up or kept, by its index in systems
+    private long[] sectorX = new long[INITIAL_CAPACITY];
+    private long[] sectorY = new long[INITIAL_CAPACITY];
+    private long[] lastUsed = new long[INITIAL_CAPACITY];
+    // where the last lookup found its system
+    private int lastFound = 0;
+
+    // ticks the world has run and the seconds they covered, handed to every new system
+    private int ticks = 0;
+    private double time = 0;
+
+    // never dropped: the sectors up to keepRadius from (keepX, keepY), and the pinned system
+    private long keepX;
+    private long keepY;
+    private int keepRadius = -1;
+    private SolarSystem pinned;
+
+    // systems generated so far, the ones generated again included
+    private int generated = 0;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param seed the seed of the world's solar systems
+     */
+    public SolarSystemCache(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * The solar system of a sector, generated when it is not held.
+     *
+     * @param x the sector's index along x
+     * @param y the sector's index along y
+     */
+    public SolarSystem get(long x, long y) {
+        int k = this.indexOf(x, y);
+        if (k < 0)
+            k = this.generate(x, y);
+        this.lastUsed[k] = this.ticks;
+        return this.systems.get(k);
+    }
+
+    /**
+     * The solar system of a sector if it is held, without generating it.
+     *
+     * @param x the sector's index along x
+     * @param y the sector's index along y
+     * @return the system, or null when it is not held
+     */
+    public SolarSystem find(long x, long y) {
+        int k = this.indexOf(x, y);
+        if (k < 0)
+            return null;
+        this.lastUsed[k] = this.ticks;
+        return this.systems.get(k);
+    }
+
+    /**
+     * Sets the systems that are never dropped: the ones up to radius sectors from a sector
+     * (diagonals count as one), which are the ones the world simulates, and one more.
+     *
+     * @param x      the sector's index along x
+     * @param y      the sector's index along y
+     * @param radius the radius in sectors
+     * @param pinned a system to keep wherever it is, or null
+     */
+    void keep(long x, long y, int radius, SolarSystem pinned) {
+        this.keepX = x;
+        this.keepY = y;
+        this.keepRadius = radius;
+        this.pinned = pinned;
+    }
+
+    /**
+     * Counts a tick of the world: systems generated from now on have missed it as well.
+     * The kept systems count as used in it.
+     *
+     * @param dt The tick length in seconds.
+     */
+    void advance(double dt) {
+        this.ticks++;
+        this.time += dt;
+        for (int k = 0; k < this.systems.size(); k++) {
+            if (this.isKept(k))
+                this.lastUsed[k] = this.ticks;
+        }
+    }
+
+    // Number of systems held
+    public int size() {
+        return this.systems.size();
+    }
+
+    // System k of the ones held; the order changes when one is dropped
+    public SolarSystem get(int k) {
+        return this.systems.get(k);
+    }
+
+    // Sector of system k along x
+    public long getSectorX(int k) {
+        return this.sectorX[k];
+    }
+
+    // Sector of system k along y
+    public long getSectorY(int k) {
+        return this.sectorY[k];
+    }
+
+    // Systems generated so far, counting every time one was generated again
+    public int getGenerated() {
+        return this.generated;
+    }
+
+    // Index of the system of a sector, or -1 when it is not held
+    private int indexOf(long x, long y) {
+        int n = this.systems.size();
+        for (int j = 0, k = this.lastFound; j < n; j++, k = k + 1 == n ? 0 : k + 1) {
+            if (this.sectorX[k] == x && this.sectorY[k] == y) {
+                this.lastFound = k;
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    // Generates the system of a sector, making room for it first; returns its index
+    private int generate(long x, long y) {
+        if (this.systems.size() >= GAME_CONSTANT.SOLAR_SYSTEM_CACHE)
+            this.evict();
+
+        SolarSystem system = new SolarSystem(Sector.center(x), Sector.center(y),
+                new Random(Sector.seed(this.seed, x, y)));
+        system.defer(this.ticks, this.time);
+        this.generated++;
+
+        int k = this.systems.size();
+        if (k == this.sectorX.length) {
+            this.sectorX = Arrays.copyOf(this.sectorX, k * 2);
+            this.sectorY = Arrays.copyOf(this.sectorY, k * 2);
+            this.lastUsed = Arrays.copyOf(this.lastUsed, k * 2);
+        }
+        this.systems.add(system);
+        this.sectorX[k] = x;
+        this.sectorY[k] = y;
+        return k;
+    }
+
+    // Drops the least recently used system that is not kept, the first of equally old ones
+    private void evict() {
+        int oldest = -1;
+        for (int k = 0; k < this.systems.size(); k++) {
+            if (!this.isKept(k) && (oldest < 0 || this.lastUsed[k] < this.lastUsed[oldest]))
+                oldest = k;
+        }
+        if (oldest < 0)
+            return;
+
+        // the last system takes its place
+        int last = this.systems.size() - 1;
+        this.systems.set(oldest, this.systems.get(last));
+        this.sectorX[oldest] = this.sectorX[last];
+        this.sectorY[oldest] = this.sectorY[last];
+        this.lastUsed[oldest] = this.lastUsed[last];
+        this.systems.remove(last);
+        this.lastFound = 0;
+    }
+
+    private boolean isKept(int k) {
+        return this.systems.get(k) == this.pinned || (Math.abs(this.sectorX[k] - this.keepX) <= this.keepRadius
+                && Math.abs(this.sectorY[k] - this.keepY) <= this.keepRadius);
+    }
+}
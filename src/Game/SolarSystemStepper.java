@@ -0,0 +1,99 @@
+package Game;
+
+import Game.Constant.GAME_CONSTANT;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * SolarSystemStepper class runs the solar system updates of a tick.
+ * Solar systems do not pull on each other, every body only feels the bodies of its own
+ * system, so their updates are independent. When enough of them are due and the machine
+ * has more than one core they are run in parallel on a dedicated ForkJoinPool; run()
+ * returns once all of them are done, so the logic after it sees every system updated.
+ * Each system is updated by the same code with the same operations in the same order
+ * either way, so the results are bit for bit the same as a serial run.
+ * GAME_CONSTANT.PARALLEL_SYSTEMS = false forces serial updates.
+ */
+public class SolarSystemStepper {
+    // asking the runtime every tick is slow in containers
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+    // worker threads shared by all worlds, started on first use
+    private static ForkJoinPool pool;
+
+    // the systems due this tick and the most updates each may spend catching up
+    private final ArrayList<SolarSystem> due = new ArrayList<>();
+    private int[] maxUpdates = new int[16];
+
+    // Starts a new tick with no systems due
+    void clear() {
+        this.due.clear();
+    }
+
+    /**
+     * Queues a system to catch up on its deferred ticks (see SolarSystem.catchUp()).
+     *
+     * @param system     the system
+     * @param maxUpdates most updates it may spend
+     */
+    void add(SolarSystem system, int maxUpdates) {
+        if (this.due.size() == this.maxUpdates.length)
+            this.maxUpdates = Arrays.copyOf(this.maxUpdates, this.maxUpdates.length * 2);
+        this.maxUpdates[this.due.size()] = maxUpdates;
+        this.due.add(system);
+    }
+
+    // Updates the queued systems and waits for all of them
+    void run() {
+        int count = this.due.size();
+        if (count == 0)
+            return;
+        if (!GAME_CONSTANT.PARALLEL_SYSTEMS || count < GAME_CONSTANT.PARALLEL_MIN_SYSTEMS || CORES < 2) {
+            for (int k = 0; k < count; k++)
+                this.update(k);
+            return;
+        }
+        pool().invoke(new Batch(0, count));
+    }
+
+    private void update(int k) {
+        this.due.get(k).catchUp(this.maxUpdates[k]);
+    }
+
+    private static synchronized ForkJoinPool pool() {
+        if (pool == null) {
+            // daemon threads, like the default ones, so they never keep the game from exiting
+            pool = new ForkJoinPool(CORES, p -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                thread.setName("solar-systems-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+        }
+        return pool;
+    }
+
+    // The due systems from..to, split in halves until every task holds one system
+    @SuppressWarnings("serial")
+    private final class Batch extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        Batch(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from == 1) {
+                SolarSystemStepper.this.update(this.from);
+                return;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(new Batch(this.from, middle), new Batch(middle, this.to));
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package Game;
+
+import java.util.Arrays;
+
+/**
+ * SpatialHash class is the broad phase of the collision and proximity tests: a uniform grid
+ * of square cells, every cell hashed into one of a fixed number of buckets, so the grid has
+ * no bounds and holds memory only for what is in it.
+ * An entry is a circle with an owner. It is listed in the bucket of every cell it overlaps,
+ * so a query only visits the cells its own circle overlaps and tests the entries listed there
+ * exactly; its cost goes with how crowded the neighbourhood is, not with the number of
+ * entries. Cells that hash to the same bucket share it, which costs a few more exact tests
+ * but never a wrong answer.
+ * update() keeps an entry current and only touches the buckets when the circle moved into
+ * other cells; most ticks it just stores the new position.
+ * A query over more cells than there are buckets would visit buckets again and again, so it
+ * tests every entry once instead; the cost of a query never exceeds a scan.
+ * The listings are nodes of one pool, chained per bucket. An entry reserves as many as the
+ * most cells its circle can overlap when it is added, so moving it never grows the pool.
+ * The queries write their answer into a result list held by the hash (getResult()), sized
+ * for every entry as they are added, so queries never allocate; the next query overwrites
+ * it. The results are sorted, so they do not depend on the order the entries were moved in.
+ * Like BarnesHutSolver an instance serves one thread at a time.
+ *
+ * @param <T> the type of the owners of the entries
+ */
+public class SpatialHash<T> {
+    private final double cellSize;
+    private final int bucketMask;
+    // first listing per bucket, -1 for none; an entry is listed once per overlapped cell
+    private final int[] bucketHeads;
+    // the pool of listings: the entry and the next listing of the same bucket, -1 at the end
+    private int[] listingEntry = new int[16];
+    private int[] listingNext = new int[16];
+    private int listingCount = 0; // listings handed out so far
+    private int freeListing = -1; // chain of the freed ones
+    private int reservedListings = 0; // the most listings the entries can need at once
+
+    // entries by id, owner null for a free id
+    private Object[] owners = new Object[16];
+    private double[] x = new double[16];
+    private double[] y = new double[16];
+    private double[] radius = new double[16];
+    // the cells each entry is listed in, inclusive
+    private int[] minCellX = new int[16];
+    private int[] minCellY = new int[16];
+    private int[] maxCellX = new int[16];
+    private int[] maxCellY = new int[16];
+    // the last query that saw the entry, so one listed in several cells is tested once
+    private int[] seenBy = new int[16];
+    private int query = 0;
+
+    private int idCount = 0; // ids handed out so far
+    private int size = 0;
+    private int[] freeIds = new int[16];
+    private int freeCount = 0;
+
+    // answer of the last query
+    private int[] results = new int[16];
+    private double[] resultDistSq = new double[16];
+    private int resultCount = 0;
+
+    /**
+     * Creates an empty hash.
+     *
+     * @param cellSize edge length of a cell; about the size of the queries works best
+     * @param buckets  number of buckets, rounded up to a power of two
+     */
+    public SpatialHash(double cellSize, int buckets) {
+        if (!(cellSize > 0))
+            throw new IllegalArgumentException("cell size must be positive: " + cellSize);
+        this.cellSize = cellSize;
+        int count = Integer.highestOneBit(Math.max(1, buckets - 1)) << 1;
+        this.bucketMask = count - 1;
+        this.bucketHeads = new int[count];
+        Arrays.fill(this.bucketHeads, -1);
+    }
+
+    /**
+     * Adds an entry.
+     *
+     * @param owner  what the entry stands for, not null
+     * @param x      x-coordinate of the center
+     * @param y      y-coordinate of the center
+     * @param radius radius of the circle
+     * @return the id of the entry; the lowest free one, so entries added to an empty hash get 0, 1, 2, ...
+     */
+    public int add(T owner, double x, double y, double radius) {
+        if (owner == null)
+            throw new IllegalArgumentException("owner must not be null");
+        int id;
+        if (this.freeCount > 0) {
+            id = this.freeIds[--this.freeCount];
+        } else {
+            id = this.idCount++;
+            if (id == this.owners.length)
+                this.grow();
+        }
+        this.owners[id] = owner;
+        this.size++;
+        if (this.size > this.results.length) {
+            // a query finds each entry at most once, so it never has to grow them
+            this.results = Arrays.copyOf(this.results, this.results.length * 2);
+            this.resultDistSq = Arrays.copyOf(this.resultDistSq, this.results.length);
+        }
+        this.reserveListings(maxCells(radius));
+        this.place(id, x, y, radius);
+        this.insert(id);
+        return id;
+    }
+
+    /**
+     * Moves an entry, keeping its radius.
+     *
+     * @param id the entry
+     * @param x  x-coordinate of the center
+     * @param y  y-coordinate of the center
+     */
+    public void update(int id, double x, double y) {
+        this.update(id, x, y, this.radius[id]);
+    }
+
+    /**
+     * Moves and resizes an entry. The buckets are only touched when it moved into other cells.
+     *
+     * @param id     the entry
+     * @param x      x-coordinate of the center
+     * @param y      y-coordinate of the center
+     * @param radius radius of the circle
+     */
+    public void update(int id, double x, double y, double radius) {
+        this.checkId(id);
+        if (radius != this.radius[id])
+            this.reserveListings(maxCells(radius) - maxCells(this.radius[id]));
+        int x0 = this.minCellX[id], y0 = this.minCellY[id], x1 = this.maxCellX[id], y1 = this.maxCellY[id];
+        this.place(id, x, y, radius);
+        if (x0 == this.minCellX[id] && y0 == this.minCellY[id] && x1 == this.maxCellX[id] && y1 == this.maxCellY[id])
+            return;
+        this.unlist(id, x0, y0, x1, y1);
+        this.insert(id);
+    }
+
+    // Removes an entry; its id is handed out again
+    public void remove(int id) {
+        this.checkId(id);
+        this.unlist(id, this.minCellX[id], this.minCellY[id], this.maxCellX[id], this.maxCellY[id]);
+        this.reservedListings -= maxCells(this.radius[id]);
+        this.owners[id] = null;
+        if (this.freeCount == this.freeIds.length)
+            this.freeIds = Arrays.copyOf(this.freeIds, this.freeCount * 2);
+        // the lowest free id goes first, so keep them sorted high to low
+        int k = this.freeCount++;
+        while (k > 0 && this.freeIds[k - 1] < id) {
+            this.freeIds[k] = this.freeIds[k - 1];
+            k--;
+        }
+        this.freeIds[k] = id;
+        this.size--;
+    }
+
+    // Removes every entry
+    public void clear() {
+        Arrays.fill(this.bucketHeads, -1);
+        this.listingCount = 0;
+        this.freeListing = -1;
+        this.reservedListings = 0;
+        Arrays.fill(this.owners, 0, this.idCount, null);
+        this.idCount = 0;
+        this.size = 0;
+        this.freeCount = 0;
+        this.resultCount = 0;
+    }
+
+    /**
+     * Finds the entries whose circle overlaps a circle (touching is not enough).
+     *
+     * @param x      x-coordinate of the center
+     * @param y      y-coordinate of the center
+     * @param radius radius of the circle
+     * @return the number of entries found, read with getResult() in order of id
+     */
+    public int overlapping(double x, double y, double radius) {
+        this.resultCount = 0;
+        int query = this.nextQuery();
+        int x0 = this.cell(x - radius), x1 = this.cell(x + radius);
+        int y0 = this.cell(y - radius), y1 = this.cell(y + radius);
+        if ((long) (x1 - x0 + 1) * (y1 - y0 + 1) > this.bucketHeads.length) {
+            for (int id = 0; id < this.idCount; id++) {
+                if (this.owners[id] != null)
+                    this.testOverlap(id, x, y, radius);
+            }
+            return this.resultCount;
+        }
+        for (int cy = y0; cy <= y1; cy++) {
+            for (int cx = x0; cx <= x1; cx++) {
+                for (int l = this.bucketHeads[this.bucket(cx, cy)]; l >= 0; l = this.listingNext[l]) {
+                    int id = this.listingEntry[l];
+                    if (this.seenBy[id] == query)
+                        continue;
+                    this.seenBy[id] = query;
+                    this.testOverlap(id, x, y, radius);
+                }
+            }
+        }
+        return this.resultCount;
+    }
+
+    private void testOverlap(int id, double x, double y, double radius) {
+        double dx = this.x[id] - x;
+        double dy = this.y[id] - y;
+        double reach = this.radius[id] + radius;
+        if (dx * dx + dy * dy < reach * reach)
+            this.addResult(id, id);
+    }
+
+    /**
+     * Finds the entries whose centers are nearest to a point. The search walks out from the
+     * point's cell ring by ring and stops once no entry further out can be nearer.
+     *
+     * @param x           x-coordinate of the point
+     * @param y           y-coordinate of the point
+     * @param k           most entries to find
+     * @param maxDistance entries whose center is further away are left out
+     * @return the number of entries found, read with getResult() nearest first
+     */
+    public int nearest(double x, double y, int k, double maxDistance) {
+        this.resultCount = 0;
+        if (k <= 0 || this.size == 0)
+            return 0;
+        int query = this.nextQuery();
+        int seen = 0;
+        double maxDistSq = maxDistance * maxDistance;
+        int cx0 = this.cell(x), cy0 = this.cell(y);
+        for (int ring = 0;; ring++) {
+            for (int cy = cy0 - ring; cy <= cy0 + ring; cy++) {
+                // the inner cells were searched by the smaller rings
+                boolean edge = cy == cy0 - ring || cy == cy0 + ring;
+                for (int cx = cx0 - ring; cx <= cx0 + ring; cx += edge || ring == 0 ? 1 : 2 * ring) {
+                    for (int l = this.bucketHeads[this.bucket(cx, cy)]; l >= 0; l = this.listingNext[l]) {
+                        int id = this.listingEntry[l];
+                        if (this.seenBy[id] == query)
+                            continue;
+                        this.seenBy[id] = query;
+                        seen++;
+                        double dx = this.x[id] - x;
+                        double dy = this.y[id] - y;
+                        double distSq = dx * dx + dy * dy;
+                        if (distSq <= maxDistSq && (this.resultCount < k || distSq < this.resultDistSq[k - 1])) {
+                            if (this.resultCount == k)
+                                this.resultCount--; // the furthest one makes room
+                            this.addResult(id, distSq);
+                        }
+                    }
+                }
+            }
+            // an entry not seen yet is listed in none of the searched cells, and its center
+            // with it, so it is at least this far away
+            double unseen = ring * this.cellSize;
+            if (seen == this.size || unseen > maxDistance
+                    || (this.resultCount == k && this.resultDistSq[k - 1] <= unseen * unseen))
+                return this.resultCount;
+        }
+    }
+
+    // The i-th entry found by the last query
+    public int getResult(int i) {
+        return this.results[i];
+    }
+
+    // Number of entries found by the last query
+    public int getResultCount() {
+        return this.resultCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int id) {
+        this.checkId(id);
+        return (T) this.owners[id];
+    }
+
+    public double getX(int id) {
+        return this.x[id];
+    }
+
+    public double getY(int id) {
+        return this.y[id];
+    }
+
+    public double getRadius(int id) {
+        return this.radius[id];
+    }
+
+    // Number of entries
+    public int size() {
+        return this.size;
+    }
+
+    public double getCellSize() {
+        return this.cellSize;
+    }
+
+    // Stores the circle of an entry and the cells it overlaps
+    private void place(int id, double x, double y, double radius) {
+        this.x[id] = x;
+        this.y[id] = y;
+        this.radius[id] = radius;
+        this.minCellX[id] = this.cell(x - radius);
+        this.minCellY[id] = this.cell(y - radius);
+        this.maxCellX[id] = this.cell(x + radius);
+        this.maxCellY[id] = this.cell(y + radius);
+    }
+
+    // Lists an entry in the buckets of its cells
+    private void insert(int id) {
+        for (int cy = this.minCellY[id]; cy <= this.maxCellY[id]; cy++) {
+            for (int cx = this.minCellX[id]; cx <= this.maxCellX[id]; cx++) {
+                int l = this.freeListing;
+                if (l >= 0)
+                    this.freeListing = this.listingNext[l];
+                else
+                    l = this.listingCount++; // within the reserve, see reserveListings()
+                int b = this.bucket(cx, cy);
+                this.listingEntry[l] = id;
+                this.listingNext[l] = this.bucketHeads[b];
+                this.bucketHeads[b] = l;
+            }
+        }
+    }
+
+    // Takes an entry off the buckets of the given cells, once per cell
+    private void unlist(int id, int x0, int y0, int x1, int y1) {
+        for (int cy = y0; cy <= y1; cy++) {
+            for (int cx = x0; cx <= x1; cx++) {
+                int b = this.bucket(cx, cy);
+                int previous = -1;
+                for (int l = this.bucketHeads[b]; l >= 0; previous = l, l = this.listingNext[l]) {
+                    if (this.listingEntry[l] != id)
+                        continue;
+                    if (previous < 0)
+                        this.bucketHeads[b] = this.listingNext[l];
+                    else
+                        this.listingNext[previous] = this.listingNext[l];
+                    this.listingNext[l] = this.freeListing;
+                    this.freeListing = l;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Grows the reserve of listings by the given number, and the pool with it. A listing is
+     * only taken from the end of the pool when none is free, that is when all handed out are
+     * in use, and the entries never use more than they reserved, so the pool never runs out.
+     */
+    private void reserveListings(int count) {
+        this.reservedListings += count;
+        if (this.reservedListings > this.listingEntry.length) {
+            int capacity = Math.max(this.reservedListings, this.listingEntry.length * 2);
+            this.listingEntry = Arrays.copyOf(this.listingEntry, capacity);
+            this.listingNext = Arrays.copyOf(this.listingNext, capacity);
+        }
+    }
+
+    // The most cells a circle of the radius can overlap
+    private int maxCells(double radius) {
+        // an interval of length 2r covers at most 2r / cellSize + 2 cells along each axis
+        long side = (long) Math.floor(2 * radius / this.cellSize) + 2;
+        return (int) Math.min(side * side, Integer.MAX_VALUE / 2);
+    }
+
+    // Inserts into the results, which are kept sorted by key
+    private void addResult(int id, double key) {
+        int n = this.resultCount++;
+        while (n > 0 && this.resultDistSq[n - 1] > key) {
+            this.results[n] = this.results[n - 1];
+            this.resultDistSq[n] = this.resultDistSq[n - 1];
+            n--;
+        }
+        this.results[n] = id;
+        this.resultDistSq[n] = key;
+    }
+
+    private int nextQuery() {
+        if (++this.query == 0) {
+            // wrapped around after 2^32 queries; forget what the old ones saw
+            Arrays.fill(this.seenBy, 0);
+            this.query = 1;
+        }
+        return this.query;
+    }
+
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / this.cellSize);
+    }
+
+    private int bucket(int cx, int cy) {
+        int h = cx * 0x9E3779B1 ^ cy * 0x85EBCA77;
+        return (h ^ (h >>> 15)) & this.bucketMask;
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= this.idCount || this.owners[id] == null)
+            throw new IllegalArgumentException("no entry " + id);
+    }
+
+    private void grow() {
+        int capacity = this.owners.length * 2;
+        this.owners = Arrays.copyOf(this.owners, capacity);
+        this.x = Arrays.copyOf(this.x, capacity);
+        this.y = Arrays.copyOf(this.y, capacity);
+        this.radius = Arrays.copyOf(this.radius, capacity);
+        this.minCellX = Arrays.copyOf(this.minCellX, capacity);
+        this.minCellY = Arrays.copyOf(this.minCellY, capacity);
+        this.maxCellX = Arrays.copyOf(this.maxCellX, capacity);
+        this.maxCellY = Arrays.copyOf(this.maxCellY, capacity);
+        this.seenBy = Arrays.copyOf(this.seenBy, capacity);
+    }
+}
@@ -0,0 +1,209 @@
+package Game;
+
+import Game.Constant.CELESTIAL_BODY_TYPE;
+
+/**
+ * StaticGravityGrid class holds the field of the bodies of a solar system that never move,
+ * the suns and black holes, precomputed on a square grid of nodes. A query reads the four
+ * nodes around the point and interpolates them bilinearly, which costs the same however many
+ * of those bodies there are and is what makes their pull cheap enough for every enemy and
+ * trail particle. Only the planets move; whoever needs their pull adds it exactly on top.
+ * The field of suns and of black holes is kept apart, {sunX, sunY, holeX, holeY}, because
+ * the game weighs the two differently (see PLAYER_CONST). The field is the one of
+ * GravitySolver, m * d / |d|^3 summed, without G.
+ * The field grows as 1 / r^2 close to a body, where no grid resolution interpolates it
+ * well, so cells within exactCells cells of a body are marked and queries in them, or
+ * outside the grid, sum the bodies exactly. StaticGravityReport measures the error against
+ * the exact sum, and the time of both.
+ * A query costs four nodes whatever the number of bodies, the exact sum one square root per
+ * body, so the grid only wins once a system holds a handful of them; with a resolution of 0
+ * there are no nodes and every query is exact.
+ * The grid is built once from the positions and masses it is given; the bodies must not
+ * move or change afterwards.
+ */
+public class StaticGravityGrid {
+    private final double x0;
+    private final double y0;
+    private final double cellSize;
+    private final int resolution; // cells per side, one node more
+
+    // field at every node, row by row, {sunX, sunY, holeX, holeY} next to each other so the
+    // four nodes of a query share cache lines; {sunX, sunY} only if there is no black hole
+    private final double[] nodeField;
+    private final int stride;
+    // cells close to a body, answered exactly
+    private final boolean[] exact;
+
+    // the bodies, for the exact queries
+    private final double[] sourceX;
+    private final double[] sourceY;
+    private final double[] sourceMass;
+    private final boolean[] sourceHole;
+
+    /**
+     * Builds the grid for the suns and black holes of a store.
+     *
+     * @param bodies     the bodies of one solar system
+     * @param x0         x-coordinate of the lower left corner in AU scale
+     * @param y0         y-coordinate of the lower left corner in AU scale
+     * @param size       edge length of the covered square in AU scale
+     * @param resolution number of cells per side
+     * @param exactCells distance in cells from a body within which queries are exact
+     */
+    public StaticGravityGrid(BodyStore bodies, double x0, double y0, double size, int resolution, double exactCells) {
+        this.x0 = x0;
+        this.y0 = y0;
+        this.resolution = resolution;
+        this.cellSize = resolution > 0 ? size / resolution : size; // one cell that is all exact
+
+        int count = 0;
+        for (int k = 0; k < bodies.getNonPlanetCount(); k++) {
+            if (isStatic(bodies.getType(bodies.getNonPlanet(k))))
+                count++;
+        }
+        this.sourceX = new double[count];
+        this.sourceY = new double[count];
+        this.sourceMass = new double[count];
+        this.sourceHole = new boolean[count];
+        count = 0;
+        for (int k = 0; k < bodies.getNonPlanetCount(); k++) {
+            int i = bodies.getNonPlanet(k);
+            if (!isStatic(bodies.getType(i)))
+                continue;
+            this.sourceX[count] = bodies.getX(i);
+            this.sourceY[count] = bodies.getY(i);
+            this.sourceMass[count] = bodies.getMass(i);
+            this.sourceHole[count] = bodies.getType(i) == CELESTIAL_BODY_TYPE.BLACK_HOLE;
+            count++;
+        }
+
+        boolean holes = false;
+        for (boolean hole : this.sourceHole)
+            holes |= hole;
+        this.stride = holes ? 4 : 2;
+        int nodes = resolution > 0 ? resolution + 1 : 0;
+        this.nodeField = new double[nodes * nodes * this.stride];
+        double[] field = new double[4];
+        for (int row = 0; row < nodes; row++) {
+            for (int col = 0; col < nodes; col++) {
+                this.exactField(x0 + col * this.cellSize, y0 + row * this.cellSize, field);
+                System.arraycopy(field, 0, this.nodeField, (row * nodes + col) * this.stride, this.stride);
+            }
+        }
+
+        // a cell is exact when any of it lies within exactCells cells of a body
+        this.exact = new boolean[resolution * resolution];
+        double reach = exactCells * this.cellSize;
+        for (int row = 0; row < resolution; row++) {
+            for (int col = 0; col < resolution; col++) {
+                double left = x0 + col * this.cellSize;
+                double bottom = y0 + row * this.cellSize;
+                for (int s = 0; s < this.sourceX.length; s++) {
+                    double dx = Math.max(0, Math.max(left - this.sourceX[s], this.sourceX[s] - left - this.cellSize));
+                    double dy = Math.max(0, Math.max(bottom - this.sourceY[s], this.sourceY[s] - bottom - this.cellSize));
+                    if (dx * dx + dy * dy <= reach * reach)
+                        this.exact[row * resolution + col] = true;
+                }
+            }
+        }
+    }
+
+    // Suns and black holes never move; planets do, and moons go with their planets
+    static boolean isStatic(CELESTIAL_BODY_TYPE type) {
+        return type == CELESTIAL_BODY_TYPE.SUN || type == CELESTIAL_BODY_TYPE.BLACK_HOLE;
+    }
+
+    /**
+     * Field of the suns and black holes at a point, interpolated where the grid allows.
+     *
+     * @param x   x-coordinate of the point in AU scale
+     * @param y   y-coordinate of the point in AU scale
+     * @param out receives {sunX, sunY, holeX, holeY}
+     */
+    public void sample(double x, double y, double[] out) {
+        double fx = (x - this.x0) / this.cellSize;
+        double fy = (y - this.y0) / this.cellSize;
+        // the casts truncate towards zero, so test before casting
+        if (!(fx >= 0 && fx < this.resolution && fy >= 0 && fy < this.resolution)) {
+            this.exactField(x, y, out);
+            return;
+        }
+        int col = (int) fx;
+        int row = (int) fy;
+        if (this.exact[row * this.resolution + col]) {
+            this.exactField(x, y, out);
+            return;
+        }
+
+        double tx = fx - col;
+        double ty = fy - row;
+        double w00 = (1 - tx) * (1 - ty);
+        double w10 = tx * (1 - ty);
+        double w01 = (1 - tx) * ty;
+        double w11 = tx * ty;
+        double[] f = this.nodeField;
+        int stride = this.stride;
+        int n00 = (row * (this.resolution + 1) + col) * stride;
+        int n10 = n00 + stride;
+        int n01 = n00 + (this.resolution + 1) * stride;
+        int n11 = n01 + stride;
+        out[0] = w00 * f[n00] + w10 * f[n10] + w01 * f[n01] + w11 * f[n11];
+        out[1] = w00 * f[n00 + 1] + w10 * f[n10 + 1] + w01 * f[n01 + 1] + w11 * f[n11 + 1];
+        if (stride == 2) {
+            out[2] = out[3] = 0;
+            return;
+        }
+        out[2] = w00 * f[n00 + 2] + w10 * f[n10 + 2] + w01 * f[n01 + 2] + w11 * f[n11 + 2];
+        out[3] = w00 * f[n00 + 3] + w10 * f[n10 + 3] + w01 * f[n01 + 3] + w11 * f[n11 + 3];
+    }
+
+    /**
+     * Field of the suns and black holes at a point, summed exactly.
+     *
+     * @param x   x-coordinate of the point in AU scale
+     * @param y   y-coordinate of the point in AU scale
+     * @param out receives {sunX, sunY, holeX, holeY}
+     */
+    public void exactField(double x, double y, double[] out) {
+        out[0] = out[1] = out[2] = out[3] = 0;
+        for (int s = 0; s < this.sourceX.length; s++) {
+            double dx = this.sourceX[s] - x;
+            double dy = this.sourceY[s] - y;
+            double distSq = dx * dx + dy * dy;
+            if (distSq == 0)
+                continue;
+            double f = this.sourceMass[s] / (distSq * Math.sqrt(distSq));
+            int c = this.sourceHole[s] ? 2 : 0;
+            out[c] += dx * f;
+            out[c + 1] += dy * f;
+        }
+    }
+
+    // Whether a query at the point is answered exactly rather than from the grid
+    public boolean isExactAt(double x, double y) {
+        double fx = (x - this.x0) / this.cellSize;
+        double fy = (y - this.y0) / this.cellSize;
+        if (!(fx >= 0 && fx < this.resolution && fy >= 0 && fy < this.resolution))
+            return true;
+        return this.exact[(int) fy * this.resolution + (int) fx];
+    }
+
+    public int getResolution() {
+        return this.resolution;
+    }
+
+    // Edge length of a cell in AU scale
+    public double getCellSize() {
+        return this.cellSize;
+    }
+
+    // Number of suns and black holes in the grid
+    public int getSourceCount() {
+        return this.sourceX.length;
+    }
+
+    // Memory held by the nodes and the exact cells, in bytes
+    public long getByteSize() {
+        return (long) this.nodeField.length * Double.BYTES + this.exact.length;
+    }
+}
@@ -2,10 +2,7 @@ package Game;
 
 import Game.utils.Range;
 import Game.utils.Vector2D;
-import java.awt.AlphaComposite;
-import java.awt.Color;
-import java.awt.Composite;
-import java.awt.Graphics2D;
+import java.util.Random;
 
 /**
  * TrailParticle class represents a particle that trails behind a ship when it is thrusting.
@@ -13,7 +10,7 @@ import java.awt.Graphics2D;
  * Each particle has a lifespan, radius, and alpha value that determines its visibility.
  * The particle's size increases over time, and its alpha value decreases as it ages.
  * The particle's position is determined by the ship's angle and thrust type.
- * The particle is rendered as a circle with a color and alpha transparency.
+ * The particle is drawn by the renderer as a circle with a color and alpha transparency.
  * The particle decays in velocity and expands in size over time.
  * The particle can be created with different thrust types: center, left, or right.
  * The particle's lifespan is randomly determined within a specified range.
@@ -22,16 +19,18 @@ import java.awt.Graphics2D;
  * The particle's velocity is calculated based on the ship's angle and thrust type.
  * The particle's alpha value is calculated based on its remaining life.
  * The particle is updated each frame, moving its position, decaying its velocity, expanding its size, and reducing its alpha value.
- * The particle is rendered with a semi-transparent color, allowing it to blend with the background.
  * The particle is considered alive as long as its life is greater than zero and its alpha value is greater than zero.
- * The particle can be updated and rendered independently of the ship.
+ * The particle can be updated independently of the ship.
  * The particle's behavior can be customized by changing the decay, expansion, and lifespan values.
  * The particle's radius can also be adjusted based on the thrust type, creating different visual effects.
+ * A dead particle can be emitted again with reset(), so a ship keeps a pool of them and a
+ * thrusting engine does not allocate.
  */
 
 public class TrailParticle extends Entity {
-    private int life;
-    private final int maxLife;
+    // remaining and total life in base ticks
+    private double life;
+    private double maxLife;
     private double radius;
     private double alpha;
 
@@ -42,9 +41,10 @@ public class TrailParticle extends Entity {
 
     private static final Range SIDE_THRUST_RADIUS_RANGE = new Range(2, 3);
 
-    private static Range CURRENT_RANGE;
-
     private static final int BASE_LIFE = 30;
+    private static final int LIFE_SPREAD = 15;
+    // longest life of a particle in base ticks
+    static final int MAX_LIFE = BASE_LIFE + LIFE_SPREAD;
 
     private final double CENTER_OFFSET = -23f; // how far back from ship center
 
@@ -58,11 +58,25 @@ public class TrailParticle extends Entity {
      * @param x         start x
      * @param y         start y
      * @param shipAngle ship’s current rotation (radians)
+     * @param rand      random generator for the lifespan, size, spread and speed
      */
-    public TrailParticle(double x, double y, double shipAngle, Constant.ThrustType thrustType) {
+    public TrailParticle(double x, double y, double shipAngle, Constant.ThrustType thrustType, Random rand) {
 
         super(x, y,0);
+        this.reset(x, y, shipAngle, thrustType, rand);
+    }
+
+    // A dead particle for a pool, to be emitted with reset()
+    TrailParticle() {
+        super(0, 0, 0);
+    }
 
+    /**
+     * Emits the particle anew, as if it had just been constructed with these arguments.
+     * The random numbers are drawn in the same order as by the constructor.
+     */
+    public void reset(double x, double y, double shipAngle, Constant.ThrustType thrustType, Random rand) {
+        Range currentRange;
         double cosA = (double) Math.cos(shipAngle);
         double sinA = (double) Math.sin(shipAngle);
 
@@ -71,32 +85,32 @@ public class TrailParticle extends Entity {
             case CENTER:
                 xOffset = cosA * CENTER_OFFSET;
                 yOffset = sinA * CENTER_OFFSET;
-                CURRENT_RANGE = CENTER_THRUST_RADIUS_RANGE;
+                currentRange = CENTER_THRUST_RADIUS_RANGE;
                 break;
             case LEFT:
                 xOffset = cosA * CENTER_OFFSET_SIDE + (-sinA) * LATERAL_OFFSET;
                 yOffset = sinA * CENTER_OFFSET_SIDE + (cosA) * LATERAL_OFFSET;
-                CURRENT_RANGE = SIDE_THRUST_RADIUS_RANGE;
+                currentRange = SIDE_THRUST_RADIUS_RANGE;
                 break;
             case RIGHT:
                 xOffset = cosA * CENTER_OFFSET_SIDE + (sinA) * LATERAL_OFFSET;
                 yOffset = sinA * CENTER_OFFSET_SIDE + (-cosA) * LATERAL_OFFSET;
-                CURRENT_RANGE = SIDE_THRUST_RADIUS_RANGE;
+                currentRange = SIDE_THRUST_RADIUS_RANGE;
                 break;
             default:
                 throw new AssertionError();
         }
 
-        pos.x = pos.x + xOffset;
-        pos.y = pos.y + yOffset;
+        pos.x = x + xOffset;
+        pos.y = y + yOffset;
 
-        this.maxLife = BASE_LIFE + (int) (Math.random() * 15);
+        this.maxLife = BASE_LIFE + (int) (rand.nextDouble() * LIFE_SPREAD);
         this.life = maxLife;
-        this.radius = CURRENT_RANGE.getMax()
-                + (double) (Math.random() * (CURRENT_RANGE.getMax() - CURRENT_RANGE.getMin()));
+        this.radius = currentRange.getMax()
+                + (double) (rand.nextDouble() * (currentRange.getMax() - currentRange.getMin()));
         this.alpha = 1f;
 
-        double spread = (double) ((Math.random() - 0.5) * (Math.PI / 6)); // +/-15°
+        double spread = (double) ((rand.nextDouble() - 0.5) * (Math.PI / 6)); // +/-15°
         double velAngle;
         double baseSpeed;
 
@@ -105,17 +119,17 @@ public class TrailParticle extends Entity {
             case CENTER:
                 // straight backwards
                 velAngle = shipAngle + Math.PI + spread;
-                baseSpeed = 3.0f + (double) (Math.random() * 1.0); // 3.0–4.0 px/frame
+                baseSpeed = 3.0f + (double) (rand.nextDouble() * 1.0); // 3.0–4.0 px/frame
                 break;
             case LEFT:
                 // squirting off to the left
                 velAngle = shipAngle + Math.PI / 2 + spread;
-                baseSpeed = 2.0f + (double) (Math.random() * 0.5); // 2.0–2.5 px/frame
+                baseSpeed = 2.0f + (double) (rand.nextDouble() * 0.5); // 2.0–2.5 px/frame
                 break;
             case RIGHT:
                 // squirting off to the right
                 velAngle = shipAngle - Math.PI / 2 + spread;
-                baseSpeed = 2.0f + (double) (Math.random() * 0.5); // 2.0–2.5 px/frame
+                baseSpeed = 2.0f + (double) (rand.nextDouble() * 0.5); // 2.0–2.5 px/frame
                 break;
             default:
                 throw new AssertionError();
@@ -124,21 +138,47 @@ public class TrailParticle extends Entity {
         // calculate the velocity based on the angle and speed
         vel.x = (double) (Math.cos(velAngle) * baseSpeed);
         vel.y = (double) (Math.sin(velAngle) * baseSpeed);
+
+        // the particle appears at its offset position, it does not slide there
+        this.savePreviousState();
+    }
+
+    /**
+     * Speeds the particle up, e.g. by gravity, before its next update().
+     *
+     * @param ax acceleration in px/s^2
+     * @param ay acceleration in px/s^2
+     * @param dt the tick length in seconds
+     */
+    public void accelerate(double ax, double ay, double dt) {
+        // the velocity is in px per base tick
+        vel.x += ax * dt / Constant.GAME_CONSTANT.BASE_TICK_RATE;
+        vel.y += ay * dt / Constant.GAME_CONSTANT.BASE_TICK_RATE;
     }
 
     /**
      * Updates the particle's position, velocity, radius, alpha value, and life.
      * The particle moves based on its velocity, decays its velocity over time,
      * expands its radius, and reduces its alpha value based on its remaining life.
+     * Speeds, decay and life are per base tick, so a tick of dt seconds counts as
+     * dt * BASE_TICK_RATE base ticks.
+     *
+     * @param dt the tick length in seconds
      */
-    public void update() {
-        pos.x += vel.x;
-        pos.y += vel.y;
-        vel.x *= DECAY;
-        vel.y *= DECAY;
-        radius *= EXPAND;
-        alpha = (double) life / maxLife;
-        life--;
+    public void update(double dt) {
+        savePreviousState();
+
+        double ticks = dt * Constant.GAME_CONSTANT.BASE_TICK_RATE;
+        double decay = ticks == 1 ? DECAY : Math.pow(DECAY, ticks);
+        double expand = ticks == 1 ? EXPAND : Math.pow(EXPAND, ticks);
+
+        pos.x += vel.x * ticks;
+        pos.y += vel.y * ticks;
+        vel.x *= decay;
+        vel.y *= decay;
+        radius *= expand;
+        alpha = life / maxLife;
+        life -= ticks;
     }
 
     /**
@@ -152,23 +192,19 @@ public class TrailParticle extends Entity {
     }
 
     /**
-     * Renders the particle on the screen.
-     * The particle is drawn as a filled oval with a semi-transparent color based on its alpha value.
-     * The size of the oval is determined by the particle's radius.
+     * Copies the particle's position, relative to the snapshot's origin, radius and alpha value
+     * into slot i of a snapshot.
      *
-     * @param g2 the Graphics2D object used for rendering
+     * @param snapshot the snapshot being filled on the simulation thread
+     * @param i        the index of this particle in the snapshot's particle arrays
      */
-    public void render(Graphics2D g2) {
-        Composite oldComp = g2.getComposite();
-        g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float)alpha));
-
-        Color oldColor = g2.getColor();
-        g2.setColor(new Color(200, 200, 200));
-        int r = Math.max(1, (int) radius);
-        g2.fillOval((int) (pos.x - r), (int) (pos.y - r), r * 2, r * 2);
-
-        g2.setComposite(oldComp);
-        g2.setColor(oldColor);
+    void writeTo(WorldSnapshot snapshot, int i) {
+        snapshot.particleX[i] = (float) (pos.x - snapshot.originX);
+        snapshot.particleY[i] = (float) (pos.y - snapshot.originY);
+        snapshot.particlePrevX[i] = (float) (prevPos.x - snapshot.originX);
+        snapshot.particlePrevY[i] = (float) (prevPos.y - snapshot.originY);
+        snapshot.particleRadius[i] = radius;
+        snapshot.particleAlpha[i] = alpha;
     }
 
       @Override
@@ -0,0 +1,367 @@
+package Game;
+
+import Game.Constant.CELESTIAL_BODY_TYPE;
+import Game.Constant.GAME_CONSTANT;
+import Game.Constant.PHYSICS_CONSTANT;
+import Game.utils.Vector2D;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TrajectoryPredictor class predicts where the ship coasts over the next
+ * GAME_CONSTANT.TRAJECTORY_SECONDS, so the path can be drawn ahead of it.
+ * The prediction runs on a worker thread of its own and never holds up a tick: after a tick
+ * the game thread hands it a copy of the ship and of the bodies of its solar system
+ * (request()), a few array copies, and the worker flies the ship on from there. It publishes
+ * the path so far every STEPS_PER_PART steps and drops a prediction as soon as a newer
+ * request came in, so the path keeps up with the ship however far the worker falls behind.
+ * The ship moves as Player moves it without thrust: ticks of the game's length, the pull of
+ * every body at the strengths of updateNetGravitationalForce() (summed exactly here), the
+ * velocity decay. The planets follow the Kepler ellipse fitted to their state in the copy
+ * (see KeplerRails), in orbit time like their solar system; how they pull on each other
+ * over the prediction is left out. The path ends where it first touches a body, found by
+ * the same sweep as Player.sweepCollision(), or where it leaves the Sector of the copied
+ * system, from where on the ship is pulled by the next system.
+ * Requests and paths are handed over through AtomicReferences as in SnapshotBuffer: three
+ * of each are reused forever, so neither side waits for the other or allocates once the
+ * arrays are large enough. writeTo() copies the newest path into a WorldSnapshot.
+ * Nothing is predicted until start() was called; a world run headless never starts it.
+ */
+public class TrajectoryPredictor implements Runnable {
+    // steps between publishing the path so far and looking for a newer request
+    private static final int STEPS_PER_PART = 60;
+
+    // newest request, handed from the game thread to the worker
+    private final AtomicReference<Request> pendingRequest = new AtomicReference<>(new Request());
+    // newest path, handed from the worker to the game thread
+    private final AtomicReference<Path> publishedPath = new AtomicReference<>(new Path());
+
+    private volatile Thread worker;
+
+    // owned by the game thread
+    private Request writeRequest = new Request();
+    private long requestSequence = 0;
+    private Path readPath = new Path();
+
+    // owned by the worker
+    private Request workRequest = new Request();
+    private Path writePath = new Path();
+    private long pathSequence = 0;
+    // the path being predicted, in pixels
+    private double[] pathX = new double[64];
+    private double[] pathY = new double[64];
+    private int pathCount = 0;
+    private final Vector2D vel = new Vector2D();
+    // the bodies in AU during the step being predicted
+    private double[] bodyX = new double[16];
+    private double[] bodyY = new double[16];
+
+    // Starts the worker thread; later calls do nothing
+    public synchronized void start() {
+        if (this.worker != null)
+            return;
+        Thread thread = new Thread(this, "trajectory");
+        // like the solar system workers, never keep the game from exiting
+        thread.setDaemon(true);
+        this.worker = thread;
+        thread.start();
+    }
+
+    public boolean isStarted() {
+        return this.worker != null;
+    }
+
+    /**
+     * Asks for the path of the ship from its state at the end of the tick.
+     * Called on the game thread; it copies the state and returns at once.
+     *
+     * @param player the ship
+     * @param system the solar system the ship is in, or null outside the grid
+     * @param dt     the tick length in seconds
+     */
+    void request(Player player, SolarSystem system, double dt) {
+        Thread thread = this.worker;
+        if (thread == null || !GAME_CONSTANT.TRAJECTORY_PREDICTION)
+            return;
+        Request r = this.writeRequest;
+        r.x = player.pos.x;
+        r.y = player.pos.y;
+        r.vx = player.vel.x;
+        r.vy = player.vel.y;
+        r.radius = player.getCollisionRadius();
+        r.landed = player.isLanded();
+        r.dt = dt;
+        r.sectorX = Sector.of(r.x);
+        r.sectorY = Sector.of(r.y);
+        r.hasSystem = system != null;
+        if (system != null)
+            r.bodies.copyFrom(system.getBodyStore());
+        r.sequence = ++this.requestSequence;
+        this.writeRequest = this.pendingRequest.getAndSet(r);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Copies the newest predicted path into a snapshot, relative to its origin, or no path when
+     * prediction is off.
+     * Called on the game thread; the path may be a few ticks old or still growing.
+     */
+    void writeTo(WorldSnapshot snapshot) {
+        if (this.worker == null || !GAME_CONSTANT.TRAJECTORY_PREDICTION) {
+            snapshot.setTrajectoryCount(0);
+            return;
+        }
+        if (this.publishedPath.get().sequence > this.readPath.sequence)
+            this.readPath = this.publishedPath.getAndSet(this.readPath);
+        Path path = this.readPath;
+        snapshot.setTrajectoryCount(path.count);
+        for (int i = 0; i < path.count; i++) {
+            snapshot.trajectoryX[i] = (float) (path.x[i] - snapshot.originX);
+            snapshot.trajectoryY[i] = (float) (path.y[i] - snapshot.originY);
+        }
+        snapshot.trajectoryImpact = path.impact;
+    }
+
+    // Points of the path the last writeTo() copied, the ship's position first
+    public int getPathCount() {
+        return this.readPath.count;
+    }
+
+    // x-coordinate of point i of that path in pixels
+    public double getPathX(int i) {
+        return this.readPath.x[i];
+    }
+
+    // y-coordinate of point i of that path in pixels
+    public double getPathY(int i) {
+        return this.readPath.y[i];
+    }
+
+    // Whether that path ends on a body
+    public boolean isPathImpact() {
+        return this.readPath.impact;
+    }
+
+    // Whether that path is the whole prediction, not a part of it still growing
+    public boolean isPathComplete() {
+        return this.readPath.complete;
+    }
+
+    @Override
+    public void run() {
+        long predicted = 0; // the last request predicted to the end
+        while (true) {
+            if (this.pendingRequest.get().sequence > this.workRequest.sequence)
+                this.workRequest = this.pendingRequest.getAndSet(this.workRequest);
+            Request request = this.workRequest;
+            if (request.sequence == predicted) {
+                // sleep until the game thread asks again
+                LockSupport.park(this);
+                continue;
+            }
+            if (this.predict(request))
+                predicted = request.sequence;
+        }
+    }
+
+    /**
+     * Flies the ship of a request forward and publishes the path as it grows.
+     *
+     * @return false when a newer request came in before the path was done
+     */
+    private boolean predict(Request request) {
+        this.pathCount = 0;
+        if (request.landed) {
+            this.publish(false, true);
+            return true;
+        }
+
+        BodyStore bodies = request.bodies;
+        int n = request.hasSystem ? bodies.size() : 0;
+        KeplerRails rails = bodies.getRails();
+        double epoch = bodies.getTime();
+        for (int i = 0; i < n; i++) {
+            int parent = bodies.parent[i];
+            if (bodies.isPlanet(i) && parent >= 0 && StaticGravityGrid.isStatic(bodies.getType(parent)))
+                rails.fit(bodies, i, parent, epoch);
+        }
+
+        double dt = request.dt;
+        double orbitTime = SolarSystem.orbitTime(dt);
+        int steps = (int) Math.ceil(GAME_CONSTANT.TRAJECTORY_SECONDS / dt);
+        this.ensureBodyCapacity(n);
+        double x = request.x;
+        double y = request.y;
+        this.vel.set(request.vx, request.vy);
+        this.add(x, y);
+        for (int k = 1; k <= steps; k++) {
+            // the bodies as they are when the tick starts, the ship moves before its system
+            double time = epoch + SolarSystem.orbitTime((k - 1) * dt);
+            double fieldX = 0;
+            double fieldY = 0;
+            double px = x * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE;
+            double py = y * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE;
+            for (int i = 0; i < n; i++) {
+                CELESTIAL_BODY_TYPE type = bodies.getType(i);
+                double bx = bodies.x[i];
+                double by = bodies.y[i];
+                if (rails.isOnRails(i)) {
+                    rails.propagate(bodies, i, bodies.parent[i], time);
+                    bx = bodies.x[i];
+                    by = bodies.y[i];
+                } else if (type == CELESTIAL_BODY_TYPE.PLANET) {
+                    // not bound, it flies on straight
+                    bx += bodies.vx[i] * (time - epoch);
+                    by += bodies.vy[i] * (time - epoch);
+                }
+                this.bodyX[i] = bx;
+                this.bodyY[i] = by;
+
+                double dx = bx - px;
+                double dy = by - py;
+                double distSq = dx * dx + dy * dy;
+                if (distSq == 0)
+                    continue;
+                double s = Player.gravityStrength(type) * bodies.mass[i] / (distSq * Math.sqrt(distSq));
+                fieldX += dx * s;
+                fieldY += dy * s;
+            }
+
+            // as Player.update() without thrust: decay, then the pull, then the move
+            Player.velocityDecay(this.vel, dt);
+            this.vel.x += fieldX * PHYSICS_CONSTANT.G * dt;
+            this.vel.y += fieldY * PHYSICS_CONSTANT.G * dt;
+            double fromX = x;
+            double fromY = y;
+            x += this.vel.x * dt;
+            y += this.vel.y * dt;
+
+            double contact = this.sweep(bodies, n, request.radius, fromX, fromY, x, y, orbitTime);
+            if (contact <= 1) {
+                this.add(fromX + (x - fromX) * contact, fromY + (y - fromY) * contact);
+                this.publish(true, true);
+                return true;
+            }
+            this.add(x, y);
+            // from the next tick on the world pulls it by the system of the sector it is in
+            if (Sector.of(x) != request.sectorX || Sector.of(y) != request.sectorY)
+                break;
+
+            if (k % STEPS_PER_PART == 0) {
+                this.publish(false, false);
+                if (this.pendingRequest.get().sequence > request.sequence)
+                    return false;
+            }
+        }
+        this.publish(false, true);
+        return true;
+    }
+
+    /**
+     * The ship's sweep against the bodies over one tick, as in Player.sweepCollision(): in the
+     * frame of each body, moving straight by its velocity over the tick's orbit time, the ship
+     * moves along a segment and touches the body at the first point where the circles meet,
+     * approaching only. The bodies are at bodyX and bodyY, their velocities in the store.
+     *
+     * @return the share of the move done at the first contact, or infinity without one
+     */
+    private double sweep(BodyStore bodies, int n, double shipRadius, double fromX, double fromY, double toX,
+            double toY, double orbitTime) {
+        double first = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            if (bodies.getType(i) == CELESTIAL_BODY_TYPE.BLACK_HOLE)
+                continue;
+            double dx = fromX - this.bodyX[i] * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE;
+            double dy = fromY - this.bodyY[i] * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE;
+            double vx = toX - fromX - bodies.vx[i] * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE * orbitTime;
+            double vy = toY - fromY - bodies.vy[i] * PHYSICS_CONSTANT.AU_TO_PIXELS_SCALE * orbitTime;
+            double minDist = shipRadius + bodies.radius[i] / 2;
+
+            // |d + t v| = minDist, solved for the first t in [0, 1]
+            double b = dx * vx + dy * vy;
+            if (b >= 0)
+                continue;
+            double c = dx * dx + dy * dy - minDist * minDist;
+            double t = 0;
+            if (c >= 0) {
+                double a = vx * vx + vy * vy;
+                double disc = b * b - a * c;
+                if (disc < 0)
+                    continue;
+                t = (-b - Math.sqrt(disc)) / a;
+            }
+            first = Math.min(first, t);
+        }
+        return first;
+    }
+
+    // Grows the arrays of body positions to hold n bodies
+    private void ensureBodyCapacity(int n) {
+        if (this.bodyX.length < n) {
+            this.bodyX = new double[Math.max(n, this.bodyX.length * 2)];
+            this.bodyY = new double[this.bodyX.length];
+        }
+    }
+
+    // Appends a point to the path being predicted
+    private void add(double x, double y) {
+        if (this.pathCount == this.pathX.length) {
+            this.pathX = Arrays.copyOf(this.pathX, this.pathCount * 2);
+            this.pathY = Arrays.copyOf(this.pathY, this.pathCount * 2);
+        }
+        this.pathX[this.pathCount] = x;
+        this.pathY[this.pathCount] = y;
+        this.pathCount++;
+    }
+
+    // Hands the path so far to the game thread
+    private void publish(boolean impact, boolean complete) {
+        Path path = this.writePath;
+        path.setCount(this.pathCount);
+        System.arraycopy(this.pathX, 0, path.x, 0, this.pathCount);
+        System.arraycopy(this.pathY, 0, path.y, 0, this.pathCount);
+        path.impact = impact;
+        path.complete = complete;
+        path.sequence = ++this.pathSequence;
+        this.writePath = this.publishedPath.getAndSet(path);
+    }
+
+    // The ship and the bodies of its solar system at the end of a tick
+    private static final class Request {
+        long sequence;
+        // ship in pixels and pixels per second
+        double x;
+        double y;
+        double vx;
+        double vy;
+        double radius;
+        boolean landed;
+        double dt;
+        // the sector of the ship, the one the bodies are the system of
+        long sectorX;
+        long sectorY;
+        boolean hasSystem;
+        final BodyStore bodies = new BodyStore();
+    }
+
+    // A predicted path in pixels, the ship's position first
+    private static final class Path {
+        long sequence;
+        double[] x = new double[64];
+        double[] y = new double[64];
+        int count;
+        // whether it ends on a body
+        boolean impact;
+        // whether the prediction got to its end
+        boolean complete;
+
+        void setCount(int count) {
+            if (count > this.x.length) {
+                this.x = Arrays.copyOf(this.x, Math.max(count, this.x.length * 2));
+                this.y = Arrays.copyOf(this.y, this.x.length);
+            }
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package Game;
+
+import Game.Constant.GAME_CONSTANT;
+import java.lang.reflect.Constructor;
+
+/**
+ * VectorGravity class hands out the solver for the direct gravity sum: the SIMD
+ * VectorGravitySolver when GAME_CONSTANT.SIMD_GRAVITY asks for it and it can be loaded,
+ * DirectGravitySolver otherwise.
+ * VectorGravitySolver is built on the incubating jdk.incubator.vector module, which javac and
+ * java only see when started with --add-modules jdk.incubator.vector, so it is kept out of the
+ * main sources (see its class comment) and loaded by name here. If the class was not built, or
+ * the module is not there at run time, loading it fails once and the scalar kernel is used.
+ */
+public final class VectorGravity {
+    private static final String SOLVER_CLASS = "Game.VectorGravitySolver";
+
+    private static boolean loaded = false;
+    private static Constructor<? extends GravitySolver> constructor;
+    private static String unavailableReason;
+
+    private VectorGravity() {
+    }
+
+    /**
+     * Creates a solver for the direct sum.
+     *
+     * @return a VectorGravitySolver if SIMD gravity is turned on and available, else a DirectGravitySolver
+     */
+    public static GravitySolver newDirectSolver() {
+        if (GAME_CONSTANT.SIMD_GRAVITY && isAvailable())
+            return newVectorSolver();
+        return new DirectGravitySolver();
+    }
+
+    /**
+     * Creates a VectorGravitySolver regardless of GAME_CONSTANT.SIMD_GRAVITY.
+     *
+     * @return the solver, or null when it is not available
+     */
+    public static GravitySolver newVectorSolver() {
+        if (!isAvailable())
+            return null;
+        try {
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create " + SOLVER_CLASS, e);
+        }
+    }
+
+    // Whether the SIMD solver could be loaded
+    public static boolean isAvailable() {
+        load();
+        return constructor != null;
+    }
+
+    // Why the SIMD solver could not be loaded, null if it could
+    public static String getUnavailableReason() {
+        load();
+        return unavailableReason;
+    }
+
+    private static synchronized void load() {
+        if (loaded)
+            return;
+        loaded = true;
+        try {
+            // initializing the class touches the Vector API, so a missing module fails here
+            Constructor<? extends GravitySolver> found = Class.forName(SOLVER_CLASS)
+                    .asSubclass(GravitySolver.class).getConstructor();
+            found.newInstance();
+            constructor = found;
+        } catch (ClassNotFoundException e) {
+            unavailableReason = SOLVER_CLASS + " was not compiled";
+        } catch (ReflectiveOperationException | LinkageError e) {
+            unavailableReason = "the jdk.incubator.vector module is missing (" + e + ")";
+        }
+    }
+}
@@ -0,0 +1,511 @@
+package Game;
+
+import Game.Constant.CELESTIAL_BODY_TYPE;
+import Game.Constant.GAME_CONSTANT;
+import Game.utils.FrameAnimation;
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsDevice;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * WorldRenderer class draws the playing screen from a WorldSnapshot.
+ * It only reads the snapshot it is given, never the live game objects, so it can run on the
+ * EDT or the render thread while the simulation keeps updating.
+ * The world layer (stars, solar system, ship, trail particles and enemies) is drawn through the
+ * camera transform in the coordinates of the snapshot, relative to its floating origin, so
+ * Java2D only ever sees small coordinates; the HUD is drawn on top in panel coordinates.
+ * The renderer also owns the purely visual state: the parallax background stars and all
+ * sprites, so the simulation never has to load an image.
+ * The world layer can be drawn at a lower internal resolution: it is then drawn into the
+ * top-left part of an offscreen buffer and stretched over the window, while the HUD is still
+ * drawn at native resolution. A ResolutionController picks the scale from the time the world
+ * layer took in the previous frames.
+ * On a screen the buffer is a VolatileImage, so the graphics pipeline can stretch it with
+ * bilinear filtering in hardware. When drawing into an image (benchmarks, headless runs) the
+ * stretch is done in software, where bilinear filtering alone costs more than a native
+ * frame, so a plain BufferedImage is stretched with nearest-neighbour filtering instead.
+ * Everything that moves is drawn interpolated between the previous and the newest tick of the
+ * snapshot, so motion stays smooth when frames and ticks run at different rates.
+ */
+public class WorldRenderer {
+    // Number of background stars
+    private static final int STAR_COUNT = 200;
+
+    private static final Color PARTICLE_COLOR = new Color(200, 200, 200);
+    private static final Font HUD_FONT = new Font("Consolas", Font.PLAIN, 14);
+    private static final BasicStroke ORBIT_STROKE = new BasicStroke(5);
+    private static final Color TRAJECTORY_COLOR = new Color(255, 255, 255, 120);
+    private static final float TRAJECTORY_WIDTH = 2; // px on screen at any zoom
+
+    // Star container
+    private final ArrayList<Star> stars = new ArrayList<>();
+
+    // internal resolution of the world layer and the buffer it is drawn into below native resolution
+    private final ResolutionController resolution;
+    private Image worldBuffer;
+
+    // interpolation factor and interpolated camera of the frame being drawn
+    private double alpha;
+    private double cameraX;
+    private double cameraY;
+    private double cameraScale;
+
+    // orbit shapes by body slot of the snapshot, with the ellipse
+    // {semi-major, semi-minor, focus offset, angle} each was built for
+    private Shape[] orbitShapes = new Shape[0];
+    private double[] orbitShapeEllipse = new double[0];
+
+    // dashed stroke of the predicted path and the zoom it was made for, and the path in whole pixels
+    private BasicStroke trajectoryStroke;
+    private double trajectoryStrokeScale;
+    private int[] trajectoryX = new int[0];
+    private int[] trajectoryY = new int[0];
+
+    // sprites
+    private final FrameAnimation shipAnimation = new FrameAnimation(0.1f, false);
+    private final FrameAnimation enemyIdleAnimation = new FrameAnimation(0.8, false);
+    private final BufferedImage arrowImage;
+
+    /**
+     * Constructor for the WorldRenderer class.
+     * Draws the world at native resolution.
+     */
+    public WorldRenderer() {
+        this(ResolutionController.fixed(1));
+    }
+
+    /**
+     * Constructor for the WorldRenderer class.
+     * Generates the background stars and loads the sprites.
+     *
+     * @param resolution picks the internal resolution of the world layer every frame
+     */
+    public WorldRenderer(ResolutionController resolution) {
+        this.resolution = resolution;
+        this.generateStars();
+        this.shipAnimation.loadFrames(new String[] { "Images/rocket.png" }, 1);
+        this.enemyIdleAnimation.loadFramesFromPath("Images/Enemy Idle", 1);
+        this.arrowImage = FrameAnimation.loadImage("Images/arrow.png", 0.2);
+    }
+
+    /**
+     * Populate background stars with random positions and depth.
+     */
+    private void generateStars() {
+        Random rnd = new Random();
+        for (int i = 0; i < STAR_COUNT; i++) {
+            float depth = 0.01f + rnd.nextFloat() * 0.1f; // between 0.01 and 0.1
+            double x = rnd.nextDouble() * GAME_CONSTANT.WINDOW_WIDTH;
+            double y = rnd.nextDouble() * GAME_CONSTANT.WINDOW_HEIGHT;
+            this.stars.add(new Star(x, y, depth));
+        }
+    }
+
+    /**
+     * Renders the world and the HUD of one snapshot.
+     *
+     * @param g        graphics in panel coordinates
+     * @param snapshot the world state to draw
+     */
+    public void render(Graphics g, WorldSnapshot snapshot) {
+        long renderStart = FrameProfiler.begin();
+        long worldStart = System.nanoTime();
+
+        this.alpha = snapshot.interpolationAlpha(worldStart);
+        this.cameraX = this.lerp(snapshot.cameraPrevX, snapshot.cameraX);
+        this.cameraY = this.lerp(snapshot.cameraPrevY, snapshot.cameraY);
+        this.cameraScale = this.lerp(snapshot.cameraPrevScale, snapshot.cameraScale);
+
+        // the world layer goes straight to the screen at native resolution, else into the buffer
+        double renderScale = this.resolution.getScale();
+        int layerWidth = (int) Math.ceil(GAME_CONSTANT.WINDOW_WIDTH * renderScale);
+        int layerHeight = (int) Math.ceil(GAME_CONSTANT.WINDOW_HEIGHT * renderScale);
+        Graphics2D layer;
+        if (renderScale < 1) {
+            layer = this.createWorldBufferGraphics((Graphics2D) g);
+            layer.setColor(GAME_CONSTANT.SPACE_COLOR);
+            layer.fillRect(0, 0, layerWidth, layerHeight);
+            layer.scale(renderScale, renderScale);
+        } else {
+            layer = (Graphics2D) g.create();
+        }
+
+        Graphics2D g2 = (Graphics2D) layer.create();
+        g2.scale(this.cameraScale, this.cameraScale);
+        g2.translate(-this.cameraX + GAME_CONSTANT.WINDOW_WIDTH / this.cameraScale / 2.0,
+                -this.cameraY + GAME_CONSTANT.WINDOW_HEIGHT / this.cameraScale / 2.0);
+
+        // draw stars
+        long t = FrameProfiler.begin();
+        this.drawBackgroundStars(layer, snapshot);
+        FrameProfiler.end(FrameProfiler.Section.STARS, t);
+
+        // draw the current planet system
+        t = FrameProfiler.begin();
+        this.drawSolarSystem(g2, snapshot);
+        FrameProfiler.end(FrameProfiler.Section.SYSTEMS, t);
+
+        // the trail and the predicted path are drawn with the ship
+        t = FrameProfiler.begin();
+        this.drawTrajectory(g2, snapshot);
+        this.drawShip(g2, snapshot);
+        this.drawParticles(g2, snapshot);
+        FrameProfiler.end(FrameProfiler.Section.SHIP, t);
+
+        t = FrameProfiler.begin();
+        this.drawEnemies(g2, snapshot);
+        FrameProfiler.end(FrameProfiler.Section.ENEMY_SPRITES, t);
+
+        // dispose of graphics
+        g2.dispose();
+        layer.dispose();
+
+        // stretch the smaller world layer over the window; a lost volatile buffer costs this frame's world
+        if (renderScale < 1 && !(this.worldBuffer instanceof VolatileImage v && v.contentsLost())) {
+            Graphics2D screen = (Graphics2D) g;
+            Object oldInterpolation = screen.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+            screen.setRenderingHint(RenderingHints.KEY_INTERPOLATION, this.worldBuffer instanceof VolatileImage
+                    ? RenderingHints.VALUE_INTERPOLATION_BILINEAR
+                    : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            screen.drawImage(this.worldBuffer, 0, 0, GAME_CONSTANT.WINDOW_WIDTH, GAME_CONSTANT.WINDOW_HEIGHT,
+                    0, 0, layerWidth, layerHeight, null);
+            if (oldInterpolation != null)
+                screen.setRenderingHint(RenderingHints.KEY_INTERPOLATION, oldInterpolation);
+        }
+        this.resolution.frame(System.nanoTime() - worldStart);
+
+        /* ---------- fixed HUD overlay ---------- */
+        t = FrameProfiler.begin();
+        this.drawHud((Graphics2D) g, snapshot); // uses panel coords (0,0 at top-left)
+        FrameProfiler.end(FrameProfiler.Section.HUD, t);
+
+        FrameProfiler.end(FrameProfiler.Section.RENDER, renderStart);
+    }
+
+    /**
+     * Graphics for the offscreen buffer of the world layer.
+     * The buffer is created at window size in the format of the target being drawn to, so
+     * stretching it needs no conversion, and recreated only when it no longer fits the screen.
+     */
+    private Graphics2D createWorldBufferGraphics(Graphics2D screen) {
+        GraphicsConfiguration config = screen.getDeviceConfiguration();
+        int w = GAME_CONSTANT.WINDOW_WIDTH;
+        int h = GAME_CONSTANT.WINDOW_HEIGHT;
+
+        if (config.getDevice().getType() == GraphicsDevice.TYPE_IMAGE_BUFFER) {
+            if (!(this.worldBuffer instanceof BufferedImage))
+                this.worldBuffer = config.createCompatibleImage(w, h);
+        } else if (!(this.worldBuffer instanceof VolatileImage v)
+                || v.validate(config) == VolatileImage.IMAGE_INCOMPATIBLE) {
+            this.worldBuffer = config.createCompatibleVolatileImage(w, h);
+        }
+        return (Graphics2D) this.worldBuffer.getGraphics();
+    }
+
+    // Scale the world layer is drawn at relative to the window
+    public double getRenderScale() {
+        return this.resolution.getScale();
+    }
+
+    /**
+     * Draw parallax stars behind everything.
+     */
+    private void drawBackgroundStars(Graphics g, WorldSnapshot snapshot) {
+        g.setColor(Color.WHITE);
+        // the parallax follows the camera in world coordinates, not relative to the origin
+        double cameraX = snapshot.originX + this.cameraX;
+        double cameraY = snapshot.originY + this.cameraY;
+        for (Star s : this.stars) {
+            int sx = (int) ((s.pos.x - cameraX * s.depth) % GAME_CONSTANT.WINDOW_WIDTH);
+            int sy = (int) ((s.pos.y - cameraY * s.depth) % GAME_CONSTANT.WINDOW_HEIGHT);
+            if (sx < 0)
+                sx += GAME_CONSTANT.WINDOW_WIDTH;
+            if (sy < 0)
+                sy += GAME_CONSTANT.WINDOW_HEIGHT;
+            g.fillRect(sx, sy, 2, 2);
+        }
+    }
+
+    /**
+     * Draws the celestial bodies of the current solar system.
+     * Each planet draws its orbital ellipse first, then every body is drawn as a filled
+     * circle centered on its position.
+     */
+    private void drawSolarSystem(Graphics2D g2, WorldSnapshot snapshot) {
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        for (int i = 0; i < snapshot.bodyCount; i++) {
+            // draw precomputed orbital ellipse if this has a parent
+            if (snapshot.bodyType[i] == CELESTIAL_BODY_TYPE.PLANET)
+                this.drawOrbitEllipse(g2, snapshot, i);
+
+            // set the color for of the planet
+            g2.setColor(snapshot.bodyColor[i]);
+
+            double radius = snapshot.bodyRadius[i];
+            int centerX = (int) (this.lerp(snapshot.bodyPrevX[i], snapshot.bodyX[i]) - radius / 2);
+            int centerY = (int) (this.lerp(snapshot.bodyPrevY[i], snapshot.bodyY[i]) - radius / 2);
+
+            g2.fillOval(centerX, centerY, (int) radius, (int) radius);
+        }
+    }
+
+    /**
+     * Draws the player ship rotated to its heading.
+     */
+    private void drawShip(Graphics2D g2, WorldSnapshot snapshot) {
+        AffineTransform old = g2.getTransform();
+        g2.translate(this.lerp(snapshot.playerPrevX, snapshot.playerX), this.lerp(snapshot.playerPrevY, snapshot.playerY));
+        g2.rotate(this.lerpAngle(snapshot.playerPrevAngle, snapshot.playerAngle) + Math.PI / 2);
+        BufferedImage img = this.shipAnimation.getFrame();
+        g2.drawImage(img, -img.getWidth() / 2, -img.getHeight() / 2, null);
+        g2.setTransform(old);
+    }
+
+    /**
+     * Draws the predicted coasting path of the ship (see TrajectoryPredictor) as a dashed
+     * line from the ship on, with a ring where it would hit a body. The line keeps its width
+     * on screen at any zoom; its stroke is only made again when the zoom changed.
+     */
+    private void drawTrajectory(Graphics2D g2, WorldSnapshot snapshot) {
+        int count = snapshot.trajectoryCount;
+        if (count < 2)
+            return;
+        float scale = (float) this.cameraScale;
+        if (this.trajectoryStroke == null || this.trajectoryStrokeScale != this.cameraScale) {
+            this.trajectoryStroke = new BasicStroke(TRAJECTORY_WIDTH / scale, BasicStroke.CAP_BUTT,
+                    BasicStroke.JOIN_ROUND, 10, new float[] { 12 / scale, 8 / scale }, 0);
+            this.trajectoryStrokeScale = this.cameraScale;
+        }
+        if (count > this.trajectoryX.length) {
+            this.trajectoryX = new int[Math.max(count, this.trajectoryX.length * 2)];
+            this.trajectoryY = new int[this.trajectoryX.length];
+        }
+        // start at the ship as drawn, between the ticks
+        this.trajectoryX[0] = (int) this.lerp(snapshot.playerPrevX, snapshot.playerX);
+        this.trajectoryY[0] = (int) this.lerp(snapshot.playerPrevY, snapshot.playerY);
+        for (int i = 1; i < count; i++) {
+            this.trajectoryX[i] = (int) snapshot.trajectoryX[i];
+            this.trajectoryY[i] = (int) snapshot.trajectoryY[i];
+        }
+
+        Stroke old = g2.getStroke();
+        g2.setStroke(this.trajectoryStroke);
+        g2.setColor(TRAJECTORY_COLOR);
+        g2.drawPolyline(this.trajectoryX, this.trajectoryY, count);
+        if (snapshot.trajectoryImpact) {
+            int r = (int) Math.ceil(8 / scale);
+            g2.drawOval(this.trajectoryX[count - 1] - r, this.trajectoryY[count - 1] - r, 2 * r, 2 * r);
+        }
+        g2.setStroke(old);
+    }
+
+    /**
+     * Draws the trail particles as semi-transparent circles that fade with their alpha value.
+     */
+    private void drawParticles(Graphics2D g2, WorldSnapshot snapshot) {
+        Composite oldComp = g2.getComposite();
+        Color oldColor = g2.getColor();
+        g2.setColor(PARTICLE_COLOR);
+
+        for (int i = 0; i < snapshot.particleCount; i++) {
+            g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) snapshot.particleAlpha[i]));
+            int r = Math.max(1, (int) snapshot.particleRadius[i]);
+            double x = this.lerp(snapshot.particlePrevX[i], snapshot.particleX[i]);
+            double y = this.lerp(snapshot.particlePrevY[i], snapshot.particleY[i]);
+            g2.fillOval((int) (x - r), (int) (y - r), r * 2, r * 2);
+        }
+
+        g2.setComposite(oldComp);
+        g2.setColor(oldColor);
+    }
+
+    /**
+     * Draws every enemy with its current animation frame, rotated and scaled to its size.
+     */
+    private void drawEnemies(Graphics2D g2, WorldSnapshot snapshot) {
+        for (int i = 0; i < snapshot.enemyCount; i++) {
+            AffineTransform old = g2.getTransform();
+            g2.translate(this.lerp(snapshot.enemyPrevX[i], snapshot.enemyX[i]),
+                    this.lerp(snapshot.enemyPrevY[i], snapshot.enemyY[i]));
+            g2.rotate(this.lerpAngle(snapshot.enemyPrevAngle[i], snapshot.enemyAngle[i]) + Math.PI / 2);
+            g2.scale(snapshot.enemySize[i], snapshot.enemySize[i]);
+            BufferedImage img = this.enemyIdleAnimation.getFrame(snapshot.enemyFrame[i]);
+            g2.drawImage(img, -img.getWidth() / 2, -img.getHeight() / 2, null);
+            g2.setTransform(old);
+        }
+    }
+
+    /**
+     * Draws the fixed HUD: ship telemetry, health bar and the package arrow.
+     */
+    private void drawHud(Graphics2D hud, WorldSnapshot snapshot) {
+        hud.setColor(Color.WHITE);
+        hud.setFont(HUD_FONT);
+
+        String msg = String.format("x: %.0f   y: %.0f   θ: %.0f° vx: %.0f vy: %.0f",
+                snapshot.originX + snapshot.playerX, snapshot.originY + snapshot.playerY, snapshot.playerAngle, snapshot.playerVelX, snapshot.playerVelY);
+        hud.drawString(msg, 10, 20);
+
+        this.drawHealthBar(hud, snapshot);
+        if (snapshot.hasPackage)
+            this.drawPackageArrow(hud, snapshot);
+    }
+
+    private void drawHealthBar(Graphics2D hud, WorldSnapshot snapshot) {
+        hud.setColor(Color.green);
+        hud.fillRect(10, 40, (int) (snapshot.playerHealth / snapshot.playerMaxHealth * 300), 20);
+
+        hud.setColor(Color.white);
+        hud.drawRect(10, 40, 300, 20);
+    }
+
+    /**
+     * Draws an arrow at the edge of the screen pointing towards the package target.
+     * The arrow grows as the ship gets closer to the target.
+     */
+    private void drawPackageArrow(Graphics2D hud, WorldSnapshot snapshot) {
+        double dx = snapshot.packageX - snapshot.playerX;
+        double dy = snapshot.packageY - snapshot.playerY;
+        double dist = Math.hypot(dx, dy);
+        if (dist != 0) {
+            dx /= dist;
+            dy /= dist;
+        }
+
+        int minDim = Math.min(GAME_CONSTANT.WINDOW_WIDTH, GAME_CONSTANT.WINDOW_HEIGHT);
+        dx *= minDim * 0.4;
+        dy *= minDim * 0.4;
+
+        AffineTransform old = hud.getTransform();
+        hud.translate(dx + GAME_CONSTANT.WINDOW_WIDTH / 2, dy + GAME_CONSTANT.WINDOW_HEIGHT / 2);
+
+        double scale = Math.min(Math.max(10000 / dist, 0.5), 2.5);
+        hud.scale(scale, scale);
+
+        hud.rotate(Math.atan2(dy, dx));
+        hud.drawImage(this.arrowImage, -this.arrowImage.getWidth() / 2, -this.arrowImage.getHeight() / 2, null);
+        hud.setTransform(old);
+    }
+
+    // Value between the previous and the newest tick for the frame being drawn
+    private double lerp(double prev, double current) {
+        return prev + (current - prev) * this.alpha;
+    }
+
+    // Angle between the previous and the newest tick, turning the short way round
+    private double lerpAngle(double prev, double current) {
+        double diff = Math.IEEEremainder(current - prev, 2 * Math.PI);
+        return prev + diff * this.alpha;
+    }
+
+    /**
+     * Draws the orbital ellipse of planet i of the snapshot.
+     * The ellipse comes with the body (see CelestialBody), so nothing about the orbit is
+     * computed here. Its shape, relative to the focus, is kept per body slot and only rebuilt
+     * when the ellipse changed; the focus is translated to. The shape is made of Bezier
+     * curves, which Java2D flattens for the zoom it is drawn at and clips cheaply, so unlike a
+     * polygon it never has to be rebuilt for the zoom. Rasterizing the stroke is what costs,
+     * so orbits that cannot touch the view are not drawn at all.
+     */
+    private void drawOrbitEllipse(Graphics2D g2, WorldSnapshot snapshot, int i) {
+        double semiMajor = snapshot.orbitSemiMajor[i];
+        if (!(semiMajor > 0) || !this.orbitCrossesView(snapshot, i))
+            return;
+
+        if (i >= this.orbitShapes.length) {
+            int capacity = Math.max(i + 1, this.orbitShapes.length * 2);
+            this.orbitShapes = Arrays.copyOf(this.orbitShapes, capacity);
+            this.orbitShapeEllipse = Arrays.copyOf(this.orbitShapeEllipse, capacity * 4);
+        }
+        double[] key = this.orbitShapeEllipse;
+        Shape shape = this.orbitShapes[i];
+        if (shape == null || key[4 * i] != semiMajor || key[4 * i + 1] != snapshot.orbitSemiMinor[i]
+                || key[4 * i + 2] != snapshot.orbitFocusOffset[i] || key[4 * i + 3] != snapshot.orbitAngle[i]) {
+            shape = this.orbitShapes[i] = buildOrbit(semiMajor, snapshot.orbitSemiMinor[i],
+                    snapshot.orbitFocusOffset[i], snapshot.orbitAngle[i]);
+            key[4 * i] = semiMajor;
+            key[4 * i + 1] = snapshot.orbitSemiMinor[i];
+            key[4 * i + 2] = snapshot.orbitFocusOffset[i];
+            key[4 * i + 3] = snapshot.orbitAngle[i];
+        }
+
+        Stroke old = g2.getStroke();
+        g2.setStroke(ORBIT_STROKE);
+        g2.setColor(Color.WHITE);
+        g2.translate(snapshot.orbitFocusX[i], snapshot.orbitFocusY[i]);
+        g2.draw(shape);
+        g2.translate(-snapshot.orbitFocusX[i], -snapshot.orbitFocusY[i]);
+        g2.setStroke(old);
+    }
+
+    /**
+     * Whether the stroke of the orbit of planet i may touch the view. It does not when the
+     * view, grown by half the stroke, lies outside the bounds of the ellipse or wholly inside
+     * it, which is the common case of the outer orbits while flying near a planet. The ellipse
+     * is convex, so the view is inside when its four corners are.
+     */
+    private boolean orbitCrossesView(WorldSnapshot snapshot, int i) {
+        double a = snapshot.orbitSemiMajor[i];
+        double b = snapshot.orbitSemiMinor[i];
+        double cos = Math.cos(snapshot.orbitAngle[i]);
+        double sin = Math.sin(snapshot.orbitAngle[i]);
+        // the Bezier curves stray up to 3e-4 of the size of the ellipse from it
+        double margin = ORBIT_STROKE.getLineWidth() / 2 + 1 + 1e-3 * a;
+        double halfWidth = GAME_CONSTANT.WINDOW_WIDTH / this.cameraScale / 2 + margin;
+        double halfHeight = GAME_CONSTANT.WINDOW_HEIGHT / this.cameraScale / 2 + margin;
+
+        // view against the bounds of the rotated ellipse
+        double centerX = snapshot.orbitFocusX[i] - snapshot.orbitFocusOffset[i] * cos;
+        double centerY = snapshot.orbitFocusY[i] - snapshot.orbitFocusOffset[i] * sin;
+        double extentX = Math.sqrt(a * a * cos * cos + b * b * sin * sin);
+        double extentY = Math.sqrt(a * a * sin * sin + b * b * cos * cos);
+        if (Math.abs(this.cameraX - centerX) > halfWidth + extentX
+                || Math.abs(this.cameraY - centerY) > halfHeight + extentY)
+            return false;
+
+        // corners of the view in the frame of the ellipse
+        for (int corner = 0; corner < 4; corner++) {
+            double dx = this.cameraX + ((corner & 1) == 0 ? -halfWidth : halfWidth) - centerX;
+            double dy = this.cameraY + ((corner & 2) == 0 ? -halfHeight : halfHeight) - centerY;
+            double u = (dx * cos + dy * sin) / a;
+            double v = (dy * cos - dx * sin) / b;
+            if (u * u + v * v >= 1)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * The shape of an ellipse around its focus at the origin, the periapsis in the given direction.
+     *
+     * @param semiMajor semi-major axis in pixels
+     * @param semiMinor semi-minor axis in pixels
+     * @param offset    distance from the focus to the center in pixels
+     * @param periapsis angle of the periapsis in radians
+     */
+    private static Shape buildOrbit(double semiMajor, double semiMinor, double offset, double periapsis) {
+        // in the frame of the ellipse the periapsis is on +x and the center at -offset
+        Ellipse2D ellipse = new Ellipse2D.Double(-offset - semiMajor, -semiMinor, 2 * semiMajor, 2 * semiMinor);
+        if (periapsis == 0)
+            return ellipse;
+        return AffineTransform.getRotateInstance(periapsis).createTransformedShape(ellipse);
+    }
+}
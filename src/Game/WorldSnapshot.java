@@ -0,0 +1,220 @@
+package Game;
+
+import Game.Constant.CELESTIAL_BODY_TYPE;
+import Game.jfr.BufferResizeEvent;
+import java.awt.Color;
+import java.util.Arrays;
+import jdk.jfr.EventType;
+
+/**
+ * WorldSnapshot class is a copy of everything the renderer needs to draw one frame.
+ * The simulation thread fills a snapshot at the end of every tick and hands it over through
+ * a SnapshotBuffer, so the renderer never reads the live game objects.
+ * Collections (particles, enemies, celestial bodies) are stored as parallel arrays that only
+ * grow, so once they are large enough filling a snapshot does not allocate. Every grow is
+ * recorded as a BufferResizeEvent when a flight recording is running.
+ * Celestial bodies are the ones of the current solar system.
+ * Positions are in pixels relative to a floating origin, the center of the ship's Sector,
+ * so they stay small however far out the ship flies: the renderer's float and int maths (and
+ * Java2D's, which rasterizes in floats) never see a coordinate of millions of pixels, and the
+ * arrays can hold floats, which halves the copy. Add the origin for world coordinates.
+ * Everything that moves is stored twice, as of the end of the previous tick (prev) and of the
+ * newest tick, so the renderer can interpolate between them with interpolationAlpha().
+ */
+public class WorldSnapshot {
+    private static final EventType BUFFER_RESIZE_EVENT = EventType.getEventType(BufferResizeEvent.class);
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // increasing publish counter, used by SnapshotBuffer to detect fresh snapshots
+    long sequence;
+
+    GameState state = GameState.MENU;
+
+    // System.nanoTime() at which the newest tick was due, and the tick length
+    long tickTime;
+    long tickNs = 1;
+
+    // floating origin in world pixels, a whole number; the positions below are relative to it
+    double originX;
+    double originY;
+
+    // camera
+    double cameraX;
+    double cameraY;
+    double cameraScale = 1;
+    double cameraPrevX;
+    double cameraPrevY;
+    double cameraPrevScale = 1;
+
+    // player ship
+    double playerX;
+    double playerY;
+    double playerAngle;
+    double playerPrevX;
+    double playerPrevY;
+    double playerPrevAngle;
+    double playerVelX;
+    double playerVelY;
+    double playerHealth;
+    double playerMaxHealth;
+
+    // trail particles
+    int particleCount;
+    float[] particleX = new float[INITIAL_CAPACITY];
+    float[] particleY = new float[INITIAL_CAPACITY];
+    float[] particlePrevX = new float[INITIAL_CAPACITY];
+    float[] particlePrevY = new float[INITIAL_CAPACITY];
+    double[] particleRadius = new double[INITIAL_CAPACITY];
+    double[] particleAlpha = new double[INITIAL_CAPACITY];
+
+    // enemies
+    int enemyCount;
+    float[] enemyX = new float[INITIAL_CAPACITY];
+    float[] enemyY = new float[INITIAL_CAPACITY];
+    double[] enemyAngle = new double[INITIAL_CAPACITY];
+    float[] enemyPrevX = new float[INITIAL_CAPACITY];
+    float[] enemyPrevY = new float[INITIAL_CAPACITY];
+    double[] enemyPrevAngle = new double[INITIAL_CAPACITY];
+    double[] enemySize = new double[INITIAL_CAPACITY];
+    int[] enemyFrame = new int[INITIAL_CAPACITY];
+
+    // celestial bodies of the current solar system
+    int bodyCount;
+    float[] bodyX = new float[INITIAL_CAPACITY];
+    float[] bodyY = new float[INITIAL_CAPACITY];
+    float[] bodyPrevX = new float[INITIAL_CAPACITY];
+    float[] bodyPrevY = new float[INITIAL_CAPACITY];
+    double[] bodyRadius = new double[INITIAL_CAPACITY];
+    Color[] bodyColor = new Color[INITIAL_CAPACITY];
+    CELESTIAL_BODY_TYPE[] bodyType = new CELESTIAL_BODY_TYPE[INITIAL_CAPACITY];
+
+    // orbit ellipse of each planet in pixels: the focus (its parent), the semi-axes, the
+    // distance from the focus to the center and the angle of the periapsis
+    float[] orbitFocusX = new float[INITIAL_CAPACITY];
+    float[] orbitFocusY = new float[INITIAL_CAPACITY];
+    double[] orbitSemiMajor = new double[INITIAL_CAPACITY];
+    double[] orbitSemiMinor = new double[INITIAL_CAPACITY];
+    double[] orbitFocusOffset = new double[INITIAL_CAPACITY];
+    double[] orbitAngle = new double[INITIAL_CAPACITY];
+
+    // predicted coasting path of the ship in pixels, its position first (see TrajectoryPredictor)
+    int trajectoryCount;
+    float[] trajectoryX = new float[INITIAL_CAPACITY];
+    float[] trajectoryY = new float[INITIAL_CAPACITY];
+    // whether the path ends on a body
+    boolean trajectoryImpact;
+
+    // package delivery target
+    boolean hasPackage;
+    double packageX;
+    double packageY;
+
+    /**
+     * Sets the number of particles in this snapshot, growing the particle arrays if needed.
+     */
+    void setParticleCount(int count) {
+        if (count > this.particleX.length) {
+            int capacity = grownCapacity(this.particleX.length, count);
+            recordResize("particles", this.particleX.length, capacity, count);
+            this.particleX = Arrays.copyOf(this.particleX, capacity);
+            this.particleY = Arrays.copyOf(this.particleY, capacity);
+            this.particlePrevX = Arrays.copyOf(this.particlePrevX, capacity);
+            this.particlePrevY = Arrays.copyOf(this.particlePrevY, capacity);
+            this.particleRadius = Arrays.copyOf(this.particleRadius, capacity);
+            this.particleAlpha = Arrays.copyOf(this.particleAlpha, capacity);
+        }
+        this.particleCount = count;
+    }
+
+    /**
+     * Sets the number of enemies in this snapshot, growing the enemy arrays if needed.
+     */
+    void setEnemyCount(int count) {
+        if (count > this.enemyX.length) {
+            int capacity = grownCapacity(this.enemyX.length, count);
+            recordResize("enemies", this.enemyX.length, capacity, count);
+            this.enemyX = Arrays.copyOf(this.enemyX, capacity);
+            this.enemyY = Arrays.copyOf(this.enemyY, capacity);
+            this.enemyAngle = Arrays.copyOf(this.enemyAngle, capacity);
+            this.enemyPrevX = Arrays.copyOf(this.enemyPrevX, capacity);
+            this.enemyPrevY = Arrays.copyOf(this.enemyPrevY, capacity);
+            this.enemyPrevAngle = Arrays.copyOf(this.enemyPrevAngle, capacity);
+            this.enemySize = Arrays.copyOf(this.enemySize, capacity);
+            this.enemyFrame = Arrays.copyOf(this.enemyFrame, capacity);
+        }
+        this.enemyCount = count;
+    }
+
+    /**
+     * Sets the number of celestial bodies in this snapshot, growing the body arrays if needed.
+     */
+    void setBodyCount(int count) {
+        if (count > this.bodyX.length) {
+            int capacity = grownCapacity(this.bodyX.length, count);
+            recordResize("bodies", this.bodyX.length, capacity, count);
+            this.bodyX = Arrays.copyOf(this.bodyX, capacity);
+            this.bodyY = Arrays.copyOf(this.bodyY, capacity);
+            this.bodyPrevX = Arrays.copyOf(this.bodyPrevX, capacity);
+            this.bodyPrevY = Arrays.copyOf(this.bodyPrevY, capacity);
+            this.bodyRadius = Arrays.copyOf(this.bodyRadius, capacity);
+            this.bodyColor = Arrays.copyOf(this.bodyColor, capacity);
+            this.bodyType = Arrays.copyOf(this.bodyType, capacity);
+            this.orbitFocusX = Arrays.copyOf(this.orbitFocusX, capacity);
+            this.orbitFocusY = Arrays.copyOf(this.orbitFocusY, capacity);
+            this.orbitSemiMajor = Arrays.copyOf(this.orbitSemiMajor, capacity);
+            this.orbitSemiMinor = Arrays.copyOf(this.orbitSemiMinor, capacity);
+            this.orbitFocusOffset = Arrays.copyOf(this.orbitFocusOffset, capacity);
+            this.orbitAngle = Arrays.copyOf(this.orbitAngle, capacity);
+        }
+        this.bodyCount = count;
+    }
+
+    /**
+     * Sets the number of points of the predicted path, growing its arrays if needed.
+     */
+    void setTrajectoryCount(int count) {
+        if (count > this.trajectoryX.length) {
+            int capacity = grownCapacity(this.trajectoryX.length, count);
+            recordResize("trajectory", this.trajectoryX.length, capacity, count);
+            this.trajectoryX = Arrays.copyOf(this.trajectoryX, capacity);
+            this.trajectoryY = Arrays.copyOf(this.trajectoryY, capacity);
+        }
+        this.trajectoryCount = count;
+    }
+
+    /**
+     * How far the frame drawn at the given time lies between the previous and the newest tick.
+     * The renderer draws prev + (current - prev) * alpha, which stays one tick behind the
+     * simulation but moves smoothly at any frame rate. A frame after the next tick was due
+     * (the simulation is late) shows the newest tick; nothing is extrapolated.
+     *
+     * @param now System.nanoTime() of the frame
+     * @return the interpolation factor in [0, 1]
+     */
+    double interpolationAlpha(long now) {
+        double alpha = (double) (now - this.tickTime) / this.tickNs;
+        return Math.max(0, Math.min(1, alpha));
+    }
+
+    // Reports a grow of the arrays of one collection to the flight recorder
+    private static void recordResize(String buffer, int oldCapacity, int newCapacity, int required) {
+        if (!BUFFER_RESIZE_EVENT.isEnabled())
+            return;
+        BufferResizeEvent event = new BufferResizeEvent();
+        if (event.shouldCommit()) {
+            event.buffer = buffer;
+            event.oldCapacity = oldCapacity;
+            event.newCapacity = newCapacity;
+            event.required = required;
+            event.commit();
+        }
+    }
+
+    // Doubles the capacity until the requested size fits
+    private static int grownCapacity(int capacity, int required) {
+        while (capacity < required)
+            capacity *= 2;
+        return capacity;
+    }
+}
@@ -0,0 +1,172 @@
+package Game.bench;
+
+import Game.CelestialBody;
+import Game.Constant.GAME_CONSTANT;
+import Game.Constant.PHYSICS_CONSTANT;
+import Game.GameWorld;
+import Game.InputState;
+import Game.Player;
+import Game.SolarSystem;
+import Game.SolarSystemCache;
+import Game.WorldSnapshot;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+/**
+ * AllocationCheck class flies the ship through every part of the per-tick path (gravity,
+ * thrust with its trail, orbit integration, collision, landing and taking off again) and
+ * checks that a tick allocates nothing once the game has warmed up:
+ *
+ *     java -Djava.awt.headless=true -cp bin Game.bench.AllocationCheck [ticks] [--seed <n>]
+ *
+ * The ship is steered by a script: it heads for the nearest body of its solar system with
+ * the engine on, coasts until gravity pulls it down, rests on the surface, and takes off
+ * with a burst of side thrust. The script runs first for a warm-up, so the JIT has compiled
+ * the hot path and the particle pool has filled, then for the measured ticks, which also
+ * copy the world into a snapshot as the game thread does. Reaching a new sector generates its
+ * solar systems, which allocates by design, so the warm-up goes on until a whole window
+ * generated none, and a measured window that generated some is printed but not counted.
+ * The world is generated from a fixed seed, 1 unless --seed is given, and the seed is printed,
+ * so a failing run can be repeated. The measured ticks are counted in windows of WINDOW_TICKS.
+ * It prints the bytes allocated per tick and every window that allocated, and exits with
+ * status 1 when a window allocated more than WINDOW_BYTE_LIMIT, so it can guard the
+ * zero-allocation path in a build.
+ */
+public class AllocationCheck {
+    private static final int DEFAULT_TICKS = 20_000;
+    private static final long DEFAULT_SEED = 1;
+    private static final int WARMUP_TICKS = 60_000;
+    // the script drifts only slowly, new sectors stop coming up long before this
+    private static final int MAX_WARMUP_TICKS = 180_000;
+    // about seven rounds of the script
+    private static final int WINDOW_TICKS = 5_000;
+    // when the JIT installs a method compiled late, the thread running it can allocate a few
+    // hundred bytes once (400 to 500 seen); a tick that allocates even one small object does
+    // so in every tick of the window, 80 KB for a 16-byte object
+    private static final int WINDOW_BYTE_LIMIT = 1024;
+
+    // script phases in ticks: thrust at the nearest body, coast, rest, take off
+    private static final int THRUST_TICKS = 150;
+    private static final int COAST_TICKS = 450;
+    private static final int TAKE_OFF_TICKS = 60;
+
+    public static void main(String[] args) {
+        int ticks = DEFAULT_TICKS;
+        long seed = DEFAULT_SEED;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                default -> ticks = Integer.parseInt(args[i]);
+            }
+        }
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        GameWorld world = new GameWorld(seed);
+        WorldSnapshot snapshot = new WorldSnapshot();
+        InputState input = new InputState();
+        double dt = 1.0 / GAME_CONSTANT.FPS_SET;
+        int[] counts = new int[2];
+
+        SolarSystemCache systems = world.getSolarSystems();
+        int warmup = 0;
+        int generated;
+        do {
+            generated = systems.getGenerated();
+            fly(world, snapshot, input, dt, warmup, WINDOW_TICKS, counts);
+            warmup += WINDOW_TICKS;
+        } while (warmup < WARMUP_TICKS || systems.getGenerated() != generated && warmup < MAX_WARMUP_TICKS);
+
+        counts[0] = counts[1] = 0;
+        threads.getThreadAllocatedBytes(thread); // the first call allocates itself
+        long allocated = 0;
+        int measured = 0;
+        int windows = 0;
+        int failedWindows = 0;
+        for (int t = 0; t < ticks; t += WINDOW_TICKS) {
+            int n = Math.min(WINDOW_TICKS, ticks - t);
+            generated = systems.getGenerated();
+            long before = threads.getThreadAllocatedBytes(thread);
+            fly(world, snapshot, input, dt, warmup + t, n, counts);
+            long bytes = threads.getThreadAllocatedBytes(thread) - before;
+            if (systems.getGenerated() != generated) {
+                System.out.printf("ticks %d to %d generated %d solar systems, not counted%n", t, t + n,
+                        systems.getGenerated() - generated);
+                continue;
+            }
+            allocated += bytes;
+            measured += n;
+            windows++;
+            if (bytes > 0)
+                System.out.printf("ticks %d to %d allocated %d bytes%n", t, t + n, bytes);
+            if (bytes > WINDOW_BYTE_LIMIT)
+                failedWindows++;
+        }
+
+        System.out.printf("seed %d, %d ticks: %d with the engine on, %d landed%n", seed, ticks, counts[0], counts[1]);
+        System.out.printf("allocated %d bytes, %.2f bytes per tick, %d of %d windows over %d bytes%n", allocated,
+                (double) allocated / Math.max(measured, 1), failedWindows, windows, WINDOW_BYTE_LIMIT);
+        if (failedWindows > 0) {
+            System.out.println("FAIL: the tick allocates");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    /**
+     * Steps the world through the script.
+     *
+     * @param counts receives the ticks with the engine on and the ticks spent landed
+     */
+    private static void fly(GameWorld world, WorldSnapshot snapshot, InputState input, double dt, int first,
+            int ticks, int[] counts) {
+        int cycle = THRUST_TICKS + COAST_TICKS + TAKE_OFF_TICKS;
+        for (int t = first; t < first + ticks; t++) {
+            int phase = t % cycle;
+            input.thrust = phase < THRUST_TICKS || phase >= THRUST_TICKS + COAST_TICKS;
+            input.leftThrust = phase >= THRUST_TICKS + COAST_TICKS && t / cycle % 2 == 0;
+            input.rightThrust = phase >= THRUST_TICKS + COAST_TICKS && t / cycle % 2 == 1;
+            if (phase < THRUST_TICKS)
+                aimAtNearestBody(world, input);
+
+            world.step(input, dt);
+            world.writeTo(snapshot);
+
+            if (input.thrust)
+                counts[0]++;
+            if (world.getPlayer().isLanded())
+                counts[1]++;
+        }
+    }
+
+    // Points the mouse from the middle of the window towards the nearest body
+    private static void aimAtNearestBody(GameWorld world, InputState input) {
+        SolarSystem system = world.getCurrentSolarSystem();
+        if (system == null)
+            return;
+        Player player = world.getPlayer();
+        double px = player.getPos().x * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE;
+        double py = player.getPos().y * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE;
+
+        ArrayList<CelestialBody> bodies = system.getCelestrialBodies();
+        double bestSq = Double.POSITIVE_INFINITY;
+        double dx = 0, dy = 0;
+        for (int i = 0; i < bodies.size(); i++) {
+            CelestialBody body = bodies.get(i);
+            double x = body.getX() - px, y = body.getY() - py;
+            if (x * x + y * y < bestSq) {
+                bestSq = x * x + y * y;
+                dx = x;
+                dy = y;
+            }
+        }
+        double length = Math.sqrt(bestSq);
+        if (length == 0)
+            return;
+        input.mouseX = GAME_CONSTANT.WINDOW_WIDTH / 2.0 + dx / length * 200;
+        input.mouseY = GAME_CONSTANT.WINDOW_HEIGHT / 2.0 + dy / length * 200;
+    }
+}
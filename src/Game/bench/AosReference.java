@@ -0,0 +1,80 @@
+package Game.bench;
+
+import Game.CelestialBody;
+import Game.Constant.CELESTIAL_BODY_TYPE;
+import Game.Constant.PHYSICS_CONSTANT;
+import Game.utils.Vector2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AosReference class is the object-per-body layout the solar systems used before the
+ * BodyStore: every body is an object with its own position, velocity, acceleration and
+ * force vectors, and the gravity sum allocates a vector per pair like Entity.attraction.
+ * It is only kept so the benchmark suite can show the structure-of-arrays store against it.
+ */
+class AosReference {
+    private static class Body {
+        final Vector2D pos = new Vector2D();
+        final Vector2D vel = new Vector2D();
+        final Vector2D acc = new Vector2D();
+        final Vector2D force = new Vector2D();
+        double mass;
+        CELESTIAL_BODY_TYPE bodyType;
+    }
+
+    private final ArrayList<Body> bodies = new ArrayList<>();
+
+    // Copies the bodies of a solar system
+    AosReference(List<CelestialBody> source) {
+        for (CelestialBody c : source) {
+            Body b = new Body();
+            b.pos.x = c.getX();
+            b.pos.y = c.getY();
+            Vector2D vel = c.getVel();
+            b.vel.x = vel.x * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE;
+            b.vel.y = vel.y * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE;
+            b.mass = c.getMass();
+            b.bodyType = c.getType();
+            this.bodies.add(b);
+        }
+    }
+
+    // One step of all planets, the way CelestialBody.update used to do it
+    void update(double timestep) {
+        for (int i = 1; i < this.bodies.size(); i++) {
+            Body body = this.bodies.get(i);
+            if (body.bodyType != CELESTIAL_BODY_TYPE.PLANET)
+                continue;
+
+            body.force.x = 0;
+            body.force.y = 0;
+            for (Body other : this.bodies) {
+                if (other == body || other.bodyType == CELESTIAL_BODY_TYPE.BLACK_HOLE)
+                    continue;
+                Vector2D f = attraction(other, body);
+                body.force.x += f.x;
+                body.force.y += f.y;
+            }
+
+            body.acc.x = body.force.x / body.mass * timestep;
+            body.acc.y = body.force.y / body.mass * timestep;
+            body.vel.x += body.acc.x;
+            body.vel.y += body.acc.y;
+            body.pos.x += body.vel.x * timestep;
+            body.pos.y += body.vel.y * timestep;
+        }
+    }
+
+    private static Vector2D attraction(Body body, Body subject) {
+        Vector2D delta = Vector2D.subtract(body.pos, subject.pos);
+        double distSq = delta.x * delta.x + delta.y * delta.y;
+        if (distSq == 0)
+            return new Vector2D(0, 0);
+
+        double magnitude = PHYSICS_CONSTANT.G * body.mass * subject.mass / distSq;
+        Vector2D force = Vector2D.normalize(delta);
+        force.multiply(magnitude);
+        return force;
+    }
+}
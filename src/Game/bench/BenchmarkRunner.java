@@ -0,0 +1,180 @@
+package Game.bench;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BenchmarkRunner class is a small microbenchmark harness in the spirit of JMH.
+ * Every benchmark runs a number of timed warmup iterations so the JIT can compile it, then a
+ * number of measured iterations; each iteration calls the operation in batches until the
+ * iteration time is used up.
+ * For every benchmark it reports the average time per operation with its standard deviation
+ * across iterations, and the bytes allocated per operation by the benchmark thread (the same
+ * number JMH's GC profiler reports as gc.alloc.rate.norm).
+ * Results can be written to a CSV file and compared against a previous CSV as a baseline.
+ */
+public class BenchmarkRunner {
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNs;
+
+    private final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final List<Result> results = new ArrayList<>();
+
+    // One measured benchmark
+    public static class Result {
+        public final String name;
+        public final String params;
+        public final double nsPerOp;
+        public final double error;
+        public final double bytesPerOp;
+
+        Result(String name, String params, double nsPerOp, double error, double bytesPerOp) {
+            this.name = name;
+            this.params = params;
+            this.nsPerOp = nsPerOp;
+            this.error = error;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        String key() {
+            return this.name + " " + this.params;
+        }
+    }
+
+    /**
+     * Constructor for the BenchmarkRunner class.
+     *
+     * @param warmupIterations      iterations run before measuring
+     * @param measurementIterations iterations measured
+     * @param iterationMillis       length of one iteration in milliseconds
+     */
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = Math.max(1, measurementIterations);
+        this.iterationNs = iterationMillis * 1_000_000;
+        this.threadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /**
+     * Warms up and measures one operation.
+     *
+     * @param name   benchmark name, e.g. "SolarSystem.update"
+     * @param params parameter description, e.g. "bodies=64"
+     * @param op     the operation to measure; one call is one operation
+     * @return the measured result
+     */
+    public Result run(String name, String params, Runnable op) {
+        System.out.printf("# %s (%s)%n", name, params);
+
+        // size the batches so the clock is read about once a millisecond
+        int batch = 1;
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < 1_000_000 && batch < 1 << 30) {
+            for (int i = 0; i < batch; i++)
+                op.run();
+            batch *= 2;
+        }
+
+        for (int i = 0; i < this.warmupIterations; i++) {
+            double ns = this.iteration(op, batch)[0];
+            System.out.printf("  warmup %d: %.1f ns/op%n", i + 1, ns);
+        }
+
+        double[] nsPerOp = new double[this.measurementIterations];
+        double bytes = 0;
+        for (int i = 0; i < this.measurementIterations; i++) {
+            double[] sample = this.iteration(op, batch);
+            nsPerOp[i] = sample[0];
+            bytes += sample[1];
+            System.out.printf("  iteration %d: %.1f ns/op%n", i + 1, sample[0]);
+        }
+
+        double mean = 0;
+        for (double ns : nsPerOp)
+            mean += ns;
+        mean /= nsPerOp.length;
+
+        double variance = 0;
+        for (double ns : nsPerOp)
+            variance += (ns - mean) * (ns - mean);
+        double stdDev = nsPerOp.length > 1 ? Math.sqrt(variance / (nsPerOp.length - 1)) : 0;
+
+        Result result = new Result(name, params, mean, stdDev, bytes / this.measurementIterations);
+        this.results.add(result);
+        return result;
+    }
+
+    /**
+     * Runs batches of the operation for one iteration.
+     *
+     * @return {nanoseconds per operation, bytes allocated per operation}
+     */
+    private double[] iteration(Runnable op, int batch) {
+        long threadId = Thread.currentThread().getId();
+        long ops = 0;
+        long allocatedBefore = this.threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < batch; i++)
+                op.run();
+            ops += batch;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < this.iterationNs);
+        long allocated = this.threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        return new double[] { (double) elapsed / ops, (double) allocated / ops };
+    }
+
+    /**
+     * Prints all results as a table, with the change against the baseline if one is given.
+     *
+     * @param baseline results of an earlier run keyed by name and params, may be empty
+     */
+    public void printResults(Map<String, Result> baseline) {
+        System.out.println();
+        System.out.printf("%-44s %-16s %14s %12s %12s %10s%n",
+                "Benchmark", "Params", "Score (ns/op)", "Error", "Alloc (B/op)", "vs base");
+        for (Result r : this.results) {
+            Result base = baseline.get(r.key());
+            String change = base == null ? "" : String.format("%+.1f%%", (r.nsPerOp / base.nsPerOp - 1) * 100);
+            System.out.printf("%-44s %-16s %14.1f %12.1f %12.1f %10s%n",
+                    r.name, r.params, r.nsPerOp, r.error, r.bytesPerOp, change);
+        }
+    }
+
+    // Writes all results to a CSV file that can later be used as a baseline
+    public void writeCsv(String path) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(path))) {
+            out.println("benchmark,params,ns_per_op,error,bytes_per_op");
+            for (Result r : this.results)
+                out.printf("%s,%s,%.3f,%.3f,%.3f%n", r.name, r.params, r.nsPerOp, r.error, r.bytesPerOp);
+        }
+    }
+
+    // Reads results written by writeCsv, keyed by name and params
+    public static Map<String, Result> readCsv(String path) throws IOException {
+        Map<String, Result> results = new HashMap<>();
+        try (BufferedReader in = new BufferedReader(new FileReader(path))) {
+            String line = in.readLine(); // header
+            while ((line = in.readLine()) != null) {
+                String[] f = line.split(",");
+                Result r = new Result(f[0], f[1], Double.parseDouble(f[2]), Double.parseDouble(f[3]),
+                        Double.parseDouble(f[4]));
+                results.put(r.key(), r);
+            }
+        }
+        return results;
+    }
+}
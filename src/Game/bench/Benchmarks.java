@@ -0,0 +1,342 @@
+package Game.bench;
+
+import Game.BarnesHutSolver;
+import Game.BodyStore;
+import Game.CelestialBody;
+import Game.Constant.CELESTIAL_BODY_TYPE;
+import Game.Constant.GAME_CONSTANT;
+import Game.Constant.PHYSICS_CONSTANT;
+import Game.Constant.ThrustType;
+import Game.DirectGravitySolver;
+import Game.GameWorld;
+import Game.GravitySolver;
+import Game.InputState;
+import Game.Player;
+import Game.ResolutionController;
+import Game.SolarSystem;
+import Game.TrailParticle;
+import Game.VectorGravity;
+import Game.WorldRenderer;
+import Game.WorldSnapshot;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmarks class is the benchmark suite for the physics, particle and render hot paths.
+ * Run it headless from the project root (the render benchmark loads the sprites from Images/):
+ *
+ *     java -Djava.awt.headless=true -cp bin Game.bench.Benchmarks [name regex]
+ *
+ * Options are passed as system properties:
+ *   bench.bodies=8,64,256       body counts for the physics benchmarks
+ *   bench.particles=64,512,4096 live particle counts for the particle benchmark
+ *   bench.warmup=5 bench.iterations=5 bench.time=1000 (ms per iteration)
+ *   bench.out=results.csv       write the results as CSV
+ *   bench.baseline=base.csv     compare against the results of an earlier run
+ *
+ * Every performance change should be judged by running the suite before and after with
+ * bench.out / bench.baseline and looking at both the time and the allocation per operation.
+ * Approximations are judged on accuracy as well; GravityReport does that for the gravity solvers
+ * and IntegratorReport for the orbit integrators.
+ */
+public class Benchmarks {
+    // results are written here so the JIT cannot remove the benchmarked work
+    public static volatile Object sink;
+    public static volatile double doubleSink;
+
+    // one tick at the base tick rate
+    private static final double DT = 1.0 / GAME_CONSTANT.BASE_TICK_RATE;
+
+    public static void main(String[] args) throws Exception {
+        Pattern filter = Pattern.compile(args.length > 0 ? args[0] : ".*");
+        int[] bodyCounts = intList(System.getProperty("bench.bodies", "8,64,256"));
+        int[] particleCounts = intList(System.getProperty("bench.particles", "64,512,4096"));
+
+        BenchmarkRunner runner = new BenchmarkRunner(
+                Integer.getInteger("bench.warmup", 5),
+                Integer.getInteger("bench.iterations", 5),
+                Integer.getInteger("bench.time", 1000));
+
+        for (int bodies : bodyCounts) {
+            if (filter.matcher("SolarSystem.update").find())
+                solarSystemUpdate(runner, bodies);
+            if (filter.matcher("SolarSystem.updateAos").find())
+                solarSystemUpdateAos(runner, bodies);
+            if (filter.matcher("SolarSystem.updateRails").find())
+                solarSystemUpdateRails(runner, bodies);
+            if (filter.matcher("GravitySolver.allForces").find()) {
+                gravitySolver(runner, bodies, new DirectGravitySolver(), "direct");
+                gravitySolver(runner, bodies, new BarnesHutSolver(0.5), "bh0.5");
+                // only with --add-modules jdk.incubator.vector and VectorGravitySolver built
+                if (VectorGravity.isAvailable())
+                    gravitySolver(runner, bodies, VectorGravity.newVectorSolver(), "simd");
+            }
+            if (filter.matcher("Player.gravityAndCollision").find())
+                playerGravityAndCollision(runner, bodies);
+            if (filter.matcher("Player.collision").find())
+                playerCollision(runner, bodies);
+        }
+
+        if (filter.matcher("GameWorld.step").find()) {
+            for (int grid : new int[] { 3, 8 }) {
+                gameWorldStep(runner, grid, true, true);
+                gameWorldStep(runner, grid, false, false);
+                gameWorldStep(runner, grid, false, true);
+            }
+        }
+
+        for (int particles : particleCounts) {
+            if (filter.matcher("TrailParticle.sustainedThrust").find())
+                sustainedThrust(runner, particles);
+        }
+
+        if (filter.matcher("WorldRenderer.render").find()) {
+            renderFrame(runner, 1);
+            renderFrame(runner, 0.5);
+        }
+
+        String baselinePath = System.getProperty("bench.baseline");
+        runner.printResults(baselinePath == null ? Map.of() : BenchmarkRunner.readCsv(baselinePath));
+
+        String outPath = System.getProperty("bench.out");
+        if (outPath != null)
+            runner.writeCsv(outPath);
+    }
+
+    /**
+     * One N-body step of a solar system with the given number of bodies.
+     * The adaptive substeps are turned off, so the numbers are the cost of one step
+     * (the crowded benchmark systems would otherwise always run at the substep limit).
+     * Kepler rails are off as well, every planet is integrated.
+     */
+    private static void solarSystemUpdate(BenchmarkRunner runner, int bodies) {
+        SolarSystem system = createSolarSystem(bodies);
+        double accuracy = GAME_CONSTANT.ORBIT_STEP_ACCURACY;
+        GAME_CONSTANT.ORBIT_STEP_ACCURACY = 0;
+        GAME_CONSTANT.KEPLER_RAILS = false;
+        runner.run("SolarSystem.update", "bodies=" + bodies, () -> system.update(DT));
+        GAME_CONSTANT.KEPLER_RAILS = true;
+        GAME_CONSTANT.ORBIT_STEP_ACCURACY = accuracy;
+    }
+
+    /**
+     * The same step on debris around a lone sun with Kepler rails on, against the same field
+     * fully integrated. The light debris barely disturbs itself, so most of it rides on rails;
+     * around the heavy planets of a generated system little of it would.
+     */
+    private static void solarSystemUpdateRails(BenchmarkRunner runner, int bodies) {
+        double accuracy = GAME_CONSTANT.ORBIT_STEP_ACCURACY;
+        GAME_CONSTANT.ORBIT_STEP_ACCURACY = 0;
+        int center = GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2;
+
+        GAME_CONSTANT.KEPLER_RAILS = false;
+        SolarSystem numeric = fillDebris(new SolarSystem(center, center), bodies, new Random(42));
+        runner.run("SolarSystem.updateRails", "numeric bodies=" + bodies, () -> numeric.update(DT));
+
+        GAME_CONSTANT.KEPLER_RAILS = true;
+        SolarSystem rails = fillDebris(new SolarSystem(center, center), bodies, new Random(42));
+        rails.update(DT); // the first tick puts the planets on rails
+        int onRails = rails.getBodyStore().getRails().getRailsCount();
+        runner.run("SolarSystem.updateRails", "rails bodies=" + bodies + " on rails=" + onRails,
+                () -> rails.update(DT));
+
+        GAME_CONSTANT.ORBIT_STEP_ACCURACY = accuracy;
+    }
+
+    /**
+     * The same step on the object-per-body layout used before the BodyStore, as a reference
+     * for the structure-of-arrays speed-up.
+     */
+    private static void solarSystemUpdateAos(BenchmarkRunner runner, int bodies) {
+        AosReference system = new AosReference(createSolarSystem(bodies).getCelestrialBodies());
+        double timestep = PHYSICS_CONSTANT.TIMESTEP;
+        runner.run("SolarSystem.updateAos", "bodies=" + bodies, () -> system.update(timestep));
+    }
+
+    /**
+     * One tick worth of gravity for a debris field: the solver is prepared and then asked
+     * for the field at every body, as a solar system step does.
+     */
+    private static void gravitySolver(BenchmarkRunner runner, int bodies, GravitySolver solver, String name) {
+        BodyStore store = createDebrisField(bodies, new Random(42)).getBodyStore();
+        double[] field = new double[2];
+        runner.run("GravitySolver.allForces", name + " bodies=" + bodies, () -> {
+            solver.prepare(store);
+            double sum = 0;
+            for (int i = 0; i < store.size(); i++) {
+                solver.field(store, store.getX(i), store.getY(i), i, field);
+                sum += field[0];
+            }
+            doubleSink = sum;
+        });
+    }
+
+    /**
+     * The ship's gravity sum followed by its collision scan, as done every tick in flight.
+     */
+    private static void playerGravityAndCollision(BenchmarkRunner runner, int bodies) {
+        SolarSystem system = createSolarSystem(bodies);
+        CelestialBody sun = system.getRoot();
+        Player player = new Player(sun.getPos().x + 3000, sun.getPos().y + 3000, new Random(42));
+        runner.run("Player.gravityAndCollision", "bodies=" + bodies, () -> {
+            player.updateNetGravitationalForce(system);
+            sink = player.checkCollisionWithPlanets(system);
+        });
+    }
+
+    /**
+     * The ship's collision test alone, among the bodies near it in the system's SpatialHash.
+     * The bodies stand still, so this leaves out refreshing the hash after they moved.
+     */
+    private static void playerCollision(BenchmarkRunner runner, int bodies) {
+        SolarSystem system = createSolarSystem(bodies);
+        CelestialBody sun = system.getRoot();
+        Player player = new Player(sun.getPos().x + 3000, sun.getPos().y + 3000, new Random(42));
+        runner.run("Player.collision", "bodies=" + bodies, () -> sink = player.checkCollisionWithPlanets(system));
+    }
+
+    /**
+     * One world tick with the solar systems of the sectors (0, 0) to (grid - 1, grid - 1)
+     * held, the player's among them, with the simulation level of detail on (only the
+     * player's system every tick) or off (every system held every tick), and the solar
+     * systems updated in parallel or serially.
+     */
+    private static void gameWorldStep(BenchmarkRunner runner, int grid, boolean lod, boolean parallel) {
+        int cache = GAME_CONSTANT.SOLAR_SYSTEM_CACHE;
+        int full = GAME_CONSTANT.LOD_FULL_RADIUS;
+        GAME_CONSTANT.SOLAR_SYSTEM_CACHE = Math.max(cache, grid * grid);
+        GAME_CONSTANT.LOD_FULL_RADIUS = lod ? full : Integer.MAX_VALUE;
+        GAME_CONSTANT.PARALLEL_SYSTEMS = parallel;
+
+        GameWorld world = new GameWorld(42);
+        for (int y = 0; y < grid; y++) {
+            for (int x = 0; x < grid; x++)
+                world.getSolarSystems().get(x, y);
+        }
+        InputState input = new InputState();
+        runner.run("GameWorld.step", "grid=" + grid + "x" + grid + (lod ? " lod" : " all")
+                + (parallel ? " parallel" : " serial"), () -> world.step(input, DT));
+
+        GAME_CONSTANT.SOLAR_SYSTEM_CACHE = cache;
+        GAME_CONSTANT.LOD_FULL_RADIUS = full;
+        GAME_CONSTANT.PARALLEL_SYSTEMS = true;
+    }
+
+    /**
+     * One tick of a thrusting engine: particles are emitted at the rate that keeps the
+     * requested number alive, then all of them are updated and the dead ones removed,
+     * the same way the player updates its trail.
+     */
+    private static void sustainedThrust(BenchmarkRunner runner, int particles) {
+        ArrayList<TrailParticle> trail = new ArrayList<>();
+        // a particle lives 30 to 45 ticks
+        int emitPerTick = Math.max(1, particles / 37);
+        double[] angle = { 0 };
+        Random rand = new Random(42);
+
+        runner.run("TrailParticle.sustainedThrust", "particles=" + particles, () -> {
+            angle[0] += 0.01;
+            for (int i = 0; i < emitPerTick; i++)
+                trail.add(new TrailParticle(500, 500, angle[0], ThrustType.CENTER, rand));
+
+            Iterator<TrailParticle> it = trail.iterator();
+            while (it.hasNext()) {
+                TrailParticle p = it.next();
+                p.update(DT);
+                if (!p.isAlive())
+                    it.remove();
+            }
+        });
+    }
+
+    /**
+     * Rendering one playing frame into an offscreen image at window size, with the world
+     * layer drawn at the given fixed internal resolution scale.
+     * The world is flown for two seconds with the engine on first, so there is a trail.
+     */
+    private static void renderFrame(BenchmarkRunner runner, double renderScale) {
+        GameWorld world = new GameWorld(42);
+        InputState input = new InputState();
+        input.thrust = true;
+        input.mouseX = GAME_CONSTANT.WINDOW_WIDTH;
+        input.mouseY = GAME_CONSTANT.WINDOW_HEIGHT / 2.0;
+        for (int i = 0; i < 2 * GAME_CONSTANT.FPS_SET; i++)
+            world.step(input, 1.0 / GAME_CONSTANT.FPS_SET);
+
+        WorldSnapshot snapshot = new WorldSnapshot();
+        world.writeTo(snapshot);
+
+        WorldRenderer renderer = new WorldRenderer(ResolutionController.fixed(renderScale));
+        BufferedImage image = new BufferedImage(GAME_CONSTANT.WINDOW_WIDTH, GAME_CONSTANT.WINDOW_HEIGHT,
+                BufferedImage.TYPE_INT_RGB);
+
+        runner.run("WorldRenderer.render", "scale=" + renderScale, () -> {
+            Graphics2D g = image.createGraphics();
+            g.setColor(GAME_CONSTANT.SPACE_COLOR);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            renderer.render(g, snapshot);
+            g.dispose();
+        });
+    }
+
+    /**
+     * Creates a generated solar system and tops it up with extra light planets on circular
+     * orbits until it holds the requested number of bodies.
+     * Like the generated planets they start on the x axis on either side of the sun.
+     */
+    static SolarSystem createSolarSystem(int bodies) {
+        int center = GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2;
+        Random rand = new Random(42);
+        SolarSystem system = new SolarSystem(center, center, rand);
+        CelestialBody sun = system.getRoot();
+
+        while (system.getCelestrialBodies().size() < bodies) {
+            double distance = PHYSICS_CONSTANT.AU * (0.3 + rand.nextDouble() * 1.8);
+            int dir = rand.nextBoolean() ? 1 : -1;
+            double radius = 5 + rand.nextInt(10);
+            double x = sun.getX() + dir * distance;
+            double y = sun.getY();
+            system.addBody(x, y, radius * 70, 1e26, CELESTIAL_BODY_TYPE.PLANET, Color.GRAY, sun);
+        }
+        doubleSink = system.getCelestrialBodies().size();
+        return system;
+    }
+
+    /**
+     * Creates a generated solar system and fills it up with small debris on random orbits
+     * around the sun, from half an AU to four AU out, until it holds the requested number
+     * of bodies. Unlike createSolarSystem the debris covers the whole plane.
+     */
+    static SolarSystem createDebrisField(int bodies, Random rand) {
+        int center = GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2;
+        return fillDebris(new SolarSystem(center, center, rand), bodies, rand);
+    }
+
+    // Adds debris around the sun of the system until it holds the requested number of bodies
+    private static SolarSystem fillDebris(SolarSystem system, int bodies, Random rand) {
+        CelestialBody sun = system.getRoot();
+
+        while (system.getCelestrialBodies().size() < bodies) {
+            double distance = PHYSICS_CONSTANT.AU * (0.5 + rand.nextDouble() * 3.5);
+            double angle = rand.nextDouble() * 2 * Math.PI;
+            double x = sun.getX() + Math.cos(angle) * distance;
+            double y = sun.getY() + Math.sin(angle) * distance;
+            system.addBody(x, y, 2 * 70, 1e22 + rand.nextDouble() * 1e24, CELESTIAL_BODY_TYPE.PLANET, Color.GRAY, sun);
+        }
+        return system;
+    }
+
+    private static int[] intList(String csv) {
+        String[] parts = csv.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++)
+            values[i] = Integer.parseInt(parts[i].trim());
+        return values;
+    }
+}
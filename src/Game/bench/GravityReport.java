@@ -0,0 +1,77 @@
+package Game.bench;
+
+import Game.BarnesHutSolver;
+import Game.BodyStore;
+import Game.DirectGravitySolver;
+import Game.GravitySolver;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * GravityReport class compares the Barnes-Hut solver with the exact direct sum on debris
+ * fields of growing size, for a few opening angles:
+ *
+ *     java -Djava.awt.headless=true -cp bin Game.bench.GravityReport [bodies,...] [theta,...]
+ *
+ * For every case it prints the time to compute the field at every body (tree build
+ * included), the speed-up over the direct solver and the relative error of the field
+ * (|bh - direct| / |direct|) as median, 99th percentile and maximum over the bodies.
+ */
+public class GravityReport {
+    private static final long MIN_TIME_NS = 300_000_000;
+
+    public static void main(String[] args) {
+        int[] bodyCounts = args.length > 0 ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[] { 64, 256, 1024, 4096, 16384 };
+        double[] thetas = args.length > 1 ? Arrays.stream(args[1].split(",")).mapToDouble(Double::parseDouble).toArray()
+                : new double[] { 0.3, 0.5, 0.7, 1.0 };
+
+        System.out.printf("%8s %8s %14s %10s %12s %12s %12s%n",
+                "bodies", "solver", "ms/tick", "speed-up", "err p50", "err p99", "err max");
+        for (int bodies : bodyCounts) {
+            BodyStore store = Benchmarks.createDebrisField(bodies, new Random(42)).getBodyStore();
+
+            double[][] exact = new double[store.size()][2];
+            double directNs = time(new DirectGravitySolver(), store, exact);
+            System.out.printf("%8d %8s %14.3f %10s %12s %12s %12s%n", store.size(), "direct", directNs / 1e6, "1.0x",
+                    "-", "-", "-");
+
+            for (double theta : thetas) {
+                double[][] approx = new double[store.size()][2];
+                double ns = time(new BarnesHutSolver(theta), store, approx);
+
+                double[] errors = new double[store.size()];
+                for (int i = 0; i < errors.length; i++) {
+                    double ex = exact[i][0], ey = exact[i][1];
+                    double length = Math.hypot(ex, ey);
+                    errors[i] = length == 0 ? 0 : Math.hypot(approx[i][0] - ex, approx[i][1] - ey) / length;
+                }
+                Arrays.sort(errors);
+                System.out.printf("%8d %8s %14.3f %9.1fx %12.2e %12.2e %12.2e%n", store.size(), "bh " + theta,
+                        ns / 1e6, directNs / ns, errors[errors.length / 2],
+                        errors[(int) Math.ceil(errors.length * 0.99) - 1], errors[errors.length - 1]);
+            }
+        }
+    }
+
+    /**
+     * Repeats one tick worth of field queries until enough time has passed.
+     *
+     * @param out receives the field at every body
+     * @return the fastest tick in nanoseconds
+     */
+    private static double time(GravitySolver solver, BodyStore store, double[][] out) {
+        long best = Long.MAX_VALUE;
+        long start = System.nanoTime();
+        int runs = 0;
+        while (runs < 5 || System.nanoTime() - start < MIN_TIME_NS) {
+            long t = System.nanoTime();
+            solver.prepare(store);
+            for (int i = 0; i < store.size(); i++)
+                solver.field(store, store.getX(i), store.getY(i), i, out[i]);
+            best = Math.min(best, System.nanoTime() - t);
+            runs++;
+        }
+        return best;
+    }
+}
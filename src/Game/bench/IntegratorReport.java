@@ -0,0 +1,144 @@
+package Game.bench;
+
+import Game.BodyStore;
+import Game.CelestialBody;
+import Game.Constant.CELESTIAL_BODY_TYPE;
+import Game.Constant.GAME_CONSTANT;
+import Game.Constant.Integrator;
+import Game.Constant.PHYSICS_CONSTANT;
+import Game.SolarSystem;
+import java.awt.Color;
+import java.util.Arrays;
+
+/**
+ * IntegratorReport class flies a test solar system for a number of simulated years with every
+ * integrator and a range of timesteps, and prints how well each keeps the orbits:
+ *
+ *     java -Djava.awt.headless=true -cp bin Game.bench.IntegratorReport [years]
+ *
+ * The test system is a sun with light planets on circular orbits from 0.1 to 2 AU, so the
+ * exact orbits are known and stay circular; the innermost one goes around in about twelve
+ * days. For every case it prints the largest relative error of the total energy seen during
+ * the run (kinetic energy of the planets plus the potential energy of all pairs, which the
+ * exact orbits conserve), the largest relative change of a planet's distance to the sun,
+ * the substeps taken per tick and the CPU time per simulated year. Without adaptive
+ * substeps a run shows how large the plain step may get; with them how cheap a stable
+ * orbit can be. The integrators run with Kepler rails turned off; the "rails" rows run the
+ * same system with them on, where every planet of the test system rides its exact ellipse.
+ */
+public class IntegratorReport {
+    private static final double YEAR = 365.25 * 24 * 3600;
+    private static final double[] ORBITS_AU = { 0.1, 0.4, 0.7, 1.0, 1.3, 1.6, 1.9 };
+
+    // ticks between two measurements of the energy and the radii
+    private static final int SAMPLE_TICKS = 16;
+
+    public static void main(String[] args) {
+        double years = args.length > 0 ? Double.parseDouble(args[0]) : 10;
+        double[] timesteps = { PHYSICS_CONSTANT.TIMESTEP, PHYSICS_CONSTANT.TIMESTEP_FAST,
+                4 * PHYSICS_CONSTANT.TIMESTEP_FAST, 16 * PHYSICS_CONSTANT.TIMESTEP_FAST };
+        double[] accuracies = { 0, GAME_CONSTANT.ORBIT_STEP_ACCURACY };
+
+        System.out.printf("%.0f years, planets at %s AU%n", years, Arrays.toString(ORBITS_AU));
+        System.out.printf("%-9s %10s %9s %12s %12s %10s %12s%n",
+                "scheme", "step (s)", "adaptive", "energy err", "radius err", "substeps", "ms/year");
+        GAME_CONSTANT.KEPLER_RAILS = false;
+        for (Integrator integrator : Integrator.values()) {
+            for (double accuracy : accuracies) {
+                for (double timestep : timesteps)
+                    run(integrator.name().toLowerCase(), integrator, timestep, accuracy, years);
+            }
+        }
+
+        GAME_CONSTANT.KEPLER_RAILS = true;
+        for (double timestep : timesteps)
+            run("rails", Integrator.LEAPFROG, timestep, GAME_CONSTANT.ORBIT_STEP_ACCURACY, years);
+    }
+
+    // Flies the test system with one setting and prints the worst errors seen
+    private static void run(String name, Integrator integrator, double timestep, double accuracy, double years) {
+        GAME_CONSTANT.INTEGRATOR = integrator;
+        GAME_CONSTANT.ORBIT_TIMESTEP = timestep;
+        GAME_CONSTANT.ORBIT_STEP_ACCURACY = accuracy;
+        GAME_CONSTANT.MAX_ORBIT_SUBSTEPS = 64;
+
+        SolarSystem system = createTestSystem();
+        BodyStore bodies = system.getBodyStore();
+        double energy = energy(bodies);
+        double[] radius = radii(bodies);
+
+        double dt = 1.0 / GAME_CONSTANT.BASE_TICK_RATE;
+        long ticks = (long) Math.ceil(years * YEAR / timestep);
+        double worstEnergy = 0;
+        double worstRadius = 0;
+        long substeps = 0;
+        long ns = 0;
+
+        for (long t = 0; t < ticks; t += SAMPLE_TICKS) {
+            long start = System.nanoTime();
+            for (long k = t; k < Math.min(ticks, t + SAMPLE_TICKS); k++) {
+                system.update(dt);
+                substeps += system.getLastSubsteps();
+            }
+            ns += System.nanoTime() - start;
+
+            worstEnergy = Math.max(worstEnergy, Math.abs((energy(bodies) - energy) / energy));
+            double[] now = radii(bodies);
+            for (int i = 0; i < now.length; i++) {
+                if (radius[i] > 0)
+                    worstRadius = Math.max(worstRadius, Math.abs(now[i] / radius[i] - 1));
+            }
+        }
+
+        System.out.printf("%-9s %10.0f %9s %12.2e %12.2e %10.2f %12.3f%n", name, timestep,
+                accuracy > 0 ? "yes" : "no", worstEnergy, worstRadius, (double) substeps / ticks,
+                ns / 1e6 / years);
+    }
+
+    // A sun with light planets on circular orbits on alternating sides of it
+    private static SolarSystem createTestSystem() {
+        SolarSystem system = new SolarSystem(GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2, GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2);
+        CelestialBody sun = system.getRoot();
+        for (int i = 0; i < ORBITS_AU.length; i++) {
+            double x = sun.getX() + (i % 2 == 0 ? 1 : -1) * ORBITS_AU[i] * PHYSICS_CONSTANT.AU;
+            system.addBody(x, sun.getY(), 10 * 70, 1e24, CELESTIAL_BODY_TYPE.PLANET, Color.GRAY, sun);
+        }
+        return system;
+    }
+
+    /**
+     * Total energy of the planets: their kinetic energy and the potential energy of every
+     * pair that includes a planet. Black holes do not pull on the planets and are left out.
+     */
+    private static double energy(BodyStore bodies) {
+        double energy = 0;
+        for (int i = 0; i < bodies.size(); i++) {
+            if (!isPlanet(bodies, i))
+                continue;
+            double vx = bodies.getVx(i), vy = bodies.getVy(i);
+            energy += 0.5 * bodies.getMass(i) * (vx * vx + vy * vy);
+
+            for (int j = 0; j < bodies.size(); j++) {
+                if (j == i || (isPlanet(bodies, j) && j < i) || bodies.getType(j) == CELESTIAL_BODY_TYPE.BLACK_HOLE)
+                    continue;
+                double r = Math.hypot(bodies.getX(j) - bodies.getX(i), bodies.getY(j) - bodies.getY(i));
+                energy -= PHYSICS_CONSTANT.G * bodies.getMass(i) * bodies.getMass(j) / r;
+            }
+        }
+        return energy;
+    }
+
+    // Distance of every planet to the sun (body 0), 0 for the other bodies
+    private static double[] radii(BodyStore bodies) {
+        double[] radius = new double[bodies.size()];
+        for (int i = 0; i < bodies.size(); i++) {
+            if (isPlanet(bodies, i))
+                radius[i] = Math.hypot(bodies.getX(i) - bodies.getX(0), bodies.getY(i) - bodies.getY(0));
+        }
+        return radius;
+    }
+
+    private static boolean isPlanet(BodyStore bodies, int i) {
+        return bodies.getType(i) == CELESTIAL_BODY_TYPE.PLANET;
+    }
+}
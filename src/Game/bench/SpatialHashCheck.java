@@ -0,0 +1,125 @@
+package Game.bench;
+
+import Game.SpatialHash;
+import java.util.Random;
+
+/**
+ * SpatialHashCheck class checks the queries of SpatialHash against a scan over all entries:
+ *
+ *     java -cp bin Game.bench.SpatialHashCheck
+ *
+ * Circles of mixed sizes, some many cells across, are added, moved (by small steps that
+ * mostly stay in their cells and by jumps), resized and removed at random, and after every
+ * round random overlap and nearest queries must return exactly what the scan finds, in the
+ * same order. Few buckets are used on purpose, so that cells share buckets.
+ * It exits with status 1 when a check fails.
+ */
+public class SpatialHashCheck {
+    private static final int ROUNDS = 200;
+    private static final int QUERIES_PER_ROUND = 50;
+    private static final double WORLD = 20_000;
+    private static final double CELL = 256;
+
+    public static void main(String[] args) {
+        Random rand = new Random(7);
+        SpatialHash<Integer> hash = new SpatialHash<>(CELL, 16);
+        // the scan's copy of the entries, by id
+        double[] x = new double[4096], y = new double[4096], r = new double[4096];
+        boolean[] live = new boolean[4096];
+        int queries = 0;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int op = 0; op < 40; op++) {
+                int id = rand.nextInt(hash.size() + 8);
+                if (!live[id] || rand.nextInt(10) == 0) {
+                    if (live[id]) {
+                        hash.remove(id);
+                        live[id] = false;
+                        continue;
+                    }
+                    double radius = radius(rand);
+                    double px = rand.nextDouble() * WORLD - WORLD / 2, py = rand.nextDouble() * WORLD - WORLD / 2;
+                    int added = hash.add(round, px, py, radius);
+                    x[added] = px;
+                    y[added] = py;
+                    r[added] = radius;
+                    live[added] = true;
+                } else if (rand.nextBoolean()) {
+                    x[id] += rand.nextGaussian() * 20;
+                    y[id] += rand.nextGaussian() * 20;
+                    hash.update(id, x[id], y[id]);
+                } else {
+                    x[id] = rand.nextDouble() * WORLD - WORLD / 2;
+                    y[id] = rand.nextDouble() * WORLD - WORLD / 2;
+                    r[id] = radius(rand);
+                    hash.update(id, x[id], y[id], r[id]);
+                }
+            }
+
+            for (int q = 0; q < QUERIES_PER_ROUND; q++, queries++) {
+                double qx = rand.nextDouble() * WORLD - WORLD / 2, qy = rand.nextDouble() * WORLD - WORLD / 2;
+                double qr = radius(rand);
+                int found = hash.overlapping(qx, qy, qr);
+                int expected = 0;
+                for (int id = 0; id < live.length; id++) {
+                    double reach = r[id] + qr;
+                    if (!live[id] || Math.pow(x[id] - qx, 2) + Math.pow(y[id] - qy, 2) >= reach * reach)
+                        continue;
+                    if (expected >= found || hash.getResult(expected) != id)
+                        fail("overlapping(" + qx + ", " + qy + ", " + qr + ") misses or misorders entry " + id);
+                    expected++;
+                }
+                if (expected != found)
+                    fail("overlapping(" + qx + ", " + qy + ", " + qr + ") found " + found + ", expected " + expected);
+
+                int k = 1 + rand.nextInt(8);
+                double maxDistance = rand.nextBoolean() ? Double.POSITIVE_INFINITY : rand.nextDouble() * 3000;
+                found = hash.nearest(qx, qy, k, maxDistance);
+                checkNearest(hash, found, qx, qy, k, maxDistance, x, y, live);
+            }
+        }
+        System.out.println(queries + " overlap and nearest queries on up to " + hash.size() + " entries: OK");
+    }
+
+    // The nearest query must find the k nearest live entries within maxDistance, nearest first
+    private static void checkNearest(SpatialHash<Integer> hash, int found, double qx, double qy, int k,
+            double maxDistance, double[] x, double[] y, boolean[] live) {
+        int within = 0;
+        for (int id = 0; id < live.length; id++) {
+            if (live[id] && Math.hypot(x[id] - qx, y[id] - qy) <= maxDistance)
+                within++;
+        }
+        if (found != Math.min(k, within))
+            fail("nearest(" + qx + ", " + qy + ", " + k + ") found " + found + ", expected " + Math.min(k, within));
+        double previous = 0;
+        for (int i = 0; i < found; i++) {
+            int id = hash.getResult(i);
+            double distSq = Math.pow(x[id] - qx, 2) + Math.pow(y[id] - qy, 2);
+            if (!live[id] || distSq < previous)
+                fail("nearest(" + qx + ", " + qy + ", " + k + ") misorders entry " + id);
+            previous = distSq;
+        }
+        if (found == 0)
+            return;
+        // nothing left out may be nearer than the furthest one found
+        for (int id = 0; id < live.length; id++) {
+            if (!live[id] || Math.pow(x[id] - qx, 2) + Math.pow(y[id] - qy, 2) >= previous)
+                continue;
+            boolean listed = false;
+            for (int i = 0; i < found; i++)
+                listed |= hash.getResult(i) == id;
+            if (!listed)
+                fail("nearest(" + qx + ", " + qy + ", " + k + ") misses entry " + id);
+        }
+    }
+
+    // Mostly small circles, now and then one across many cells
+    private static double radius(Random rand) {
+        return rand.nextInt(20) == 0 ? 500 + rand.nextDouble() * 2000 : rand.nextDouble() * 100;
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAIL: " + message);
+        System.exit(1);
+    }
+}
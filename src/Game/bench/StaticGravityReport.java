@@ -0,0 +1,150 @@
+package Game.bench;
+
+import Game.BodyStore;
+import Game.CelestialBody;
+import Game.Constant.CELESTIAL_BODY_TYPE;
+import Game.Constant.GAME_CONSTANT;
+import Game.Constant.PHYSICS_CONSTANT;
+import Game.Constant.PLAYER_CONST;
+import Game.SolarSystem;
+import Game.StaticGravityGrid;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * StaticGravityReport class measures the StaticGravityGrid against the exact sum over the
+ * suns and black holes, for a range of resolutions and exact radii:
+ *
+ *     java -Djava.awt.headless=true -cp bin Game.bench.StaticGravityReport [resolution,...] [exact cells,...]
+ *
+ * The points are spread evenly over the squares of generated solar systems (with and without
+ * a black hole), leaving out the inside of the suns and black holes, where nothing flies.
+ * The error is that of the pull on the ship, suns and black holes weighted as in PLAYER_CONST:
+ * |grid - exact| / |exact| as median, 99th percentile and maximum over the points. It also
+ * prints the share of queries answered exactly, the time per query of the grid and of the
+ * exact sum, the time to build a grid and the size of the largest one.
+ */
+public class StaticGravityReport {
+    private static final int SYSTEMS = 8;
+    private static final int POINTS_PER_SYSTEM = 50_000;
+    private static final int TIMING_PASSES = 5;
+
+    public static void main(String[] args) {
+        int[] resolutions = args.length > 0 ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[] { 64, 128, 256, 512 };
+        double[] exactCells = args.length > 1 ? Arrays.stream(args[1].split(",")).mapToDouble(Double::parseDouble).toArray()
+                : new double[] { 4, 8, 16, 32 };
+
+        SolarSystem[] systems = new SolarSystem[SYSTEMS];
+        Random rand = new Random(42);
+        int center = GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2;
+        for (int s = 0; s < SYSTEMS; s++)
+            systems[s] = new SolarSystem(center, center, new Random(rand.nextLong()));
+
+        System.out.printf("%6s %6s %10s %10s %10s %8s %10s %10s %10s %8s%n", "res", "exact", "err p50", "err p99",
+                "err max", "exact %", "grid ns", "sum ns", "build ms", "MB");
+        for (int resolution : resolutions) {
+            for (double cells : exactCells)
+                run(systems, resolution, cells);
+        }
+    }
+
+    private static void run(SolarSystem[] systems, int resolution, double exactCells) {
+        double[] errors = new double[SYSTEMS * POINTS_PER_SYSTEM];
+        int points = 0;
+        int exactQueries = 0;
+        long gridNs = 0;
+        long sumNs = 0;
+        long buildNs = Long.MAX_VALUE;
+        long bytes = 0;
+        double[] grid = new double[4];
+        double[] exact = new double[4];
+        double sink = 0;
+
+        for (SolarSystem system : systems) {
+            BodyStore bodies = system.getBodyStore();
+            double size = GAME_CONSTANT.SOLAR_SYSTEM_SIZE * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE;
+            double x0 = system.getRoot().getX() - size / 2;
+            double y0 = system.getRoot().getY() - size / 2;
+            long start = System.nanoTime();
+            StaticGravityGrid staticGrid = new StaticGravityGrid(bodies, x0, y0, size, resolution, exactCells);
+            buildNs = Math.min(buildNs, System.nanoTime() - start);
+            bytes = Math.max(bytes, staticGrid.getByteSize());
+
+            // an even lattice of points, skipping the ones inside a sun or black hole
+            int side = (int) Math.sqrt(POINTS_PER_SYSTEM);
+            double[] xs = new double[side * side];
+            double[] ys = new double[side * side];
+            int count = 0;
+            for (int row = 0; row < side; row++) {
+                for (int col = 0; col < side; col++) {
+                    double x = x0 + (col + 0.5) * size / side;
+                    double y = y0 + (row + 0.5) * size / side;
+                    if (!insideStaticBody(system, x, y)) {
+                        xs[count] = x;
+                        ys[count] = y;
+                        count++;
+                    }
+                }
+            }
+
+            // the best of a few passes, the first ones run before the JIT is done
+            long bestGrid = Long.MAX_VALUE;
+            long bestSum = Long.MAX_VALUE;
+            for (int pass = 0; pass < TIMING_PASSES; pass++) {
+                start = System.nanoTime();
+                for (int k = 0; k < count; k++) {
+                    staticGrid.sample(xs[k], ys[k], grid);
+                    sink += grid[0];
+                }
+                bestGrid = Math.min(bestGrid, System.nanoTime() - start);
+                start = System.nanoTime();
+                for (int k = 0; k < count; k++) {
+                    staticGrid.exactField(xs[k], ys[k], exact);
+                    sink += exact[0];
+                }
+                bestSum = Math.min(bestSum, System.nanoTime() - start);
+            }
+            gridNs += bestGrid;
+            sumNs += bestSum;
+
+            for (int k = 0; k < count; k++) {
+                staticGrid.sample(xs[k], ys[k], grid);
+                staticGrid.exactField(xs[k], ys[k], exact);
+                double ex = shipX(exact), ey = shipY(exact);
+                errors[points++] = Math.hypot(shipX(grid) - ex, shipY(grid) - ey) / Math.hypot(ex, ey);
+                if (staticGrid.isExactAt(xs[k], ys[k]))
+                    exactQueries++;
+            }
+        }
+        Benchmarks.doubleSink = sink;
+
+        errors = Arrays.copyOf(errors, points);
+        Arrays.sort(errors);
+        System.out.printf("%6d %6.0f %10.2e %10.2e %10.2e %8.1f %10.1f %10.1f %10.2f %8.2f%n", resolution, exactCells,
+                errors[points / 2], errors[(int) Math.ceil(points * 0.99) - 1], errors[points - 1],
+                100.0 * exactQueries / points, (double) gridNs / points, (double) sumNs / points, buildNs / 1e6,
+                bytes / 1e6);
+    }
+
+    // The pull on the ship from a {sunX, sunY, holeX, holeY} field
+    private static double shipX(double[] f) {
+        return PLAYER_CONST.GRAVITY_STRENGTH * f[0] + PLAYER_CONST.BLACK_HOLE_GRAVITY_STRENGTH * f[2];
+    }
+
+    private static double shipY(double[] f) {
+        return PLAYER_CONST.GRAVITY_STRENGTH * f[1] + PLAYER_CONST.BLACK_HOLE_GRAVITY_STRENGTH * f[3];
+    }
+
+    private static boolean insideStaticBody(SolarSystem system, double x, double y) {
+        for (CelestialBody body : system.getCelestrialBodies()) {
+            if (body.getType() == CELESTIAL_BODY_TYPE.PLANET)
+                continue;
+            // getRadius() is in pixels, and like the collision tests take half of it
+            double radius = body.getRadius() / 2 * PHYSICS_CONSTANT.PIXELS_TO_AU_SCALE;
+            if (Math.hypot(x - body.getX(), y - body.getY()) < radius)
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,101 @@
+package Game.bench;
+
+import Game.CelestialBody;
+import Game.Constant.CELESTIAL_BODY_TYPE;
+import Game.Constant.GAME_CONSTANT;
+import Game.Constant.PHYSICS_CONSTANT;
+import Game.Entity;
+import Game.InputState;
+import Game.Player;
+import Game.SolarSystem;
+import Game.SpatialHash;
+import Game.utils.Vector2D;
+import java.awt.Color;
+import java.util.Random;
+
+/**
+ * SweptCollisionCheck class checks that the ship lands on a small orbiting planet it flies
+ * at, however far it flies in one tick:
+ *
+ *     java -Djava.awt.headless=true -cp bin Game.bench.SweptCollisionCheck
+ *
+ * For tick rates down to 4 per second and speeds that carry the ship well past the planet in
+ * a single tick (so a test of the end position alone misses it), the ship is aimed at the
+ * planet from several directions. It must land, and once the planet moved on, rest at the
+ * touching distance. Aimed to pass just outside the planet it must not land.
+ * The planet is made light enough not to bend the ship's path.
+ * It exits with status 1 when a check fails.
+ */
+public class SweptCollisionCheck {
+    private static final int[] TICK_RATES = { 240, 60, 10, 4 };
+    // px/s; the fastest flies 12500 px a tick at 4 per second, the planet is 14000 px from the sun
+    private static final double[] SPEEDS = { 2_000, 20_000, 50_000 };
+    private static final int DIRECTIONS = 8;
+
+    public static void main(String[] args) {
+        int checks = 0;
+        for (int rate : TICK_RATES) {
+            double dt = 1.0 / rate;
+            for (double speed : SPEEDS) {
+                for (int k = 0; k < DIRECTIONS; k++, checks++) {
+                    double angle = 2 * Math.PI * k / DIRECTIONS;
+                    check(dt, speed, angle, 0, true);
+                    check(dt, speed, angle, 10, false);
+                }
+            }
+        }
+        System.out.println(checks * 2 + " flights at " + TICK_RATES.length + " tick rates: OK");
+    }
+
+    /**
+     * Flies the ship at the planet, or just past it, until it landed or has gone by.
+     *
+     * @param miss how far outside the touching distance the ship passes, 0 to hit the planet
+     */
+    private static void check(double dt, double speed, double angle, double miss, boolean expectLanding) {
+        int center = GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2;
+        SolarSystem system = new SolarSystem(center, center);
+        CelestialBody sun = system.getRoot();
+        CelestialBody planet = system.addBody(sun.getX() + 2 * PHYSICS_CONSTANT.AU, sun.getY(), 5 * 70, 1e10,
+                CELESTIAL_BODY_TYPE.PLANET, Color.GRAY, sun);
+        double minDist = new Player(0, 0, new Random(1)).getCollisionRadius() + planet.getRadius() / 2;
+
+        // start at least 0.6 ticks of flight away, so the tick ends well past the planet, aimed at where the planet will be when the
+        // ship gets there, or past it by the miss distance
+        double dirX = Math.cos(angle), dirY = Math.sin(angle);
+        double start = Math.max(0.6 * speed * dt, 2 * minDist);
+        Vector2D target = planet.getPos();
+        target.add(planet.getVel().multiply(SolarSystem.orbitTime(dt) * start / (speed * dt)));
+        double side = miss > 0 ? minDist + miss : 0;
+        double x = target.x - dirX * start - dirY * side;
+        double y = target.y - dirY * start + dirX * side;
+
+        Player player = new Player(x, y, new Random(1));
+        InputState input = new InputState();
+        SpatialHash<Entity> entities = new SpatialHash<>(GAME_CONSTANT.ENTITY_HASH_CELL, 16);
+        // fly until the ship has passed the planet, the planet moving after each tick as in a GameWorld
+        for (int tick = 0; tick * speed * dt < start + 2 * minDist && !player.isLanded(); tick++) {
+            player.getVel().set(dirX * speed, dirY * speed);
+            player.update(entities, system, input, dt);
+            system.update(dt);
+        }
+        String flight = String.format("dt %.4f s, %.0f px/s at %.0f deg, miss %.0f px", dt, speed,
+                Math.toDegrees(angle), miss);
+        if (player.isLanded() != expectLanding)
+            fail(flight + ": " + (expectLanding ? "flew through the planet" : "landed"));
+        if (!expectLanding)
+            return;
+
+        // resting on the planet the next tick, at the touching distance
+        player.update(entities, system, input, dt);
+        Vector2D planetPos = planet.getPos();
+        double dist = Math.hypot(player.getPos().x - planetPos.x, player.getPos().y - planetPos.y);
+        if (Math.abs(dist - minDist) > 1e-6 * minDist)
+            fail(flight + ": rests " + dist + " px from the center, expected " + minDist);
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAIL: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,152 @@
+package Game.bench;
+
+import Game.CelestialBody;
+import Game.Constant.CELESTIAL_BODY_TYPE;
+import Game.Constant.GAME_CONSTANT;
+import Game.GameWorld;
+import Game.InputState;
+import Game.Player;
+import Game.SolarSystem;
+import Game.TrajectoryPredictor;
+import Game.WorldSnapshot;
+import Game.utils.Vector2D;
+import java.util.Random;
+
+/**
+ * TrajectoryCheck class checks the path the TrajectoryPredictor draws ahead of the ship
+ * against the flight it predicts:
+ *
+ *     java -Djava.awt.headless=true -cp bin Game.bench.TrajectoryCheck
+ *
+ * The ship is put at random places around the planets and the sun of its solar system
+ * with a random velocity and coasts. Once the worker has finished the path of
+ * the first tick, the world is stepped on and the ship must stay within MAX_ERROR of the
+ * path, point for point. A path that ends on a body must end where the ship landed,
+ * unless the flight is a graze: the ship passes within MAX_ERROR of the body, or the
+ * path does where the ship landed.
+ * It prints the largest error and how long the worker took, and exits with status 1 when
+ * a check fails.
+ */
+public class TrajectoryCheck {
+    private static final int FLIGHTS = 40;
+    // px; the planets pull on each other in the world, not in the prediction
+    private static final double MAX_ERROR = 10;
+
+    public static void main(String[] args) throws InterruptedException {
+        Random rand = new Random(5);
+        double dt = 1.0 / GAME_CONSTANT.FPS_SET;
+        double maxError = 0;
+        int impacts = 0;
+        int grazes = 0;
+        long waited = 0;
+
+        for (int flight = 0; flight < FLIGHTS; flight++) {
+            GameWorld world;
+            Player player;
+            InputState input = new InputState();
+            CelestialBody center;
+            do {
+                // somewhere around a body, above its surface, flying at any angle; a new world if it landed at once
+                world = new GameWorld(1);
+                world.getTrajectoryPredictor().start();
+                player = world.getPlayer();
+                center = pickBody(world.getCurrentSolarSystem(), rand);
+                Vector2D centerPos = center.getPos();
+                double angle = rand.nextDouble() * 2 * Math.PI;
+                double distance = center.getRadius() / 2 + player.getCollisionRadius() + 50 + rand.nextDouble() * 3000;
+                player.getPos().set(centerPos.x + Math.cos(angle) * distance, centerPos.y + Math.sin(angle) * distance);
+                double heading = rand.nextDouble() * 2 * Math.PI;
+                double speed = rand.nextDouble() * 600;
+                player.getVel().set(Math.cos(heading) * speed, Math.sin(heading) * speed);
+                world.step(input, dt);
+            } while (player.isLanded());
+            TrajectoryPredictor predictor = world.getTrajectoryPredictor();
+            WorldSnapshot snapshot = new WorldSnapshot();
+            long start = System.nanoTime();
+            do {
+                Thread.sleep(1);
+                world.writeTo(snapshot);
+                if (System.nanoTime() - start > 5_000_000_000L)
+                    fail("flight " + flight + ": no whole path after 5 s, " + predictor.getPathCount() + " points");
+            } while (!predictor.isPathComplete());
+            waited += System.nanoTime() - start;
+
+            int count = predictor.getPathCount();
+            double[] x = new double[count];
+            double[] y = new double[count];
+            for (int i = 0; i < count; i++) {
+                x[i] = predictor.getPathX(i);
+                y[i] = predictor.getPathY(i);
+            }
+            boolean impact = predictor.isPathImpact();
+            if (impact)
+                impacts++;
+
+            // the ship where the path has it, one tick per point; an impact ends mid-tick
+            int landedAt = -1;
+            double fromX = 0;
+            double fromY = 0;
+            for (int i = 0; i < count; i++) {
+                fromX = player.getPos().x;
+                fromY = player.getPos().y;
+                if (i > 0)
+                    world.step(input, dt);
+                if (player.isLanded()) {
+                    landedAt = i;
+                    break;
+                }
+                if (impact && i == count - 1)
+                    break;
+                double error = Math.hypot(player.getPos().x - x[i], player.getPos().y - y[i]);
+                maxError = Math.max(maxError, error);
+                if (error > MAX_ERROR)
+                    fail("flight " + flight + ": " + error + " px off the path after " + i + " ticks");
+            }
+            if (impact != player.isLanded()) {
+                // only a graze may go the other way: the ship passed, or the path passes, within MAX_ERROR of touching
+                SolarSystem system = world.getCurrentSolarSystem();
+                double clearance = impact
+                        ? clearance(system, player, fromX, fromY, player.getPos().x, player.getPos().y)
+                        : clearance(system, player, x[landedAt], y[landedAt], x[landedAt], y[landedAt]);
+                if (clearance > MAX_ERROR)
+                    fail("flight " + flight + (impact ? ": the path ends on a body, the ship flew on"
+                            : ": the ship landed, the path flies on") + " " + clearance + " px clear of it");
+                grazes++;
+            }
+        }
+        System.out.printf("%d flights, %d ending on a body, %d grazes: largest error %.3f px, %.1f ms per whole path%n",
+                FLIGHTS, impacts, grazes, maxError, waited / 1e6 / FLIGHTS);
+        System.out.println("OK");
+    }
+
+    // How far the ship's circle stays from the nearest body while moving from a to b, negative when it touches
+    private static double clearance(SolarSystem system, Player player, double ax, double ay, double bx, double by) {
+        double nearest = Double.POSITIVE_INFINITY;
+        for (CelestialBody body : system.getCelestrialBodies()) {
+            if (body.getType() == CELESTIAL_BODY_TYPE.BLACK_HOLE)
+                continue;
+            Vector2D c = body.getPos();
+            double mx = bx - ax;
+            double my = by - ay;
+            double lengthSq = mx * mx + my * my;
+            double t = lengthSq == 0 ? 0 : Math.max(0, Math.min(1, ((c.x - ax) * mx + (c.y - ay) * my) / lengthSq));
+            double d = Math.hypot(ax + mx * t - c.x, ay + my * t - c.y);
+            nearest = Math.min(nearest, d - body.getRadius() / 2 - player.getCollisionRadius());
+        }
+        return nearest;
+    }
+
+    // The sun or one of the planets
+    private static CelestialBody pickBody(SolarSystem system, Random rand) {
+        while (true) {
+            CelestialBody body = system.getCelestrialBodies().get(rand.nextInt(system.getCelestrialBodies().size()));
+            if (body.getType() != CELESTIAL_BODY_TYPE.BLACK_HOLE)
+                return body;
+        }
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAIL: " + message);
+        System.exit(1);
+    }
+}
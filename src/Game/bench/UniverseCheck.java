@@ -0,0 +1,82 @@
+package Game.bench;
+
+import Game.BodyStore;
+import Game.Constant.GAME_CONSTANT;
+import Game.GameWorld;
+import Game.InputState;
+import Game.Player;
+import Game.Sector;
+import Game.SolarSystemCache;
+import java.util.Arrays;
+
+/**
+ * UniverseCheck class flies the ship far out across the plane and checks that the solar
+ * systems held stay bounded and come out the same when they are generated again:
+ *
+ *     java -Djava.awt.headless=true -cp bin Game.bench.UniverseCheck
+ *
+ * The ship is moved one sector further every tick, diagonally, and the world stepped. After
+ * every tick no more than GAME_CONSTANT.SOLAR_SYSTEM_CACHE systems may be held. A sector off
+ * the ship's path, generated before it set out, must have been dropped on the way, and
+ * generating it again must give the bodies it had when it was first generated.
+ * It exits with status 1 when a check fails.
+ */
+public class UniverseCheck {
+    private static final int SECTORS = 200;
+
+    public static void main(String[] args) {
+        GameWorld world = new GameWorld(1);
+        SolarSystemCache systems = world.getSolarSystems();
+        Player player = world.getPlayer();
+        InputState input = new InputState();
+        double dt = 1.0 / GAME_CONSTANT.BASE_TICK_RATE;
+
+        long startX = Sector.of(player.getPos().x);
+        long startY = Sector.of(player.getPos().y);
+        // a sector off the ship's path, generated before it sets out
+        long awayX = startX - 5, awayY = startY + 5;
+        double[][] first = copy(systems.get(awayX, awayY).getBodyStore());
+
+        int most = 0;
+        for (int k = 1; k <= SECTORS; k++) {
+            // a corner of the sector, far from its sun
+            player.getPos().set(Sector.center(startX + k) - GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2 + 100,
+                    Sector.center(startY + k) - GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2 + 100);
+            player.getVel().set(0, 0);
+            world.step(input, dt);
+            if (player.isLanded())
+                fail("landed in sector " + (startX + k) + "," + (startY + k));
+            most = Math.max(most, systems.size());
+            if (systems.size() > GAME_CONSTANT.SOLAR_SYSTEM_CACHE)
+                fail(systems.size() + " systems held after " + k + " sectors, at most "
+                        + GAME_CONSTANT.SOLAR_SYSTEM_CACHE + " expected");
+        }
+        System.out.println(SECTORS + " sectors flown, " + systems.getGenerated() + " systems generated, at most "
+                + most + " held");
+
+        if (systems.find(awayX, awayY) != null)
+            fail("sector " + awayX + "," + awayY + " is still held");
+        double[][] again = copy(systems.get(awayX, awayY).getBodyStore());
+        if (again.length != first.length)
+            fail(again.length + " bodies, expected " + first.length);
+        for (int i = 0; i < first.length; i++) {
+            if (!Arrays.equals(first[i], again[i]))
+                fail("body " + i + " differs from the first generation");
+        }
+        System.out.println("sector " + awayX + "," + awayY + " generated again with the same " + first.length + " bodies: OK");
+    }
+
+    // Position, velocity, mass and type of every body, as they are now
+    private static double[][] copy(BodyStore bodies) {
+        double[][] copy = new double[bodies.size()][];
+        for (int i = 0; i < bodies.size(); i++)
+            copy[i] = new double[] { bodies.getX(i), bodies.getY(i), bodies.getVx(i), bodies.getVy(i),
+                    bodies.getMass(i), bodies.getType(i).ordinal() };
+        return copy;
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAIL: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,125 @@
+package Game.bench;
+
+import Game.BodyStore;
+import Game.CelestialBody;
+import Game.Constant.CELESTIAL_BODY_TYPE;
+import Game.Constant.GAME_CONSTANT;
+import Game.Constant.PHYSICS_CONSTANT;
+import Game.DirectGravitySolver;
+import Game.GravitySolver;
+import Game.SolarSystem;
+import Game.VectorGravity;
+import java.awt.Color;
+import java.util.Random;
+
+/**
+ * VectorGravityCheck class checks the SIMD gravity kernel against the scalar one:
+ *
+ *     java --add-modules jdk.incubator.vector -Djava.awt.headless=true -cp bin Game.bench.VectorGravityCheck
+ *
+ * For debris fields of sizes around and between the register widths, with a black hole and
+ * two bodies on the same spot among them, it asks both solvers for the field at every body
+ * (leaving the body out) and at random points (some leaving out a random body), and compares.
+ * The lanes add the bodies up in another order, so the results may differ by rounding: the
+ * error is measured against the sum of the magnitudes of all pulls, which is what the
+ * rounding scales with, and must stay below TOLERANCE.
+ * Without the Vector API it checks that the game falls back to the scalar kernel instead.
+ * It exits with status 1 when a check fails.
+ */
+public class VectorGravityCheck {
+    private static final double TOLERANCE = 1e-13;
+    private static final int[] BODY_COUNTS = { 1, 2, 3, 4, 5, 7, 8, 9, 15, 16, 17, 64, 255, 1024 };
+    private static final int RANDOM_POINTS = 64;
+
+    public static void main(String[] args) {
+        if (!VectorGravity.isAvailable()) {
+            System.out.println("SIMD gravity not available: " + VectorGravity.getUnavailableReason());
+            GAME_CONSTANT.SIMD_GRAVITY = true;
+            boolean fallback = VectorGravity.newDirectSolver() instanceof DirectGravitySolver;
+            System.out.println(fallback ? "OK: falls back to the scalar kernel" : "FAIL: no fallback");
+            if (!fallback)
+                System.exit(1);
+            return;
+        }
+
+        System.out.printf("%8s %12s %12s%n", "bodies", "queries", "worst err");
+        double worst = 0;
+        for (int bodies : BODY_COUNTS) {
+            Random rand = new Random(bodies);
+            BodyStore store = createTestField(bodies, rand).getBodyStore();
+            GravitySolver scalar = new DirectGravitySolver();
+            GravitySolver simd = VectorGravity.newVectorSolver();
+            scalar.prepare(store);
+            simd.prepare(store);
+
+            double err = 0;
+            int queries = 0;
+            for (int i = 0; i < store.size(); i++, queries++)
+                err = Math.max(err, compare(store, scalar, simd, store.getX(i), store.getY(i), i));
+            for (int k = 0; k < RANDOM_POINTS; k++, queries++) {
+                double x = store.getX(0) + (rand.nextDouble() - 0.5) * 8e11;
+                double y = store.getY(0) + (rand.nextDouble() - 0.5) * 8e11;
+                int skip = k % 2 == 0 ? -1 : rand.nextInt(store.size()); // leaving out a body elsewhere
+                err = Math.max(err, compare(store, scalar, simd, x, y, skip));
+            }
+            // on a body without leaving it out: that body has to be ignored, not divide by zero
+            err = Math.max(err, compare(store, scalar, simd, store.getX(0), store.getY(0), -1));
+            queries++;
+
+            System.out.printf("%8d %12d %12.2e%n", store.size(), queries, err);
+            worst = Math.max(worst, err);
+        }
+
+        if (!(worst < TOLERANCE)) {
+            System.out.printf("FAIL: error %.2e above %.0e%n", worst, TOLERANCE);
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    /**
+     * Field of both solvers at one point.
+     *
+     * @return the difference relative to the summed magnitude of the pulls
+     */
+    private static double compare(BodyStore store, GravitySolver scalar, GravitySolver simd, double x, double y,
+            int skip) {
+        double[] expected = new double[2];
+        double[] actual = new double[2];
+        scalar.field(store, x, y, skip, expected);
+        simd.field(store, x, y, skip, actual);
+
+        double scale = 0;
+        for (int j = 0; j < store.size(); j++) {
+            if (j == skip || store.getType(j) == CELESTIAL_BODY_TYPE.BLACK_HOLE)
+                continue;
+            double distSq = Math.pow(store.getX(j) - x, 2) + Math.pow(store.getY(j) - y, 2);
+            if (distSq > 0)
+                scale += store.getMass(j) / distSq;
+        }
+        double diff = Math.hypot(actual[0] - expected[0], actual[1] - expected[1]);
+        if (Double.isNaN(diff))
+            return Double.POSITIVE_INFINITY;
+        return scale == 0 ? diff : diff / scale;
+    }
+
+    // A sun with debris around it, and from three bodies on a black hole and a body on top of another one
+    private static SolarSystem createTestField(int bodies, Random rand) {
+        int center = GAME_CONSTANT.SOLAR_SYSTEM_SIZE / 2;
+        SolarSystem system = new SolarSystem(center, center);
+        CelestialBody sun = system.getRoot();
+        int debris = bodies < 3 ? bodies - 1 : bodies - 3;
+        for (int k = 0; k < debris; k++) {
+            double distance = PHYSICS_CONSTANT.AU * (0.5 + rand.nextDouble() * 3.5);
+            double angle = rand.nextDouble() * 2 * Math.PI;
+            system.addBody(sun.getX() + Math.cos(angle) * distance, sun.getY() + Math.sin(angle) * distance, 2 * 70,
+                    1e22 + rand.nextDouble() * 1e24, CELESTIAL_BODY_TYPE.PLANET, Color.GRAY, sun);
+        }
+        if (bodies < 3)
+            return system;
+        CelestialBody last = system.getCelestrialBodies().get(system.getCelestrialBodies().size() - 1);
+        system.addBody(sun.getX() + 2e11, sun.getY(), 10 * 70, 1e31, CELESTIAL_BODY_TYPE.BLACK_HOLE, Color.BLACK, sun);
+        system.addBody(last.getX(), last.getY(), 2 * 70, 1e23, CELESTIAL_BODY_TYPE.PLANET, Color.GRAY, sun);
+        return system;
+    }
+}
@@ -0,0 +1,31 @@
+package Game.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * AssetLoadEvent is recorded by the JDK Flight Recorder for every image read from disk, with
+ * the time taken to decode and scale it.
+ */
+@Name("mrspaceman.AssetLoad")
+@Label("Asset Load")
+@Category({ "MrSpaceman", "Assets" })
+@Description("Reading and scaling of one image file")
+public class AssetLoadEvent extends Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Width")
+    @Description("Width of the scaled image in pixels, 0 if loading failed")
+    public int width;
+
+    @Label("Height")
+    @Description("Height of the scaled image in pixels, 0 if loading failed")
+    public int height;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,32 @@
+package Game.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * BufferResizeEvent is recorded by the JDK Flight Recorder when one of the parallel arrays of a
+ * WorldSnapshot (particles, enemies or bodies) has to grow.
+ * A grow copies every array of that collection, so these should only show up while the game
+ * warms up or when the particle count reaches a new maximum.
+ */
+@Name("mrspaceman.BufferResize")
+@Label("Snapshot Buffer Resize")
+@Category({ "MrSpaceman", "Rendering" })
+@Description("Growth of the snapshot arrays of one collection")
+public class BufferResizeEvent extends Event {
+    @Label("Buffer")
+    @Description("particles, enemies or bodies")
+    public String buffer;
+
+    @Label("Old Capacity")
+    public int oldCapacity;
+
+    @Label("New Capacity")
+    public int newCapacity;
+
+    @Label("Required Size")
+    public int required;
+}
@@ -0,0 +1,36 @@
+package Game.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * FrameEvent is recorded by the JDK Flight Recorder for every frame the renderer draws.
+ * Its duration is the time spent drawing the frame, the counts are those of the drawn snapshot.
+ */
+@Name("mrspaceman.Frame")
+@Label("Rendered Frame")
+@Category({ "MrSpaceman", "Rendering" })
+@Description("Drawing of one world snapshot")
+public class FrameEvent extends Event {
+    @Label("Snapshot Sequence")
+    @Description("Publish number of the drawn snapshot, repeated when no new tick arrived")
+    public long sequence;
+
+    @Label("Game State")
+    public String state;
+
+    @Label("Bodies")
+    @Description("Celestial bodies drawn")
+    public int bodies;
+
+    @Label("Particles")
+    @Description("Trail particles drawn")
+    public int particles;
+
+    @Label("Enemies")
+    @Description("Enemies drawn")
+    public int enemies;
+}
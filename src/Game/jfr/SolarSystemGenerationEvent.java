@@ -0,0 +1,32 @@
+package Game.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * SolarSystemGenerationEvent is recorded by the JDK Flight Recorder for every SolarSystem that
+ * is constructed, with the time it took to generate its bodies.
+ */
+@Name("mrspaceman.SolarSystemGeneration")
+@Label("Solar System Generation")
+@Category({ "MrSpaceman", "World" })
+@Description("Construction of one solar system")
+public class SolarSystemGenerationEvent extends Event {
+    @Label("Sun X")
+    @Description("x-coordinate of the sun in pixels")
+    public double x;
+
+    @Label("Sun Y")
+    @Description("y-coordinate of the sun in pixels")
+    public double y;
+
+    @Label("Bodies")
+    @Description("Celestial bodies generated, including the sun")
+    public int bodies;
+
+    @Label("Black Hole")
+    public boolean blackHole;
+}
@@ -0,0 +1,28 @@
+package Game.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * TickEvent is recorded by the JDK Flight Recorder for every simulation tick of the GameWorld.
+ * Its duration is the time the tick took; the counts show how much work the tick had.
+ */
+@Name("mrspaceman.Tick")
+@Label("Simulation Tick")
+@Category({ "MrSpaceman", "Simulation" })
+@Description("One fixed-timestep update of the game world")
+public class TickEvent extends Event {
+    @Label("Bodies")
+    @Description("Celestial bodies updated in all solar systems")
+    public int bodies;
+
+    @Label("Particles")
+    @Description("Live trail particles after the tick")
+    public int particles;
+
+    @Label("Enemies")
+    public int enemies;
+}
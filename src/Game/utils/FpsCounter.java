@@ -0,0 +1,33 @@
+package Game.utils;
+
+/*
+ * Counts rendered frames and reports the frame rate over the last full second.
+ * frame() is called by the rendering thread, getFps() can be read from any thread.
+ */
+public class FpsCounter {
+    private static final long WINDOW_NS = 1_000_000_000L;
+
+    private long windowStart = 0;
+    private int framesInWindow = 0;
+    private volatile double fps = 0;
+
+    // Record that a frame was presented
+    public void frame() {
+        long now = System.nanoTime();
+        if (this.windowStart == 0)
+            this.windowStart = now;
+
+        this.framesInWindow++;
+        long elapsed = now - this.windowStart;
+        if (elapsed >= WINDOW_NS) {
+            this.fps = this.framesInWindow * (double) WINDOW_NS / elapsed;
+            this.framesInWindow = 0;
+            this.windowStart = now;
+        }
+    }
+
+    // Frames per second measured over the last completed window
+    public double getFps() {
+        return this.fps;
+    }
+}
@@ -1,13 +1,17 @@
 package Game.utils;
 
+import Game.jfr.AssetLoadEvent;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import javax.imageio.ImageIO;
+import jdk.jfr.EventType;
 
 public class FrameAnimation {
+    private static final EventType ASSET_LOAD_EVENT = EventType.getEventType(AssetLoadEvent.class);
+
     private int index = 0;
     private double timer = 0;
 
@@ -24,6 +28,11 @@ public class FrameAnimation {
         return this.frames.get(this.index);
     }
 
+    // Frame for an ever-increasing frame number, wrapping around the loaded frames
+    public BufferedImage getFrame(int frameNumber) {
+        return this.frames.get(Math.floorMod(frameNumber, this.frames.size()));
+    }
+
     public BufferedImage newFrame(){
         this.index = (this.index + 1) % this.frames.size();
         return this.frames.get(this.index);
@@ -55,16 +64,34 @@ public class FrameAnimation {
         return scaled;
     }
 
+    // Reads and scales an image, recorded as an AssetLoadEvent when a flight recording is running
     public static BufferedImage loadImage(String filePath, double scaleFactor) {
+        AssetLoadEvent event = ASSET_LOAD_EVENT.isEnabled() ? new AssetLoadEvent() : null;
+        if (event != null)
+            event.begin();
+
+        BufferedImage image = null;
         try {
             File imageFile = new File(filePath);
-            return FrameAnimation.scaleImage(ImageIO.read(imageFile), scaleFactor);
+            image = FrameAnimation.scaleImage(ImageIO.read(imageFile), scaleFactor);
         }
         catch (IOException e) {
             System.out.println(filePath + ": " + e);
         }
 
-        return null;
+        if (event == null)
+            return image;
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = filePath;
+            event.succeeded = image != null;
+            if (image != null) {
+                event.width = image.getWidth();
+                event.height = image.getHeight();
+            }
+            event.commit();
+        }
+        return image;
     }
 
     public void loadFrames(String[] filePaths, double scaleFactor) {
@@ -2,6 +2,9 @@ package Game.utils;
 
 /*
 * Implementation of 2D Vector to assit in readibility and calculation within the program
+* The instance methods work in place and the static ones with an out parameter write into it;
+* the other static ones return a new vector. The per-tick code uses the first two, so it does
+* not allocate. ZERO, UP and RIGHT are shared: never change them, copy them with set() instead.
 */
 public class Vector2D {
     public double x = 0;
@@ -22,6 +25,20 @@ public class Vector2D {
         this.y = y;
     }
 
+    // Set the components
+    public Vector2D set(double x, double y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
+    // Copy the components of another vector
+    public Vector2D set(Vector2D b) {
+        this.x = b.x;
+        this.y = b.y;
+        return this;
+    }
+
     // Multiply the vector
     public Vector2D multiply(double factor) {
         this.x *= factor;
@@ -45,6 +62,12 @@ public class Vector2D {
         this.y -= b.y;
     }
 
+    // Add b scaled by the factor, e.g. an acceleration times the tick length
+    public void addScaled(Vector2D b, double factor) {
+        this.x += b.x * factor;
+        this.y += b.y * factor;
+    }
+
     // Calculate the length of the vector
     public double length() {
         return Math.sqrt(this.x * this.x + this.y * this.y);
@@ -95,7 +118,7 @@ public class Vector2D {
     public static Vector2D normalize(Vector2D a){
         double len = a.length();
         if(len == 0)
-            return Vector2D.ZERO;
+            return new Vector2D();
         return new Vector2D(a.x/len, a.y/len);
     }
 
@@ -119,6 +142,11 @@ public class Vector2D {
         return new Vector2D(a.x - b.x, a.y - b.y);
     }
 
+    // a - b into out, which may be a or b
+    public static Vector2D subtract(Vector2D a, Vector2D b, Vector2D out) {
+        return out.set(a.x - b.x, a.y - b.y);
+    }
+
     public static Vector2D zero() {
         return new Vector2D(0, 0);
     }